@@ -0,0 +1,80 @@
+package com.example.rag;
+
+import java.util.Random;
+
+/**
+ * 벤치마크용 한국어 문서 생성기.
+ * 실행마다 같은 입력을 쓰도록 고정 시드로 문장을 조합한다.
+ */
+public final class BenchmarkTexts {
+
+	private static final String[] SENTENCES = {
+			"연차 휴가는 입사일을 기준으로 매년 15일이 부여되며, 3년 이상 근속 시 2년마다 1일씩 가산된다.",
+			"재택근무 신청은 팀장 승인 후 근무 시작 3영업일 전까지 인사 시스템에 등록해야 한다.",
+			"출장 경비는 출장 종료 후 10일 이내에 영수증을 첨부하여 정산한다.",
+			"보안 사고가 의심되는 경우 즉시 정보보호팀(내선 1234)으로 신고한다.",
+			"사내 교육 프로그램은 분기별로 개설되며, 연간 40시간 이상 이수를 권장한다.",
+			"개인정보가 포함된 문서는 암호화된 저장소에만 보관하고 외부 메일로 전송하지 않는다.",
+			"The API gateway enforces a rate limit of 100 requests per minute per client.",
+			"야간 배포는 변경 승인 위원회(CAB)의 사전 승인을 받은 경우에만 진행할 수 있다.",
+			"복지 포인트는 매년 1월 1일에 지급되며, 미사용 포인트는 12월 31일에 소멸된다.",
+			"장애 등급은 영향 범위와 지속 시간에 따라 P1부터 P4까지 분류한다.",
+	};
+
+	private BenchmarkTexts() {
+	}
+
+	/** 헤더·목록·문단이 섞인 마크다운 문서. */
+	public static String koreanMarkdown(int sections, long seed) {
+		Random random = new Random(seed);
+		StringBuilder sb = new StringBuilder();
+		for (int s = 0; s < sections; s++) {
+			sb.append("## ").append(s + 1).append(". 사내 규정 ").append(s + 1).append("\n\n");
+			int paragraphs = 1 + random.nextInt(4);
+			for (int p = 0; p < paragraphs; p++) {
+				appendSentences(sb, random, 2 + random.nextInt(6));
+				sb.append("\n\n");
+			}
+			if (random.nextInt(3) == 0) {
+				for (int i = 0; i < 3; i++) {
+					sb.append("- ").append(sentence(random)).append('\n');
+				}
+				sb.append('\n');
+			}
+			// 가끔 토큰 단위 재분할이 필요한 긴 섹션을 섞는다.
+			if (random.nextInt(10) == 0) {
+				appendSentences(sb, random, 80);
+				sb.append("\n\n");
+			}
+		}
+		return sb.toString();
+	}
+
+	/** PDFTextStripper 출력처럼 줄바꿈이 잦고 빈 줄이 드문 페이지 텍스트. */
+	public static String pdfPages(int pages, long seed) {
+		Random random = new Random(seed);
+		StringBuilder sb = new StringBuilder();
+		for (int page = 0; page < pages; page++) {
+			for (int line = 0; line < 40; line++) {
+				String sentence = sentence(random);
+				int cut = Math.min(sentence.length(), 30 + random.nextInt(20));
+				sb.append(sentence, 0, cut).append('\n');
+			}
+			sb.append("- ").append(page + 1).append(" -\n\n");
+		}
+		return sb.toString();
+	}
+
+	public static String sentence(Random random) {
+		return SENTENCES[random.nextInt(SENTENCES.length)];
+	}
+
+	private static void appendSentences(StringBuilder sb, Random random, int count) {
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(' ');
+			}
+			sb.append(sentence(random));
+		}
+	}
+}
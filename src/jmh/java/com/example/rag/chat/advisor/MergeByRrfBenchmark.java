@@ -0,0 +1,67 @@
+package com.example.rag.chat.advisor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.ai.document.Document;
+
+import com.example.rag.BenchmarkTexts;
+
+/**
+ * 벡터/키워드 검색 결과 RRF 병합. 후보 수와 두 결과의 겹침 비율에 따른 비용을 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MergeByRrfBenchmark {
+
+	@Param({"10", "50", "200"})
+	private int candidates;
+
+	/** 키워드 결과 중 벡터 결과와 같은 문서의 비율 (%) */
+	@Param({"50"})
+	private int overlapPercent;
+
+	private List<Document> vectorResults;
+	private List<Document> keywordResults;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		vectorResults = new ArrayList<>(candidates);
+		keywordResults = new ArrayList<>(candidates);
+
+		for (int i = 0; i < candidates; i++) {
+			vectorResults.add(document("v-" + i, random));
+		}
+		for (int i = 0; i < candidates; i++) {
+			keywordResults.add(random.nextInt(100) < overlapPercent
+					? vectorResults.get(random.nextInt(candidates))
+					: document("k-" + i, random));
+		}
+	}
+
+	@Benchmark
+	public List<Document> merge() {
+		return RetrievalRerankAdvisor.mergeByRRF(vectorResults, keywordResults, 60, 10);
+	}
+
+	private static Document document(String id, Random random) {
+		return Document.builder()
+				.id(id)
+				.text(BenchmarkTexts.sentence(random))
+				.metadata(Map.of("title", "문서 " + id, "category", "hr"))
+				.build();
+	}
+}
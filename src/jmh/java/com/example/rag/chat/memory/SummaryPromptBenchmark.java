@@ -0,0 +1,49 @@
+package com.example.rag.chat.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import com.example.rag.BenchmarkTexts;
+
+/**
+ * 대화 요약 프롬프트 생성. 요약 대상 메시지 수에 따른 비용을 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SummaryPromptBenchmark {
+
+	@Param({"10", "50"})
+	private int messageCount;
+
+	private List<Message> messages;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		messages = new ArrayList<>(messageCount);
+		for (int i = 0; i < messageCount; i++) {
+			String text = BenchmarkTexts.sentence(random) + " " + BenchmarkTexts.sentence(random);
+			messages.add(i % 2 == 0 ? new UserMessage(text) : new AssistantMessage(text));
+		}
+	}
+
+	@Benchmark
+	public String buildSummaryPrompt() {
+		return SummarizingChatMemory.buildSummaryPrompt(messages);
+	}
+}
@@ -0,0 +1,63 @@
+package com.example.rag.chat.replica;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 벡터 레플리카 검색. 코퍼스 크기와 SIMD 사용 여부에 따른 top-10 검색 시간을 측정한다.
+ * (임베딩 1536차원, 임의 벡터)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HnswIndexBenchmark {
+
+	private static final int DIMENSIONS = 1536;
+
+	@Param({"1000", "5000"})
+	private int vectors;
+
+	@Param({"true", "false"})
+	private boolean simd;
+
+	private HnswIndex index;
+	private float[][] queries;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		index = new HnswIndex(DIMENSIONS, vectors, 16, 100, simd && VectorMath.simdAvailable());
+		for (int i = 0; i < vectors; i++) {
+			index.insert(vector(random));
+		}
+		queries = new float[64][];
+		for (int i = 0; i < queries.length; i++) {
+			queries[i] = vector(random);
+		}
+	}
+
+	@Benchmark
+	public List<HnswIndex.Hit> search() {
+		float[] query = queries[next++ & (queries.length - 1)];
+		return index.search(query, 10, 64);
+	}
+
+	private static float[] vector(Random random) {
+		float[] vector = new float[DIMENSIONS];
+		for (int i = 0; i < DIMENSIONS; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.rag.chat.repository;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 사용자 질의 → tsquery 변환.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BuildTsQueryBenchmark {
+
+	@Param({
+			"연차 휴가",
+			"재택근무 신청 절차와 승인 기한은 어떻게 되나요",
+			"  출장   경비 정산 영수증   제출 기한 및 필요 서류 목록 그리고 예외 규정  "
+	})
+	private String query;
+
+	@Benchmark
+	public String buildTsQuery() {
+		return KeywordSearchRepository.buildTsQuery(query);
+	}
+}
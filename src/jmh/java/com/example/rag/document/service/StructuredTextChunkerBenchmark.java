@@ -0,0 +1,46 @@
+package com.example.rag.document.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.rag.BenchmarkTexts;
+
+/**
+ * 문서 청킹 처리량. 문서 하나를 청크로 분할하는 시간과 할당량을 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StructuredTextChunkerBenchmark {
+
+	@Param({"markdown", "pdf"})
+	private String format;
+
+	@Param({"50", "300"})
+	private int size;
+
+	private StructuredTextChunker chunker;
+	private String text;
+
+	@Setup
+	public void setUp() {
+		chunker = new StructuredTextChunker();
+		text = format.equals("pdf")
+				? BenchmarkTexts.pdfPages(size, 42)
+				: BenchmarkTexts.koreanMarkdown(size, 42);
+	}
+
+	@Benchmark
+	public List<String> chunk() {
+		return chunker.chunk(text);
+	}
+}
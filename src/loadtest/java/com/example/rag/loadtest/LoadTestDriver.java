@@ -0,0 +1,359 @@
+package com.example.rag.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 채팅 API 부하 테스트 드라이버.
+ *
+ * 질문 코퍼스를 지정한 동시성으로 /api/chat, /api/chat/stream에 반복 전송하고
+ * 처리량, 지연 p50/p90/p99, 스트리밍 첫 토큰 시간(TTFT)을 출력한다.
+ * 각 워커는 응답을 받은 뒤 다음 요청을 보내는 closed-loop 방식이다.
+ *
+ * 서버는 loadtest 프로파일(로컬 모델)로 띄우는 것을 전제로 한다.
+ * 단계별 소요 시간은 서버의 /actuator/prometheus(rag.stage.duration 등)에서 함께 확인한다.
+ *
+ * 옵션 (--key=value):
+ * - base-url      서버 주소 (기본 http://localhost:8080)
+ * - questions     질문 파일, 한 줄에 하나 (기본: 내장 questions.txt)
+ * - docs          지정하면 디렉터리의 .md/.txt 파일을 먼저 적재하고 완료를 기다린다
+ * - category      요청·적재에 사용할 카테고리
+ * - endpoint      chat | stream | both (기본 both)
+ * - concurrency   동시 워커 수 (기본 16)
+ * - requests      엔드포인트별 측정 요청 수 (기본 500)
+ * - warmup        엔드포인트별 워밍업 요청 수, 통계에서 제외 (기본 50)
+ * - cache-bust    true면 X-Cache-Bypass 헤더를 보내 리라이팅·답변 캐시를 우회 (기본 false)
+ *                 질문은 바꾸지 않으므로 리라이팅 생략 판단과 검색 결과는 캐시를 쓸 때와 같다.
+ *                 질문 임베딩은 텍스트 단위 캐시를 그대로 사용한다.
+ *
+ * 실행: ./gradlew loadTest -PloadTestArgs="--concurrency=32 --requests=1000"
+ */
+public final class LoadTestDriver {
+
+	private static final Pattern JOB_ID = Pattern.compile("\"jobId\"\\s*:\\s*\"([^\"]+)\"");
+	private static final Pattern STATUS = Pattern.compile("\"status\"\\s*:\\s*\"([^\"]+)\"");
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private final Map<String, String> options;
+	private final String baseUrl;
+	private final String category;
+	private final boolean cacheBust;
+
+	private LoadTestDriver(Map<String, String> options) {
+		this.options = options;
+		this.baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+		this.category = options.get("category");
+		this.cacheBust = Boolean.parseBoolean(options.getOrDefault("cache-bust", "false"));
+	}
+
+	public static void main(String[] args) throws Exception {
+		new LoadTestDriver(parse(args)).run();
+	}
+
+	private void run() throws Exception {
+		if (options.containsKey("docs")) {
+			seed(Path.of(options.get("docs")));
+		}
+
+		List<String> questions = loadQuestions();
+		int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+		int requests = Integer.parseInt(options.getOrDefault("requests", "500"));
+		int warmup = Integer.parseInt(options.getOrDefault("warmup", "50"));
+		String endpoint = options.getOrDefault("endpoint", "both");
+
+		System.out.printf("질문 %d개, 동시성 %d, 요청 %d (워밍업 %d), cache-bust=%s%n",
+				questions.size(), concurrency, requests, warmup, cacheBust);
+
+		if (!endpoint.equals("stream")) {
+			report("/api/chat", execute(questions, concurrency, warmup, requests, false));
+		}
+		if (!endpoint.equals("chat")) {
+			report("/api/chat/stream", execute(questions, concurrency, warmup, requests, true));
+		}
+	}
+
+	/**
+	 * 워밍업 후 측정 구간을 실행한다. 워밍업 요청은 같은 방식으로 보내되 통계에 넣지 않는다.
+	 */
+	private Result execute(List<String> questions, int concurrency, int warmup, int requests, boolean stream)
+			throws InterruptedException {
+		runPhase(questions, concurrency, warmup, stream, new Result(warmup));
+		Result result = new Result(requests);
+		long start = System.nanoTime();
+		runPhase(questions, concurrency, requests, stream, result);
+		result.elapsedNanos = System.nanoTime() - start;
+		return result;
+	}
+
+	private void runPhase(List<String> questions, int concurrency, int total, boolean stream, Result result)
+			throws InterruptedException {
+		AtomicInteger next = new AtomicInteger();
+		try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int w = 0; w < concurrency; w++) {
+				workers.submit(() -> {
+					int i;
+					while ((i = next.getAndIncrement()) < total) {
+						String question = questions.get(i % questions.size());
+						if (stream) {
+							sendStream(question, result);
+						} else {
+							sendChat(question, result);
+						}
+					}
+				});
+			}
+		}
+	}
+
+	private void sendChat(String question, Result result) {
+		long start = System.nanoTime();
+		try {
+			HttpResponse<Void> response = client.send(chatRequest("/api/chat", question),
+					HttpResponse.BodyHandlers.discarding());
+			if (response.statusCode() == 200) {
+				result.success(System.nanoTime() - start, -1);
+			} else {
+				result.failure("HTTP " + response.statusCode());
+			}
+		} catch (IOException e) {
+			result.failure(e.getClass().getSimpleName());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * SSE 응답을 줄 단위로 읽는다. 이름 없는 첫 data 이벤트까지를 TTFT로 기록하고,
+	 * error 이벤트(advisor 스케줄러 포화)는 거절로 집계한다.
+	 */
+	private void sendStream(String question, Result result) {
+		long start = System.nanoTime();
+		try {
+			HttpResponse<Stream<String>> response = client.send(chatRequest("/api/chat/stream", question),
+					HttpResponse.BodyHandlers.ofLines());
+			if (response.statusCode() != 200) {
+				response.body().close();
+				result.failure("HTTP " + response.statusCode());
+				return;
+			}
+
+			long ttft = -1;
+			String event = null;
+			boolean rejected = false;
+			try (Stream<String> lines = response.body()) {
+				Iterator<String> it = lines.iterator();
+				while (it.hasNext()) {
+					String line = it.next();
+					if (line.isEmpty()) {
+						event = null;
+					} else if (line.startsWith("event:")) {
+						event = line.substring("event:".length()).strip();
+						rejected |= event.equals("error");
+					} else if (line.startsWith("data:") && event == null && ttft < 0) {
+						ttft = System.nanoTime() - start;
+					}
+				}
+			}
+
+			if (rejected) {
+				result.failure("rejected");
+			} else {
+				result.success(System.nanoTime() - start, ttft);
+			}
+		} catch (IOException e) {
+			result.failure(e.getClass().getSimpleName());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** 대화의 첫 질문으로 보내 매 요청이 같은 경로(답변 캐시 조회 포함)를 거치도록 한다. */
+	private HttpRequest chatRequest(String path, String question) {
+		String body = "{\"question\":" + json(question)
+				+ ",\"conversationId\":" + json(UUID.randomUUID().toString())
+				+ (category != null ? ",\"category\":" + json(category) : "")
+				+ "}";
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofSeconds(60))
+				.header("Content-Type", "application/json")
+				.header("X-Cache-Bypass", Boolean.toString(cacheBust))
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+
+	/** 디렉터리의 문서를 적재하고 모든 작업이 끝날 때까지 기다린다. */
+	private void seed(Path dir) throws IOException, InterruptedException {
+		List<String> jobIds = new ArrayList<>();
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path file : files.filter(f -> f.toString().endsWith(".md") || f.toString().endsWith(".txt"))
+					.sorted().toList()) {
+				String body = "{\"title\":" + json(file.getFileName().toString())
+						+ ",\"content\":" + json(Files.readString(file))
+						+ (category != null ? ",\"category\":" + json(category) : "")
+						+ "}";
+				HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/documents"))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(body))
+						.build();
+				HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+				Matcher matcher = JOB_ID.matcher(response.body());
+				if (response.statusCode() != 202 || !matcher.find()) {
+					throw new IllegalStateException("문서 적재 요청 실패: " + file + " (HTTP " + response.statusCode() + ")");
+				}
+				jobIds.add(matcher.group(1));
+			}
+		}
+
+		for (String jobId : jobIds) {
+			String status;
+			do {
+				Thread.sleep(200);
+				HttpResponse<String> response = client.send(
+						HttpRequest.newBuilder(URI.create(baseUrl + "/api/documents/jobs/" + jobId)).GET().build(),
+						HttpResponse.BodyHandlers.ofString());
+				Matcher matcher = STATUS.matcher(response.body());
+				status = matcher.find() ? matcher.group(1) : "UNKNOWN";
+			} while (status.equals("QUEUED") || status.equals("RUNNING"));
+			if (!status.equals("COMPLETED")) {
+				throw new IllegalStateException("문서 적재 실패: jobId=" + jobId + ", status=" + status);
+			}
+		}
+		System.out.printf("문서 %d개 적재 완료%n", jobIds.size());
+	}
+
+	private List<String> loadQuestions() throws IOException {
+		List<String> lines;
+		if (options.containsKey("questions")) {
+			lines = Files.readAllLines(Path.of(options.get("questions")));
+		} else {
+			try (InputStream in = LoadTestDriver.class.getResourceAsStream("/questions.txt")) {
+				if (in == null) {
+					throw new IllegalStateException("내장 질문 파일(questions.txt)을 찾을 수 없습니다.");
+				}
+				lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+			}
+		}
+		List<String> questions = lines.stream().map(String::strip).filter(l -> !l.isEmpty() && !l.startsWith("#"))
+				.toList();
+		if (questions.isEmpty()) {
+			throw new IllegalStateException("질문이 없습니다.");
+		}
+		return questions;
+	}
+
+	private static void report(String endpoint, Result result) {
+		double seconds = result.elapsedNanos / 1e9;
+		System.out.printf("%n== %s ==%n", endpoint);
+		System.out.printf("성공 %d, 실패 %d, 소요 %.1fs, 처리량 %.1f req/s%n",
+				result.latencies.size(), result.failureCount(), seconds, result.latencies.size() / seconds);
+		System.out.printf("지연    p50 %s  p90 %s  p99 %s  max %s%n",
+				ms(result.latencies, 0.50), ms(result.latencies, 0.90), ms(result.latencies, 0.99),
+				ms(result.latencies, 1.0));
+		if (!result.ttfts.isEmpty()) {
+			System.out.printf("TTFT    p50 %s  p90 %s  p99 %s  max %s%n",
+					ms(result.ttfts, 0.50), ms(result.ttfts, 0.90), ms(result.ttfts, 0.99), ms(result.ttfts, 1.0));
+		}
+		result.failures.forEach((reason, count) -> System.out.printf("실패 사유 %s: %d%n", reason, count));
+	}
+
+	private static String ms(List<Long> samples, double percentile) {
+		if (samples.isEmpty()) {
+			return "-";
+		}
+		long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+		Arrays.sort(sorted);
+		int index = Math.clamp((int) Math.ceil(percentile * sorted.length) - 1, 0, sorted.length - 1);
+		return String.format("%.0fms", sorted[index] / 1e6);
+	}
+
+	private static String json(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (char c : value.toCharArray()) {
+			switch (c) {
+				case '"' -> sb.append("\\\"");
+				case '\\' -> sb.append("\\\\");
+				case '\n' -> sb.append("\\n");
+				case '\r' -> sb.append("\\r");
+				case '\t' -> sb.append("\\t");
+				default -> {
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("옵션은 --key=value 형식이어야 합니다: " + arg);
+			}
+			int eq = arg.indexOf('=');
+			if (eq < 0) {
+				options.put(arg.substring(2), "true");
+			} else {
+				options.put(arg.substring(2, eq), arg.substring(eq + 1));
+			}
+		}
+		return options;
+	}
+
+	/** 한 측정 구간의 결과. 워커 스레드가 동시에 기록한다. */
+	private static final class Result {
+
+		private final List<Long> latencies;
+		private final List<Long> ttfts;
+		private final Map<String, Integer> failures = new HashMap<>();
+		private long elapsedNanos;
+
+		Result(int expected) {
+			this.latencies = new ArrayList<>(expected);
+			this.ttfts = new ArrayList<>(expected);
+		}
+
+		synchronized void success(long latencyNanos, long ttftNanos) {
+			latencies.add(latencyNanos);
+			if (ttftNanos >= 0) {
+				ttfts.add(ttftNanos);
+			}
+		}
+
+		synchronized void failure(String reason) {
+			failures.merge(reason, 1, Integer::sum);
+		}
+
+		synchronized int failureCount() {
+			return failures.values().stream().mapToInt(Integer::intValue).sum();
+		}
+	}
+}
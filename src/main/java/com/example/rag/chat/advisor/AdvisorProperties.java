@@ -0,0 +1,18 @@
+package com.example.rag.chat.advisor;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 스트리밍 경로의 advisor 실행 설정.
+ * 대화 이력 조회, 쿼리 리라이팅, 검색·재순위화는 JDBC·LLM 호출로 블로킹되므로
+ * 요청 스레드 대신 전용 bounded-elastic 스케줄러에서 실행한다.
+ *
+ * @param threadCap     advisor 단계를 동시에 실행할 최대 스레드 수
+ * @param queueCapacity 스레드가 모두 사용 중일 때 대기할 수 있는 작업 수 (초과 시 요청을 거절)
+ */
+@ConfigurationProperties(prefix = "rag.advisor")
+public record AdvisorProperties(
+		@DefaultValue("64") int threadCap,
+		@DefaultValue("256") int queueCapacity) {
+}
@@ -0,0 +1,75 @@
+package com.example.rag.chat.advisor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.metrics.RagStage;
+import com.example.rag.chat.metrics.StageTags;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * 최종 답변 생성 단계의 소요 시간과 토큰 사용량을 기록하는 Advisor.
+ * 체인의 마지막(모델 호출 직전)에 위치하여 앞선 advisor 단계를 제외한 생성 시간만 측정한다.
+ * 스트리밍이면 마지막 청크까지의 시간을 기록하고, 토큰은 응답에 사용량이 포함된 경우에만 기록한다.
+ */
+public class GenerationMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+	private final RagMetrics metrics;
+	private final int order;
+
+	public GenerationMetricsAdvisor(RagMetrics metrics, int order) {
+		this.metrics = metrics;
+		this.order = order;
+	}
+
+	@Override
+	public String getName() {
+		return GenerationMetricsAdvisor.class.getSimpleName();
+	}
+
+	@Override
+	public int getOrder() {
+		return order;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+		StageTags tags = StageTags.from(request.context());
+		ChatClientResponse response = metrics.time(RagStage.GENERATION, tags, () -> chain.nextCall(request));
+		metrics.recordUsage(RagStage.GENERATION, tags, response.chatResponse());
+		return response;
+	}
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+		StageTags tags = StageTags.from(request.context());
+		return Flux.defer(() -> {
+			long start = System.nanoTime();
+			AtomicReference<Usage> usage = new AtomicReference<>();
+			return chain.nextStream(request)
+					.doOnNext(response -> {
+						ChatResponse chatResponse = response.chatResponse();
+						if (chatResponse != null && chatResponse.getMetadata() != null
+								&& chatResponse.getMetadata().getUsage() != null
+								&& chatResponse.getMetadata().getUsage().getTotalTokens() != null
+								&& chatResponse.getMetadata().getUsage().getTotalTokens() > 0) {
+							usage.set(chatResponse.getMetadata().getUsage());
+						}
+					})
+					.doOnComplete(() -> {
+						metrics.record(RagStage.GENERATION, tags, System.nanoTime() - start);
+						metrics.recordUsage(RagStage.GENERATION, tags, usage.get());
+					});
+		});
+	}
+}
@@ -1,17 +1,38 @@
 package com.example.rag.chat.advisor;
 
+import java.util.concurrent.TimeoutException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClientRequest;
 import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
 import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
-import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import com.example.rag.chat.budget.HedgedLlmCaller;
+import com.example.rag.chat.budget.LatencyBudget;
+import com.example.rag.chat.budget.LatencyBudgetController;
+import com.example.rag.chat.budget.LatencyBudgetController.Decision;
+import com.example.rag.chat.cache.QueryRewriteCache;
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.metrics.RagStage;
+import com.example.rag.chat.metrics.StageTags;
+
+import reactor.core.scheduler.Scheduler;
 
 /**
  * 사용자 질문을 벡터 검색에 최적화된 쿼리로 재작성하는 Advisor.
  * 재작성 쿼리는 context에만 저장하고, prompt의 메시지는 변경하지 않는다.
  * RetrievalRerankAdvisor가 context에서 재작성 쿼리를 읽어 벡터 검색에 사용한다.
+ * 반복·유사 질문은 {@link QueryRewriteCache}에서 응답하여 LLM 호출을 생략한다.
+ * context에 {@link #CACHE_BYPASS}가 있으면 캐시를 조회·저장하지 않는다.
+ * 캐시에 없더라도 이미 검색에 적합한 질문이거나 지연 예산이 부족하면 원본 질문을 그대로 사용한다.
+ * ({@link LatencyBudgetController})
+ * LLM 호출은 남은 예산의 일부를 타임아웃으로 받아 헤지 호출하며({@link HedgedLlmCaller}),
+ * 시간 안에 끝나지 않으면 원본 질문을 사용한다.
+ * 스트리밍 경로에서는 LLM 호출이 블로킹되므로 주입받은 스케줄러에서 실행한다.
  */
 public class QueryRewriteAdvisor implements BaseAdvisor {
 
@@ -20,6 +41,9 @@ public class QueryRewriteAdvisor implements BaseAdvisor {
 	/** RetrievalRerankAdvisor가 읽을 context 키 */
 	static final String REWRITTEN_QUERY_KEY = "rewrittenQuery";
 
+	/** advisor context 키 — true면 리라이팅 캐시를 우회 (ChatService가 설정) */
+	public static final String CACHE_BYPASS = "rag_cache_bypass";
+
 	private static final String REWRITE_PROMPT = """
 			사용자의 질문을 벡터 검색에 적합한 형태로 재작성하세요.
 
@@ -37,11 +61,20 @@ public class QueryRewriteAdvisor implements BaseAdvisor {
 			사용자 질문: %s
 			""";
 
-	private final ChatModel chatModel;
+	private final HedgedLlmCaller llmCaller;
+	private final QueryRewriteCache rewriteCache;
+	private final LatencyBudgetController budgetController;
+	private final RagMetrics metrics;
+	private final Scheduler scheduler;
 	private final int order;
 
-	public QueryRewriteAdvisor(ChatModel chatModel, int order) {
-		this.chatModel = chatModel;
+	public QueryRewriteAdvisor(HedgedLlmCaller llmCaller, QueryRewriteCache rewriteCache,
+			LatencyBudgetController budgetController, RagMetrics metrics, Scheduler scheduler, int order) {
+		this.llmCaller = llmCaller;
+		this.rewriteCache = rewriteCache;
+		this.budgetController = budgetController;
+		this.metrics = metrics;
+		this.scheduler = scheduler;
 		this.order = order;
 	}
 
@@ -50,6 +83,11 @@ public class QueryRewriteAdvisor implements BaseAdvisor {
 		return order;
 	}
 
+	@Override
+	public Scheduler getScheduler() {
+		return scheduler;
+	}
+
 	/**
 	 * before: 사용자 질문을 검색용 쿼리로 재작성하여 context에 저장한다.
 	 * prompt 메시지는 변경하지 않아 대화 이력이 보존된다.
@@ -57,15 +95,53 @@ public class QueryRewriteAdvisor implements BaseAdvisor {
 	@Override
 	public ChatClientRequest before(ChatClientRequest request, AdvisorChain chain) {
 		String originalQuery = request.prompt().getUserMessage().getText();
+		StageTags tags = StageTags.from(request.context());
+		LatencyBudget budget = LatencyBudget.from(request.context());
 
-		String rewrittenQuery = chatModel.call(String.format(REWRITE_PROMPT, originalQuery)).trim();
-		log.info("쿼리 리라이팅: '{}' → '{}'", originalQuery, rewrittenQuery);
+		boolean bypass = Boolean.TRUE.equals(request.context().get(CACHE_BYPASS));
+
+		String rewrittenQuery = metrics.time(RagStage.QUERY_REWRITE, tags,
+				() -> rewrite(originalQuery, tags, budget, bypass));
 
 		return request.mutate()
 				.context(REWRITTEN_QUERY_KEY, rewrittenQuery)
 				.build();
 	}
 
+	private String rewrite(String originalQuery, StageTags tags, LatencyBudget budget, boolean bypass) {
+		String cached = bypass ? null : rewriteCache.get(originalQuery).orElse(null);
+		if (cached != null) {
+			log.info("쿼리 리라이팅(캐시): '{}' → '{}'", originalQuery, cached);
+			return cached;
+		}
+
+		Decision decision = budgetController.decideRewrite(originalQuery, budget);
+		if (decision.skipped()) {
+			log.info("쿼리 리라이팅 생략({}): '{}'", decision, originalQuery);
+			return originalQuery;
+		}
+
+		long start = System.nanoTime();
+		ChatResponse response;
+		try {
+			response = llmCaller.call(RagStage.QUERY_REWRITE,
+					new Prompt(String.format(REWRITE_PROMPT, originalQuery)), budgetController.rewriteTimeoutNanos(budget));
+		} catch (TimeoutException e) {
+			budgetController.observeRewrite(System.nanoTime() - start);
+			budgetController.recordFallback(RagStage.QUERY_REWRITE);
+			log.warn("쿼리 리라이팅 시간 초과 — 원본 질문 사용: {}", e.getMessage());
+			return originalQuery;
+		}
+		budgetController.observeRewrite(System.nanoTime() - start);
+		metrics.recordUsage(RagStage.QUERY_REWRITE, tags, response);
+		String rewrittenQuery = response.getResult().getOutput().getText().trim();
+		if (!bypass) {
+			rewriteCache.put(originalQuery, rewrittenQuery);
+		}
+		log.info("쿼리 리라이팅: '{}' → '{}'", originalQuery, rewrittenQuery);
+		return rewrittenQuery;
+	}
+
 	@Override
 	public ChatClientResponse after(ChatClientResponse response, AdvisorChain chain) {
 		return response;
@@ -1,7 +1,6 @@
 package com.example.rag.chat.advisor;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -14,20 +13,43 @@ import org.springframework.ai.chat.client.ChatClientRequest;
 import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
 import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
-import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
 import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
 
-import com.example.rag.chat.repository.KeywordSearchRepository;
+import com.example.rag.chat.budget.LatencyBudget;
+import com.example.rag.chat.budget.LatencyBudgetController;
+import com.example.rag.chat.budget.LatencyBudgetController.Decision;
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.metrics.RagStage;
+import com.example.rag.chat.metrics.StageTags;
+import com.example.rag.chat.replica.VectorReplica;
+import com.example.rag.chat.rerank.RerankerSelector;
+import com.example.rag.chat.retrieval.ConcurrentRetriever;
+import com.example.rag.chat.retrieval.RetrievalProperties;
+import com.example.rag.chat.retrieval.RetrievalResult;
+import com.example.rag.chat.retrieval.SingleQueryRetriever;
+
+import reactor.core.scheduler.Scheduler;
 
 /**
- * 하이브리드 검색(벡터 + 키워드) 후 RRF 병합 및 LLM 재순위화를 수행하는 Advisor.
+ * 하이브리드 검색(벡터 + 키워드) 후 RRF 병합 및 재순위화를 수행하는 Advisor.
  *
- * 1. 벡터 검색(top-10) + 키워드 검색(top-10) 병렬 실행
- * 2. RRF(Reciprocal Rank Fusion)로 결과 병합
- * 3. 상위 10개를 LLM 재순위화하여 최종 5개 선택
+ * 1. 벡터 검색(top-searchTopK) + 키워드 검색(top-searchTopK)
+ * 2. RRF(Reciprocal Rank Fusion, 상수 rrfK)로 결과 병합
+ *    - SINGLE_QUERY: 검색과 병합을 SQL 한 번으로 수행 ({@link SingleQueryRetriever})
+ *      SQL이 실패하거나 제한 시간(singleQueryTimeout)을 넘기면 PARALLEL 경로로 다시 검색한다
+ *    - PARALLEL: 두 레그를 동시 실행 후 Java에서 병합, 타임아웃/실패한 레그는 제외 ({@link ConcurrentRetriever})
+ *    - JVM 내 벡터 레플리카({@link VectorReplica})가 맡는 카테고리는 모드와 관계없이 PARALLEL로 처리
+ * 3. 상위 searchTopK개를 카테고리별 재순위화 전략({@link RerankerSelector})으로 평가하여 최종 rerankTopN개 선택
+ *    - RRF 1위가 결정적으로 앞서거나 지연 예산이 부족하면 RRF 순서대로 rerankTopN개 선택
+ *      ({@link LatencyBudgetController})
+ *
+ * 검색 파라미터는 {@link RetrievalProperties}(rag.retrieval)로 설정한다.
+ *
+ * 스트리밍 경로에서는 검색·재순위화가 블로킹되므로 주입받은 스케줄러에서 실행한다.
+ * 각 단계의 소요 시간과 후보 수는 {@link RagMetrics}로 기록한다.
  */
 public class RetrievalRerankAdvisor implements BaseAdvisor {
 
@@ -38,30 +60,8 @@ public class RetrievalRerankAdvisor implements BaseAdvisor {
 	/** QuestionAnswerAdvisor 호환 — 필터 표현식 파라미터 키 */
 	public static final String FILTER_EXPRESSION = "qa_filter_expression";
 
-	private static final int SEARCH_TOP_K = 10;
-	private static final double SIMILARITY_THRESHOLD = 0.3;
-	private static final int RERANK_TOP_N = 5;
-	private static final int RRF_K = 60;
-
 	private static final FilterExpressionTextParser FILTER_PARSER = new FilterExpressionTextParser();
 
-	private static final String RERANK_PROMPT = """
-			당신은 문서 관련성 평가 전문가입니다.
-			사용자 질문과 검색된 문서 목록이 주어집니다.
-			각 문서의 관련성을 평가하고, 가장 관련성 높은 문서의 번호를 순서대로 나열하세요.
-
-			규칙:
-			1. 관련성이 높은 순서대로 문서 번호만 쉼표로 구분하여 출력하세요.
-			2. 관련 없는 문서는 제외하세요.
-			3. 최대 %d개까지만 선택하세요.
-			4. 숫자와 쉼표만 출력하세요. 설명은 금지입니다.
-
-			사용자 질문: %s
-
-			검색된 문서 목록:
-			%s
-			""";
-
 	private static final String CONTEXT_TEMPLATE = """
 
 			아래는 질문과 관련된 참고 문서입니다:
@@ -70,16 +70,28 @@ public class RetrievalRerankAdvisor implements BaseAdvisor {
 			---------------------
 			""";
 
-	private final VectorStore vectorStore;
-	private final ChatModel chatModel;
-	private final KeywordSearchRepository keywordSearchRepository;
+	private final SingleQueryRetriever singleQueryRetriever;
+	private final ConcurrentRetriever concurrentRetriever;
+	private final RetrievalProperties properties;
+	private final RerankerSelector rerankerSelector;
+	private final LatencyBudgetController budgetController;
+	private final VectorReplica vectorReplica;
+	private final RagMetrics metrics;
+	private final Scheduler scheduler;
 	private final int order;
 
-	public RetrievalRerankAdvisor(VectorStore vectorStore, ChatModel chatModel,
-			KeywordSearchRepository keywordSearchRepository, int order) {
-		this.vectorStore = vectorStore;
-		this.chatModel = chatModel;
-		this.keywordSearchRepository = keywordSearchRepository;
+	public RetrievalRerankAdvisor(SingleQueryRetriever singleQueryRetriever, ConcurrentRetriever concurrentRetriever,
+			RetrievalProperties properties, RerankerSelector rerankerSelector,
+			LatencyBudgetController budgetController, VectorReplica vectorReplica, RagMetrics metrics,
+			Scheduler scheduler, int order) {
+		this.singleQueryRetriever = singleQueryRetriever;
+		this.concurrentRetriever = concurrentRetriever;
+		this.properties = properties;
+		this.rerankerSelector = rerankerSelector;
+		this.budgetController = budgetController;
+		this.vectorReplica = vectorReplica;
+		this.metrics = metrics;
+		this.scheduler = scheduler;
 		this.order = order;
 	}
 
@@ -88,6 +100,11 @@ public class RetrievalRerankAdvisor implements BaseAdvisor {
 		return order;
 	}
 
+	@Override
+	public Scheduler getScheduler() {
+		return scheduler;
+	}
+
 	@Override
 	public ChatClientRequest before(ChatClientRequest request, AdvisorChain chain) {
 		Map<String, Object> context = request.context();
@@ -98,43 +115,43 @@ public class RetrievalRerankAdvisor implements BaseAdvisor {
 				: request.prompt().getUserMessage().getText();
 
 		// 카테고리 필터 추출
-		String category = context.containsKey(FILTER_EXPRESSION)
-				? context.get(FILTER_EXPRESSION).toString()
+		Filter.Expression filterExpression = context.containsKey(FILTER_EXPRESSION)
+				? FILTER_PARSER.parse(context.get(FILTER_EXPRESSION).toString())
 				: null;
-
-		// 벡터 검색 수행
-		SearchRequest.Builder searchBuilder = SearchRequest.builder()
-				.query(query)
-				.topK(SEARCH_TOP_K)
-				.similarityThreshold(SIMILARITY_THRESHOLD);
-
-		if (category != null) {
-			searchBuilder.filterExpression(FILTER_PARSER.parse(category));
-		}
-
-		List<Document> vectorResults = vectorStore.similaritySearch(searchBuilder.build());
-		log.info("벡터 검색 결과: {}개 문서", vectorResults.size());
-
-		// 키워드 검색 수행
-		List<Document> keywordResults = keywordSearchRepository.search(query, SEARCH_TOP_K, null);
-		log.info("키워드 검색 결과: {}개 문서", keywordResults.size());
-
-		// RRF 병합
-		List<Document> candidates = mergeByRRF(vectorResults, keywordResults);
+		String category = extractCategory(filterExpression);
+		StageTags tags = StageTags.from(context);
+
+		// 카테고리 외의 필터는 SQL 경로에서 표현할 수 없으므로 PARALLEL 경로로 처리
+		// 레플리카가 맡는 카테고리도 SQL 경로에서는 레플리카를 쓸 수 없으므로 PARALLEL 경로로 처리
+		boolean singleQuery = properties.mode() == RetrievalProperties.Mode.SINGLE_QUERY
+				&& (filterExpression == null || category != null)
+				&& !vectorReplica.covers(category);
+
+		int rerankTopN = properties.rerankTopN();
+		List<Document> candidates = singleQuery
+				? retrieveInSingleQuery(query, filterExpression, category, tags)
+				: retrieveInParallel(query, filterExpression, category, tags);
 		log.info("RRF 병합 결과: {}개 문서", candidates.size());
 
 		if (candidates.isEmpty()) {
 			return request;
 		}
 
-		// 검색 결과가 RERANK_TOP_N 이하이면 재순위화 스킵 (불필요한 LLM 호출 방지)
+		// 검색 결과가 rerankTopN 이하이면 재순위화 스킵
 		List<Document> selected;
-		if (candidates.size() <= RERANK_TOP_N) {
-			log.info("검색 결과 {}개 ≤ {} — 재순위화 스킵", candidates.size(), RERANK_TOP_N);
+		if (candidates.size() <= rerankTopN) {
+			log.info("검색 결과 {}개 ≤ {} — 재순위화 스킵", candidates.size(), rerankTopN);
 			selected = candidates;
 		} else {
-			selected = rerank(query, candidates);
-			log.info("재순위화 후: {}개 문서 선택", selected.size());
+			LatencyBudget budget = LatencyBudget.from(context);
+			Decision decision = budgetController.decideRerank(candidates,
+					rerankerSelector.strategyFor(category), budget);
+			if (decision.skipped()) {
+				log.info("재순위화 생략({}) — RRF 상위 {}개 사용", decision, rerankTopN);
+				selected = candidates.subList(0, rerankTopN);
+			} else {
+				selected = rerankerSelector.rerank(query, candidates, rerankTopN, category, tags, budget);
+			}
 		}
 
 		String documentContext = selected.stream()
@@ -152,13 +169,58 @@ public class RetrievalRerankAdvisor implements BaseAdvisor {
 		return response;
 	}
 
+	/**
+	 * 검색과 RRF 병합을 SQL 한 번으로 수행한다.
+	 * 한 레그의 실패나 지연이 요청 전체를 실패시키지 않도록, SQL이 실패하거나 시간 안에 끝나지 않으면
+	 * 레그별 타임아웃과 실패 격리가 있는 PARALLEL 경로로 다시 검색하고 대체 경로 사용을 기록한다.
+	 */
+	private List<Document> retrieveInSingleQuery(String query, Filter.Expression filterExpression, String category,
+			StageTags tags) {
+		try {
+			return singleQueryRetriever.retrieve(query, properties.searchTopK(), properties.similarityThreshold(),
+					properties.rrfK(), category, properties.singleQueryTimeout(), tags);
+		} catch (RuntimeException e) {
+			budgetController.recordFallback(RagStage.HYBRID_SEARCH);
+			log.warn("단일 쿼리 검색 실패 — 병렬 검색으로 대체: {}", e.getMessage());
+			return retrieveInParallel(query, filterExpression, category, tags);
+		}
+	}
+
+	/**
+	 * 벡터 검색과 키워드 검색을 동시에 실행하고 Java에서 RRF 병합한다.
+	 * 키워드 검색에는 벡터 검색 필터에서 추출한 카테고리를 그대로 적용한다.
+	 */
+	private List<Document> retrieveInParallel(String query, Filter.Expression filterExpression, String category,
+			StageTags tags) {
+		SearchRequest.Builder searchBuilder = SearchRequest.builder()
+				.query(query)
+				.topK(properties.searchTopK())
+				.similarityThreshold(properties.similarityThreshold());
+
+		if (filterExpression != null) {
+			searchBuilder.filterExpression(filterExpression);
+		}
+
+		RetrievalResult result = concurrentRetriever.retrieve(searchBuilder.build(), query, properties.searchTopK(),
+				category, tags);
+		log.info("벡터 검색 결과: {}개 문서, 키워드 검색 결과: {}개 문서",
+				result.vectorResults().size(), result.keywordResults().size());
+
+		List<Document> merged = metrics.time(RagStage.RRF_MERGE, tags,
+				() -> mergeByRRF(result.vectorResults(), result.keywordResults(), properties.rrfK(),
+						properties.searchTopK()));
+		metrics.recordCandidates(RagStage.RRF_MERGE, tags, merged.size());
+		return merged;
+	}
+
 	/**
 	 * RRF(Reciprocal Rank Fusion)로 벡터 검색과 키워드 검색 결과를 병합한다.
-	 * score = Σ 1/(RRF_K + rank)
+	 * score = Σ 1/(rrfK + rank)
 	 *
-	 * @return RRF 점수 순으로 정렬된 상위 SEARCH_TOP_K개 문서
+	 * @return RRF 점수 순으로 정렬된 상위 limit개 문서 (score = RRF 점수)
 	 */
-	private List<Document> mergeByRRF(List<Document> vectorResults, List<Document> keywordResults) {
+	public static List<Document> mergeByRRF(List<Document> vectorResults, List<Document> keywordResults,
+			int rrfK, int limit) {
 		// Document ID → (RRF 점수, Document) 매핑
 		Map<String, Double> scores = new HashMap<>();
 		Map<String, Document> docMap = new LinkedHashMap<>();
@@ -166,59 +228,36 @@ public class RetrievalRerankAdvisor implements BaseAdvisor {
 		for (int i = 0; i < vectorResults.size(); i++) {
 			Document doc = vectorResults.get(i);
 			String id = doc.getId();
-			scores.merge(id, 1.0 / (RRF_K + i + 1), Double::sum);
+			scores.merge(id, 1.0 / (rrfK + i + 1), Double::sum);
 			docMap.putIfAbsent(id, doc);
 		}
 
 		for (int i = 0; i < keywordResults.size(); i++) {
 			Document doc = keywordResults.get(i);
 			String id = doc.getId();
-			scores.merge(id, 1.0 / (RRF_K + i + 1), Double::sum);
+			scores.merge(id, 1.0 / (rrfK + i + 1), Double::sum);
 			docMap.putIfAbsent(id, doc);
 		}
 
 		return scores.entrySet().stream()
 				.sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-				.limit(SEARCH_TOP_K)
-				.map(e -> docMap.get(e.getKey()))
+				.limit(limit)
+				.map(e -> docMap.get(e.getKey()).mutate().score(e.getValue()).build())
 				.toList();
 	}
 
 	/**
-	 * LLM으로 문서 관련성을 재평가하여 상위 N개를 반환한다.
+	 * {@code category == '...'} 형태의 필터 표현식에서 카테고리 값을 꺼낸다.
+	 * 다른 형태의 표현식이면 null을 반환한다.
 	 */
-	private List<Document> rerank(String query, List<Document> candidates) {
-		StringBuilder docList = new StringBuilder();
-		for (int i = 0; i < candidates.size(); i++) {
-			docList.append(String.format("[%d] %s\n", i + 1,
-					truncate(candidates.get(i).getText(), 200)));
-		}
-
-		String prompt = String.format(RERANK_PROMPT, RERANK_TOP_N, query, docList);
-
-		try {
-			String response = chatModel.call(prompt).trim();
-			log.info("재순위화 LLM 응답: {}", response);
-
-			return Arrays.stream(response.split("[,\\s]+"))
-					.map(String::trim)
-					.filter(s -> s.matches("\\d+"))
-					.map(Integer::parseInt)
-					.filter(idx -> idx >= 1 && idx <= candidates.size())
-					.distinct()
-					.limit(RERANK_TOP_N)
-					.map(idx -> candidates.get(idx - 1))
-					.toList();
-		} catch (Exception e) {
-			log.warn("재순위화 실패, 원본 순서 유지: {}", e.getMessage());
-			return candidates.stream().limit(RERANK_TOP_N).toList();
-		}
-	}
-
-	private static String truncate(String text, int maxLength) {
-		if (text == null || text.length() <= maxLength) {
-			return text;
+	public static String extractCategory(Filter.Expression expression) {
+		if (expression != null
+				&& expression.type() == Filter.ExpressionType.EQ
+				&& expression.left() instanceof Filter.Key key
+				&& "category".equals(key.key())
+				&& expression.right() instanceof Filter.Value value) {
+			return String.valueOf(value.value());
 		}
-		return text.substring(0, maxLength) + "...";
+		return null;
 	}
 }
@@ -0,0 +1,28 @@
+package com.example.rag.chat.budget;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 요청별 지연 예산 설정.
+ *
+ * @param enabled          false면 리라이팅·재순위화를 항상 실행한다
+ * @param total            답변 생성 전 단계(이력 조회, 리라이팅, 검색, 재순위화)에 허용하는 시간
+ * @param initialEstimate  관측값이 없을 때 LLM 단계(리라이팅, 재순위화)의 예상 소요 시간
+ * @param decisiveMargin   1위와 2위 후보의 RRF 점수 차이가 1위 점수의 이 비율 이상이면 재순위화를 생략한다
+ * @param rewriteShare     리라이팅 LLM 호출에 배정하는 남은 예산의 비율 (초과 시 원본 질문 사용)
+ * @param rerankShare      재순위화 LLM 호출에 배정하는 남은 예산의 비율 (초과 시 RRF 순서 사용)
+ * @param minSlice         배정된 시간이 이보다 짧으면 호출하지 않고 바로 대체 경로를 사용한다
+ */
+@ConfigurationProperties(prefix = "rag.budget")
+public record BudgetProperties(
+		@DefaultValue("true") boolean enabled,
+		@DefaultValue("3s") Duration total,
+		@DefaultValue("800ms") Duration initialEstimate,
+		@DefaultValue("0.3") double decisiveMargin,
+		@DefaultValue("0.5") double rewriteShare,
+		@DefaultValue("0.8") double rerankShare,
+		@DefaultValue("100ms") Duration minSlice) {
+}
@@ -0,0 +1,32 @@
+package com.example.rag.chat.budget;
+
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.example.rag.chat.metrics.RagStage;
+
+/**
+ * 보조 LLM 호출(리라이팅, 재순위화, 요약)의 헤지 설정.
+ *
+ * @param enabled           false면 중복 요청을 보내지 않고 타임아웃만 적용한다
+ * @param stages            중복 요청을 보낼 단계. 응답을 기다리는 사용자가 없는 단계(백그라운드 요약)는 넣지 않는다
+ * @param percentile        이 백분위 지연을 넘기면 중복 요청을 보낸다
+ * @param initialDelayRatio 관측값이 minSamples개 미만일 때 호출 타임아웃에 이 비율을 곱한 값을 헤지 지연으로 사용한다
+ * @param minSamples        백분위를 계산하기 위한 최소 관측 수
+ * @param windowSize        단계별로 보관할 최근 관측 수
+ */
+@ConfigurationProperties(prefix = "rag.hedge")
+public record HedgeProperties(
+		@DefaultValue("true") boolean enabled,
+		@DefaultValue({"query-rewrite", "rerank"}) Set<RagStage> stages,
+		@DefaultValue("0.95") double percentile,
+		@DefaultValue("0.5") double initialDelayRatio,
+		@DefaultValue("20") int minSamples,
+		@DefaultValue("200") int windowSize) {
+
+	public HedgeProperties {
+		stages = Set.copyOf(stages);
+	}
+}
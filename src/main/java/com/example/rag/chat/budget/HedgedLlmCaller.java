@@ -0,0 +1,159 @@
+package com.example.rag.chat.budget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.metrics.RagStage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 보조 LLM 호출(리라이팅, 재순위화, 요약)을 타임아웃과 헤지 요청으로 감싸는 호출기.
+ *
+ * 헤지 대상 단계(rag.hedge.stages)의 호출이 단계별 최근 지연의 p95(설정 가능)를 넘기면
+ * 같은 요청을 한 번 더 보내고 먼저 끝난 응답을 사용한다.
+ * 관측값이 minSamples개 모이기 전에는 p95 대신 이 호출 타임아웃의 initialDelayRatio를 헤지 지연으로 쓴다.
+ * (고정 지연을 쓰면 타임아웃이 짧은 단계는 워밍업 동안 거의 모든 호출을 헤지한다)
+ * 배정된 시간 안에 어느 쪽도 끝나지 않으면 {@link TimeoutException}을 던지며, 호출자는 대체 경로를 사용한다.
+ *
+ * 남은 요청은 취소(interrupt)하지만 HTTP 요청은 중단되지 않을 수 있어, 헤지 요청의 토큰 비용은 그대로 든다.
+ * 그래서 헤지는 사용자가 기다리는 단계에만 적용하고, 나머지 단계는 타임아웃만 적용한다.
+ *
+ * 메트릭: rag.llm.hedge{stage, outcome=primary|hedge|timeout|failed}
+ */
+@Component
+public class HedgedLlmCaller {
+
+	private final ChatModel chatModel;
+	private final HedgeProperties properties;
+	private final MeterRegistry meterRegistry;
+	private final Map<RagStage, LatencyWindow> windows = new ConcurrentHashMap<>();
+	private final ExecutorService executor =
+			Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-call-", 0).factory());
+
+	public HedgedLlmCaller(ChatModel chatModel, HedgeProperties properties, MeterRegistry meterRegistry) {
+		this.chatModel = chatModel;
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * @param stage        지연 통계와 메트릭을 구분할 단계
+	 * @param timeoutNanos 이 호출에 배정된 시간
+	 * @throws TimeoutException 배정된 시간 안에 응답을 받지 못한 경우
+	 */
+	public ChatResponse call(RagStage stage, Prompt prompt, long timeoutNanos) throws TimeoutException {
+		long start = System.nanoTime();
+		long deadline = start + timeoutNanos;
+		LatencyWindow window = windows.computeIfAbsent(stage, s -> new LatencyWindow(properties.windowSize()));
+
+		ExecutorCompletionService<ChatResponse> completion = new ExecutorCompletionService<>(executor);
+		List<Future<ChatResponse>> attempts = new ArrayList<>(2);
+		long[] startedAt = new long[2];
+		attempts.add(completion.submit(() -> chatModel.call(prompt)));
+		startedAt[0] = start;
+
+		try {
+			boolean hedge = properties.enabled() && properties.stages().contains(stage);
+			long firstWait = hedge ? Math.min(hedgeDelayNanos(window, timeoutNanos), timeoutNanos) : timeoutNanos;
+			Future<ChatResponse> done = completion.poll(firstWait, TimeUnit.NANOSECONDS);
+			if (done == null && hedge && System.nanoTime() < deadline) {
+				startedAt[1] = System.nanoTime();
+				attempts.add(completion.submit(() -> chatModel.call(prompt)));
+			}
+
+			ExecutionException failure = null;
+			for (int outstanding = attempts.size(); outstanding > 0; outstanding--) {
+				if (done == null) {
+					long remaining = deadline - System.nanoTime();
+					done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : null;
+					if (done == null) {
+						window.add(System.nanoTime() - start);
+						record(stage, "timeout");
+						throw new TimeoutException(
+								stage.tag() + " 호출이 " + timeoutNanos / 1_000_000 + "ms 안에 끝나지 않았습니다.");
+					}
+				}
+				try {
+					ChatResponse response = done.get();
+					int attempt = attempts.indexOf(done);
+					window.add(System.nanoTime() - startedAt[attempt]);
+					record(stage, attempt == 0 ? "primary" : "hedge");
+					return response;
+				} catch (ExecutionException e) {
+					failure = e;
+					done = null;
+				}
+			}
+
+			record(stage, "failed");
+			throw failure.getCause() instanceof RuntimeException runtime
+					? runtime
+					: new IllegalStateException(stage.tag() + " 호출 실패", failure.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TimeoutException(stage.tag() + " 호출 대기 중 인터럽트되었습니다.");
+		} finally {
+			attempts.forEach(attempt -> attempt.cancel(true));
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private long hedgeDelayNanos(LatencyWindow window, long timeoutNanos) {
+		long percentile = window.percentile(properties.percentile(), properties.minSamples());
+		return percentile > 0 ? percentile : (long) (timeoutNanos * properties.initialDelayRatio());
+	}
+
+	private void record(RagStage stage, String outcome) {
+		meterRegistry.counter("rag.llm.hedge", "stage", stage.tag(), "outcome", outcome).increment();
+	}
+
+	/** 최근 지연 관측값을 담는 고정 크기 순환 버퍼. */
+	private static final class LatencyWindow {
+
+		private final long[] samples;
+		private int next;
+		private int size;
+
+		LatencyWindow(int capacity) {
+			this.samples = new long[capacity];
+		}
+
+		synchronized void add(long nanos) {
+			samples[next] = nanos;
+			next = (next + 1) % samples.length;
+			size = Math.min(size + 1, samples.length);
+		}
+
+		/** 관측값이 minSamples개 미만이면 0. */
+		synchronized long percentile(double percentile, int minSamples) {
+			if (size < minSamples || size == 0) {
+				return 0;
+			}
+			long[] sorted = Arrays.copyOf(samples, size);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(percentile * size) - 1;
+			return sorted[Math.clamp(index, 0, size - 1)];
+		}
+	}
+}
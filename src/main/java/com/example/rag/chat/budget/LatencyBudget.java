@@ -0,0 +1,40 @@
+package com.example.rag.chat.budget;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 요청 하나의 지연 예산(마감 시각). 요청 시작 시점에 만들어 advisor context({@link #CONTEXT_KEY})로 전달한다.
+ * 보조 LLM 호출은 남은 시간의 일부({@link #sliceNanos})를 타임아웃으로 받는다.
+ */
+public final class LatencyBudget {
+
+	/** advisor context 키 */
+	public static final String CONTEXT_KEY = "rag_latency_budget";
+
+	private final long deadlineNanos;
+
+	private LatencyBudget(long deadlineNanos) {
+		this.deadlineNanos = deadlineNanos;
+	}
+
+	/** 지금부터 total 동안의 예산을 시작한다. */
+	public static LatencyBudget start(Duration total) {
+		return new LatencyBudget(System.nanoTime() + total.toNanos());
+	}
+
+	/** context에 예산이 없으면 null. */
+	public static LatencyBudget from(Map<String, Object> context) {
+		return context.get(CONTEXT_KEY) instanceof LatencyBudget budget ? budget : null;
+	}
+
+	/** 남은 시간(나노초). 이미 초과했으면 0. */
+	public long remainingNanos() {
+		return Math.max(deadlineNanos - System.nanoTime(), 0);
+	}
+
+	/** 남은 시간 중 share 비율만큼의 시간(나노초). */
+	public long sliceNanos(double share) {
+		return (long) (remainingNanos() * share);
+	}
+}
@@ -0,0 +1,196 @@
+package com.example.rag.chat.budget;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.metrics.RagStage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 요청별 지연 예산({@link LatencyBudget})에 따라 쿼리 리라이팅과 재순위화의 실행 여부를 결정한다.
+ *
+ * 리라이팅 생략:
+ * - 질문이 이미 검색에 적합한 경우 (두 단어 이상, 한글 자모 줄임말 없음, 존댓말·평서형 어미로 끝남)
+ * - 남은 예산이 리라이팅 예상 소요 시간보다 작은 경우
+ *
+ * 재순위화 생략:
+ * - RRF 1위와 2위의 점수 차이가 결정적인 경우 (1위 점수 대비 decisiveMargin 이상)
+ * - 남은 예산이 해당 전략의 예상 소요 시간보다 작은 경우
+ *
+ * 예상 소요 시간은 단계(재순위화는 전략)별 관측값의 지수 이동 평균이다.
+ *
+ * 실행하기로 한 LLM 호출은 남은 예산의 일부({@link #rewriteTimeoutNanos}, {@link #rerankTimeoutNanos})를
+ * 타임아웃으로 받으며, 배정된 시간이 minSlice보다 짧으면 예산 부족으로 생략한다.
+ * 타임아웃으로 대체 경로를 사용하면 {@link #recordFallback}으로 기록한다.
+ *
+ * 메트릭:
+ * - rag.budget.decision{stage, decision=run|search_ready|decisive_margin|budget}
+ * - rag.deadline.fallback{stage}: 호출이 배정된 시간 안에 끝나지 않아 대체 경로를 사용한 횟수
+ */
+@Component
+public class LatencyBudgetController {
+
+	/** 지수 이동 평균 가중치 */
+	private static final double ALPHA = 0.2;
+
+	/** 한글 호환 자모 (ㄱㄴ, ㅋㅋ 등 줄임말) */
+	private static final Pattern JAMO = Pattern.compile("[\\u3131-\\u318E]");
+
+	/** 검색 쿼리로 그대로 쓸 수 있는 완결된 문장 어미 */
+	private static final Pattern COMPLETE_SENTENCE = Pattern.compile(".*(요|까|니다|나요|가요|죠|다)[?.!]*$");
+
+	private static final String REWRITE = "rewrite";
+
+	private final BudgetProperties properties;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, AtomicLong> estimates = new ConcurrentHashMap<>();
+
+	public LatencyBudgetController(BudgetProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/** 요청 시작 시점에 예산을 만든다. */
+	public LatencyBudget start() {
+		return LatencyBudget.start(properties.total());
+	}
+
+	/**
+	 * 리라이팅 실행 여부를 결정한다.
+	 *
+	 * @param budget 요청 예산 (없으면 예산 조건은 무시)
+	 */
+	public Decision decideRewrite(String question, LatencyBudget budget) {
+		Decision decision;
+		if (!properties.enabled()) {
+			decision = Decision.RUN;
+		} else if (isSearchReady(question)) {
+			decision = Decision.SKIP_SEARCH_READY;
+		} else if (budget != null && (budget.remainingNanos() < estimateNanos(REWRITE)
+				|| rewriteTimeoutNanos(budget) < properties.minSlice().toNanos())) {
+			decision = Decision.SKIP_BUDGET;
+		} else {
+			decision = Decision.RUN;
+		}
+		record(RagStage.QUERY_REWRITE, decision);
+		return decision;
+	}
+
+	/**
+	 * 재순위화 실행 여부를 결정한다.
+	 *
+	 * @param candidates RRF 점수 순으로 정렬된 후보 (score = RRF 점수)
+	 * @param strategy   재순위화 전략 이름
+	 * @param budget     요청 예산 (없으면 예산 조건은 무시)
+	 */
+	public Decision decideRerank(List<Document> candidates, String strategy, LatencyBudget budget) {
+		Decision decision;
+		if (!properties.enabled()) {
+			decision = Decision.RUN;
+		} else if (isDecisive(candidates)) {
+			decision = Decision.SKIP_DECISIVE_MARGIN;
+		} else if (budget != null && (budget.remainingNanos() < estimateNanos(strategy)
+				|| rerankTimeoutNanos(budget) < properties.minSlice().toNanos())) {
+			decision = Decision.SKIP_BUDGET;
+		} else {
+			decision = Decision.RUN;
+		}
+		record(RagStage.RERANK, decision);
+		return decision;
+	}
+
+	/** 리라이팅 LLM 호출에 배정할 시간. 예산이 없으면 전체 예산 기준으로 계산한다. */
+	public long rewriteTimeoutNanos(LatencyBudget budget) {
+		return slice(budget, properties.rewriteShare());
+	}
+
+	/** 재순위화 LLM 호출에 배정할 시간. 예산이 없으면 전체 예산 기준으로 계산한다. */
+	public long rerankTimeoutNanos(LatencyBudget budget) {
+		return slice(budget, properties.rerankShare());
+	}
+
+	/** 마감으로 인해 대체 경로(원본 질문, RRF 순서)를 사용했음을 기록한다. */
+	public void recordFallback(RagStage stage) {
+		meterRegistry.counter("rag.deadline.fallback", "stage", stage.tag()).increment();
+	}
+
+	/** 리라이팅 LLM 호출 소요 시간을 관측한다. */
+	public void observeRewrite(long nanos) {
+		observe(REWRITE, nanos);
+	}
+
+	/** 재순위화 소요 시간을 전략별로 관측한다. */
+	public void observeRerank(String strategy, long nanos) {
+		observe(strategy, nanos);
+	}
+
+	/**
+	 * 리라이팅 없이도 검색에 적합한 질문인지 로컬 규칙으로 판단한다.
+	 */
+	static boolean isSearchReady(String question) {
+		if (question == null) {
+			return false;
+		}
+		String trimmed = question.strip();
+		return trimmed.split("\\s+").length >= 2
+				&& !JAMO.matcher(trimmed).find()
+				&& COMPLETE_SENTENCE.matcher(trimmed).matches();
+	}
+
+	private long slice(LatencyBudget budget, double share) {
+		return budget != null ? budget.sliceNanos(share) : (long) (properties.total().toNanos() * share);
+	}
+
+	private boolean isDecisive(List<Document> candidates) {
+		if (candidates.size() < 2) {
+			return true;
+		}
+		Double first = candidates.get(0).getScore();
+		Double second = candidates.get(1).getScore();
+		if (first == null || second == null || first <= 0) {
+			return false;
+		}
+		return (first - second) / first >= properties.decisiveMargin();
+	}
+
+	private long estimateNanos(String key) {
+		AtomicLong estimate = estimates.get(key);
+		return estimate != null ? estimate.get() : properties.initialEstimate().toNanos();
+	}
+
+	private void observe(String key, long nanos) {
+		estimates.computeIfAbsent(key, k -> new AtomicLong(nanos))
+				.getAndUpdate(previous -> (long) (ALPHA * nanos + (1 - ALPHA) * previous));
+	}
+
+	private void record(RagStage stage, Decision decision) {
+		meterRegistry.counter("rag.budget.decision", "stage", stage.tag(), "decision", decision.tag).increment();
+	}
+
+	public enum Decision {
+		RUN("run"),
+		/** 질문이 이미 검색에 적합함 */
+		SKIP_SEARCH_READY("search_ready"),
+		/** RRF 1위가 결정적으로 앞섬 */
+		SKIP_DECISIVE_MARGIN("decisive_margin"),
+		/** 남은 예산 부족 */
+		SKIP_BUDGET("budget");
+
+		private final String tag;
+
+		Decision(String tag) {
+			this.tag = tag;
+		}
+
+		public boolean skipped() {
+			return this != RUN;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.example.rag.chat.cache;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 답변 캐시 설정.
+ *
+ * @param enabled             답변 캐시 사용 여부
+ * @param maxSize             최대 엔트리 수 (1536차원 기준 엔트리당 임베딩 약 6KB)
+ * @param ttl                 엔트리 생존 시간 (쓰기 기준, 유사 질문 별칭은 원본과 함께 만료)
+ * @param similarityThreshold 같은 질문으로 간주할 질문 임베딩 코사인 유사도 하한
+ * @param maxCandidates       유사 질문을 찾을 때 비교하는 같은 버전·카테고리의 최근 답변 수
+ */
+@ConfigurationProperties(prefix = "rag.answer-cache")
+public record AnswerCacheProperties(
+		@DefaultValue("true") boolean enabled,
+		@DefaultValue("2000") long maxSize,
+		@DefaultValue("1h") Duration ttl,
+		@DefaultValue("0.97") double similarityThreshold,
+		@DefaultValue("256") int maxCandidates) {
+}
@@ -0,0 +1,15 @@
+package com.example.rag.chat.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 요청 단위 캐시 우회 설정.
+ * 허용하면 {@code X-Cache-Bypass: true} 헤더가 붙은 채팅 요청은 답변 캐시와 리라이팅 캐시를 조회·저장하지 않는다.
+ * 부하 테스트에서 질문을 바꾸지 않고 캐시 미스 경로를 측정하기 위한 것으로, 운영에서는 끈다.
+ *
+ * @param enabled 헤더를 따를지 여부 (false면 헤더를 무시)
+ */
+@ConfigurationProperties(prefix = "rag.cache-bypass")
+public record CacheBypassProperties(@DefaultValue("false") boolean enabled) {
+}
@@ -0,0 +1,107 @@
+package com.example.rag.chat.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * 쿼리 임베딩을 캐시하는 {@link EmbeddingModel} 데코레이터.
+ *
+ * 단건 텍스트 임베딩({@link #embed(String)})만 캐시한다.
+ * PgVectorStore의 similaritySearch가 이 경로로 쿼리를 임베딩하며,
+ * 문서 적재용 배치 임베딩은 재사용 가능성이 없으므로 위임 모델로 바로 전달한다.
+ *
+ * 키는 텍스트의 SHA-256 앞 128비트, 값은 primitive float[]로 저장하고
+ * 벡터 바이트 수 기준 가중치로 메모리 상한을 둔다.
+ *
+ * 메트릭: cache.gets / cache.evictions 등(cache=queryEmbedding), rag.embedding.cache.bytes
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+	private static final String CACHE_NAME = "queryEmbedding";
+
+	/** 키(ContentHash) + 배열 헤더 + Caffeine 노드의 대략적인 고정 비용 */
+	private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+	private final EmbeddingModel delegate;
+	private final Cache<ContentHash, float[]> cache;
+
+	public CachingEmbeddingModel(EmbeddingModel delegate, long maxMemoryBytes, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maxMemoryBytes)
+				.weigher((ContentHash key, float[] vector) -> ENTRY_OVERHEAD_BYTES + vector.length * Float.BYTES)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+		Gauge.builder("rag.embedding.cache.bytes", this, CachingEmbeddingModel::memoryFootprint)
+				.description("쿼리 임베딩 캐시가 점유한 추정 메모리")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public float[] embed(String text) {
+		float[] vector = cache.get(ContentHash.of(text), key -> delegate.embed(text));
+		// 호출자가 배열을 수정해도 캐시가 오염되지 않도록 복사본을 반환
+		return vector.clone();
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+		return delegate.call(request);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+		return delegate.embed(document);
+	}
+
+	@Override
+	public List<float[]> embed(List<Document> documents, EmbeddingOptions options,
+			BatchingStrategy batchingStrategy) {
+		return delegate.embed(documents, options, batchingStrategy);
+	}
+
+	@Override
+	public int dimensions() {
+		return delegate.dimensions();
+	}
+
+	private double memoryFootprint() {
+		return cache.policy().eviction()
+				.map(eviction -> eviction.weightedSize().orElse(0L))
+				.orElse(0L)
+				.doubleValue();
+	}
+
+	/** 텍스트 SHA-256 다이제스트의 앞 128비트. */
+	private record ContentHash(long high, long low) {
+
+		static ContentHash of(String text) {
+			try {
+				byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+				ByteBuffer buffer = ByteBuffer.wrap(digest);
+				return new ContentHash(buffer.getLong(), buffer.getLong());
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256을 사용할 수 없습니다.", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.example.rag.chat.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 쿼리 임베딩 캐시 설정.
+ *
+ * @param maxMemory 캐시가 점유할 최대 메모리 (1536차원 기준 엔트리당 약 6KB)
+ */
+@ConfigurationProperties(prefix = "rag.embedding-cache")
+public record EmbeddingCacheProperties(@DefaultValue("64MB") DataSize maxMemory) {
+}
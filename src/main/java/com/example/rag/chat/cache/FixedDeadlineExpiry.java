@@ -0,0 +1,35 @@
+package com.example.rag.chat.cache;
+
+import java.util.function.ToLongFunction;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * 값에 담긴 만료 시각(System.nanoTime 기준)까지만 엔트리를 유지하는 Expiry.
+ *
+ * expireAfterWrite와 달리 같은 값을 다른 키(유사 질문 별칭)로 다시 넣어도 만료가 늘어나지 않으므로,
+ * 별칭이 원본보다 오래 살아 TTL이 사실상 무한해지는 일이 없다. 읽기는 만료에 영향을 주지 않는다.
+ */
+final class FixedDeadlineExpiry<K, V> implements Expiry<K, V> {
+
+	private final ToLongFunction<V> deadline;
+
+	FixedDeadlineExpiry(ToLongFunction<V> deadline) {
+		this.deadline = deadline;
+	}
+
+	@Override
+	public long expireAfterCreate(K key, V value, long currentTime) {
+		return Math.max(0, deadline.applyAsLong(value) - currentTime);
+	}
+
+	@Override
+	public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+		return Math.max(0, deadline.applyAsLong(value) - currentTime);
+	}
+
+	@Override
+	public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+		return currentDuration;
+	}
+}
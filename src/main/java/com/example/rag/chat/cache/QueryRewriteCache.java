@@ -0,0 +1,230 @@
+package com.example.rag.chat.cache;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * 쿼리 리라이팅 결과 캐시.
+ *
+ * 질문을 정규화(NFKC, 소문자, 공백·문장부호 제거)한 문자열을 키로 사용하며,
+ * 크기 상한과 TTL로 엔트리를 제거한다.
+ * 정확 일치가 없으면 문자 bigram Jaccard 유사도가 임계값 이상이고 영문·숫자 토큰이 같은 엔트리로 응답한다.
+ * ("배송 얼마나 걸려?" ≈ "배송 얼마나 걸려요?")
+ *
+ * 유사 질문 후보는 전체 엔트리를 훑지 않고 bigram prefix 색인으로 찾는다. (prefix filtering)
+ * 정렬된 bigram 집합 x의 앞 |x| - ⌈t·|x|⌉ + 1개를 색인하면, Jaccard ≥ t인 두 집합은 반드시 색인된 bigram을 공유한다.
+ * 후보는 bigram 수가 [t·|x|, |x|/t] 범위인 것만 비교한다.
+ * 유사 질문 별칭은 원본 엔트리의 만료 시각을 그대로 가져 TTL을 연장하지 않는다.
+ *
+ * 메트릭: cache.gets / cache.evictions 등(cache=queryRewrite), rag.rewrite.cache.similar.hits
+ */
+@Component
+public class QueryRewriteCache {
+
+	private static final String CACHE_NAME = "queryRewrite";
+
+	/** 유사 매칭을 시도할 최소 bigram 수 — 너무 짧은 질문은 정확 일치만 허용 */
+	private static final int MIN_BIGRAMS_FOR_SIMILAR = 3;
+
+	/** 0.7 × 10 = 7.000000000000001 같은 부동소수점 오차로 후보 범위가 좁아지지 않도록 한다 */
+	private static final double EPSILON = 1e-9;
+
+	private static final Pattern NON_CONTENT = Pattern.compile("[\\s\\p{P}\\p{S}]+");
+	private static final Pattern ENTITY = Pattern.compile("[a-z0-9]+");
+
+	private final Cache<String, Entry> cache;
+	private final double similarityThreshold;
+	private final long ttlNanos;
+	/** prefix bigram → 그 bigram을 prefix에 가진 키. 엔트리가 캐시에서 빠지면 함께 지운다. */
+	private final Map<Integer, Set<String>> prefixIndex = new ConcurrentHashMap<>();
+	private final Counter similarHits;
+
+	public QueryRewriteCache(RewriteCacheProperties properties, MeterRegistry meterRegistry) {
+		this.similarityThreshold = properties.similarityThreshold();
+		this.ttlNanos = properties.ttl().toNanos();
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.maxSize())
+				.expireAfter(new FixedDeadlineExpiry<String, Entry>(Entry::expiresAtNanos))
+				// 만료·크기 제거 시 같은 스레드에서 호출된다 (같은 키의 교체는 bigram이 같으므로 색인을 그대로 둔다)
+				.evictionListener((String key, Entry entry, RemovalCause cause) -> unindex(key, entry))
+				.recordStats()
+				.build();
+		this.similarHits = meterRegistry.counter("rag.rewrite.cache.similar.hits");
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * 캐시된 재작성 쿼리를 조회한다. 정확 일치 → 유사 질문 순으로 찾는다.
+	 */
+	public Optional<String> get(String question) {
+		String key = normalize(question);
+		if (key.isEmpty()) {
+			return Optional.empty();
+		}
+
+		Entry exact = cache.getIfPresent(key);
+		if (exact != null) {
+			return Optional.of(exact.rewrittenQuery());
+		}
+
+		int[] bigrams = bigrams(key);
+		if (bigrams.length < MIN_BIGRAMS_FOR_SIMILAR || similarityThreshold >= 1.0) {
+			return Optional.empty();
+		}
+
+		Set<String> entities = entities(key);
+		int minSize = (int) Math.ceil(similarityThreshold * bigrams.length - EPSILON);
+		int maxSize = (int) Math.floor(bigrams.length / similarityThreshold + EPSILON);
+		Set<String> checked = new HashSet<>();
+		Entry best = null;
+		double bestScore = similarityThreshold;
+		for (int i = 0; i < prefixLength(bigrams.length); i++) {
+			Set<String> keys = prefixIndex.get(bigrams[i]);
+			if (keys == null) {
+				continue;
+			}
+			for (String candidateKey : keys) {
+				if (!checked.add(candidateKey)) {
+					continue;
+				}
+				// asMap().get은 통계·만료에 영향을 주지 않는다
+				Entry candidate = cache.asMap().get(candidateKey);
+				if (candidate == null || candidate.bigrams().length < minSize || candidate.bigrams().length > maxSize
+						|| !candidate.entities().equals(entities)) {
+					continue;
+				}
+				double score = jaccard(bigrams, candidate.bigrams());
+				if (score >= bestScore) {
+					best = candidate;
+					bestScore = score;
+				}
+			}
+		}
+
+		if (best == null) {
+			return Optional.empty();
+		}
+
+		// 다음 조회부터 정확 일치로 응답하도록 정규화 키를 별칭으로 등록 (만료 시각은 원본 그대로)
+		store(key, new Entry(best.rewrittenQuery(), bigrams, entities, best.expiresAtNanos()));
+		similarHits.increment();
+		return Optional.of(best.rewrittenQuery());
+	}
+
+	public void put(String question, String rewrittenQuery) {
+		String key = normalize(question);
+		if (!key.isEmpty()) {
+			store(key, new Entry(rewrittenQuery, bigrams(key), entities(key), System.nanoTime() + ttlNanos));
+		}
+	}
+
+	private void store(String key, Entry entry) {
+		cache.put(key, entry);
+		if (entry.bigrams().length < MIN_BIGRAMS_FOR_SIMILAR || similarityThreshold >= 1.0) {
+			return;
+		}
+		for (int i = 0; i < prefixLength(entry.bigrams().length); i++) {
+			prefixIndex.computeIfAbsent(entry.bigrams()[i], bigram -> ConcurrentHashMap.newKeySet()).add(key);
+		}
+	}
+
+	private void unindex(String key, Entry entry) {
+		if (entry == null) {
+			return;
+		}
+		for (int i = 0; i < prefixLength(entry.bigrams().length); i++) {
+			prefixIndex.computeIfPresent(entry.bigrams()[i], (bigram, keys) -> {
+				keys.remove(key);
+				return keys.isEmpty() ? null : keys;
+			});
+		}
+	}
+
+	/** Jaccard ≥ similarityThreshold인 집합끼리 반드시 공유하는 prefix 길이. */
+	private int prefixLength(int size) {
+		return Math.min(size, size - (int) Math.ceil(similarityThreshold * size - EPSILON) + 1);
+	}
+
+	/**
+	 * 띄어쓰기·문장부호·전각/반각 차이를 제거한 정규화 키를 만든다.
+	 */
+	static String normalize(String question) {
+		if (question == null) {
+			return "";
+		}
+		String normalized = Normalizer.normalize(question, Normalizer.Form.NFKC).toLowerCase();
+		return NON_CONTENT.matcher(normalized).replaceAll("");
+	}
+
+	/**
+	 * 정규화 키에서 영문·숫자 토큰(제품명, 모델명, 연도 등)을 뽑는다.
+	 * 임베딩·bigram 유사도는 이런 토큰 하나의 차이를 거의 반영하지 못하므로("A 제품 환불" ≈ "B 제품 환불"),
+	 * 유사 질문은 이 집합이 같을 때만 같은 질문으로 본다.
+	 */
+	static Set<String> entities(String key) {
+		Set<String> entities = new HashSet<>();
+		Matcher matcher = ENTITY.matcher(key);
+		while (matcher.find()) {
+			entities.add(matcher.group());
+		}
+		return Set.copyOf(entities);
+	}
+
+	/**
+	 * 문자 bigram을 (앞 문자 << 16 | 뒤 문자) 정수로 압축해 정렬된 집합으로 반환한다.
+	 */
+	private static int[] bigrams(String key) {
+		if (key.length() < 2) {
+			return new int[]{key.charAt(0)};
+		}
+		int[] grams = new int[key.length() - 1];
+		for (int i = 0; i < grams.length; i++) {
+			grams[i] = (key.charAt(i) << 16) | key.charAt(i + 1);
+		}
+		return Arrays.stream(grams).sorted().distinct().toArray();
+	}
+
+	/** 정렬된 두 집합의 Jaccard 유사도. */
+	private static double jaccard(int[] a, int[] b) {
+		int i = 0;
+		int j = 0;
+		int intersection = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] == b[j]) {
+				intersection++;
+				i++;
+				j++;
+			} else if (a[i] < b[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return (double) intersection / (a.length + b.length - intersection);
+	}
+
+	/**
+	 * @param bigrams        정렬된 bigram 집합 (키에서 계산)
+	 * @param entities       키의 영문·숫자 토큰
+	 * @param expiresAtNanos 만료 시각 (System.nanoTime 기준, 별칭은 원본 값을 그대로 쓴다)
+	 */
+	private record Entry(String rewrittenQuery, int[] bigrams, Set<String> entities, long expiresAtNanos) {
+	}
+}
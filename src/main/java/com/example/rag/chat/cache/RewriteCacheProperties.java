@@ -0,0 +1,20 @@
+package com.example.rag.chat.cache;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 쿼리 리라이팅 캐시 설정.
+ *
+ * @param maxSize             최대 엔트리 수
+ * @param ttl                 엔트리 생존 시간 (쓰기 기준, 유사 질문 별칭은 원본과 함께 만료)
+ * @param similarityThreshold 유사 질문으로 간주할 문자 bigram Jaccard 유사도 하한 (1.0이면 정확 일치만)
+ */
+@ConfigurationProperties(prefix = "rag.rewrite-cache")
+public record RewriteCacheProperties(
+		@DefaultValue("10000") long maxSize,
+		@DefaultValue("1h") Duration ttl,
+		@DefaultValue("0.8") double similarityThreshold) {
+}
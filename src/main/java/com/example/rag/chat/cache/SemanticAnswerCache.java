@@ -0,0 +1,250 @@
+package com.example.rag.chat.cache;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.document.service.CorpusVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * 최종 답변 캐시.
+ *
+ * 키는 (코퍼스 버전, 카테고리, 정규화 질문)이며, 정확 일치가 없으면
+ * 같은 버전·카테고리의 최근 답변(maxCandidates개) 중 질문 임베딩 코사인 유사도가 임계값 이상이고
+ * 영문·숫자 토큰(제품명, 연도 등)이 같은 답변으로 응답한다. ("A 제품 환불"과 "B 제품 환불"은 다른 질문)
+ * 유사 질문으로 적중하면 정규화 질문을 별칭으로 등록하되, 별칭은 원본 엔트리와 함께 만료된다. (TTL 연장 없음)
+ * 문서가 바뀌면 {@link CorpusVersion}이 올라가 이전 버전 엔트리는 더 이상 조회되지 않고 크기 상한·TTL로 제거된다.
+ *
+ * 이전 대화에 의존하지 않는 턴(대화의 첫 질문)에만 사용한다. 판단은 호출자가 한다.
+ *
+ * 메트릭:
+ * - cache.gets / cache.evictions 등 (cache=answer)
+ * - rag.answer.cache.requests{result=hit|similar|miss|bypass}
+ * - rag.answer.cache.hit.ratio: 캐시를 조회한 요청 중 적중 비율
+ * - rag.answer.cache.saved: 적중으로 생략한 답변 생성 시간 (엔트리 생성 당시 측정값)
+ */
+@Component
+public class SemanticAnswerCache {
+
+	private static final String CACHE_NAME = "answer";
+
+	private final EmbeddingModel embeddingModel;
+	private final CorpusVersion corpusVersion;
+	private final boolean enabled;
+	private final double similarityThreshold;
+	private final int maxCandidates;
+	private final long ttlNanos;
+	private final Cache<Key, Entry> cache;
+	/** 유사 질문 비교 대상: 버전·카테고리별 최근 답변 키 (별칭 제외) */
+	private final Map<Scope, RecentKeys> candidates = new ConcurrentHashMap<>();
+
+	private final Counter exactHits;
+	private final Counter similarHits;
+	private final Counter misses;
+	private final Counter bypasses;
+	private final Timer saved;
+
+	public SemanticAnswerCache(EmbeddingModel embeddingModel, CorpusVersion corpusVersion,
+			AnswerCacheProperties properties, MeterRegistry meterRegistry) {
+		this.embeddingModel = embeddingModel;
+		this.corpusVersion = corpusVersion;
+		this.enabled = properties.enabled();
+		this.similarityThreshold = properties.similarityThreshold();
+		this.maxCandidates = properties.maxCandidates();
+		this.ttlNanos = properties.ttl().toNanos();
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.maxSize())
+				.expireAfter(new FixedDeadlineExpiry<Key, Entry>(Entry::expiresAtNanos))
+				.recordStats()
+				.build();
+
+		this.exactHits = requests(meterRegistry, "hit");
+		this.similarHits = requests(meterRegistry, "similar");
+		this.misses = requests(meterRegistry, "miss");
+		this.bypasses = requests(meterRegistry, "bypass");
+		this.saved = Timer.builder("rag.answer.cache.saved")
+				.description("답변 캐시 적중으로 생략한 답변 생성 시간")
+				.register(meterRegistry);
+		Gauge.builder("rag.answer.cache.hit.ratio", this, SemanticAnswerCache::hitRatio).register(meterRegistry);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/** 이전 대화에 의존하는 등의 이유로 캐시를 조회하지 않은 요청을 기록한다. */
+	public void recordBypass() {
+		bypasses.increment();
+	}
+
+	/**
+	 * 캐시된 답변을 조회한다. 정확 일치 → 유사 질문 순으로 찾는다.
+	 * 적중하지 않으면 반환값을 {@link #put}에 전달해 생성한 답변을 저장한다. (임베딩 재계산 없음)
+	 */
+	public Lookup lookup(String question, String category) {
+		Key key = new Key(corpusVersion.current(), category != null ? category : "",
+				QueryRewriteCache.normalize(question));
+
+		Entry exact = cache.getIfPresent(key);
+		if (exact != null) {
+			exactHits.increment();
+			saved.record(exact.generationNanos(), TimeUnit.NANOSECONDS);
+			return new Lookup(key, exact.embedding(), exact.answer());
+		}
+
+		float[] embedding = normalize(embeddingModel.embed(question));
+		Set<String> entities = QueryRewriteCache.entities(key.question());
+		Entry best = null;
+		double bestScore = similarityThreshold;
+		RecentKeys recent = candidates.get(key.scope());
+		for (Key candidateKey : recent != null ? recent.snapshot() : List.<Key>of()) {
+			// asMap().get은 통계·만료에 영향을 주지 않는다
+			Entry candidate = cache.asMap().get(candidateKey);
+			if (candidate == null || !candidate.entities().equals(entities)) {
+				continue;
+			}
+			double score = dot(embedding, candidate.embedding());
+			if (score >= bestScore) {
+				best = candidate;
+				bestScore = score;
+			}
+		}
+
+		if (best == null) {
+			misses.increment();
+			return new Lookup(key, embedding, null);
+		}
+
+		// 다음 조회부터 정확 일치로 응답하도록 정규화 질문을 별칭으로 등록 (만료 시각은 원본 그대로)
+		cache.put(key, best);
+		similarHits.increment();
+		saved.record(best.generationNanos(), TimeUnit.NANOSECONDS);
+		return new Lookup(key, embedding, best.answer());
+	}
+
+	/**
+	 * 생성한 답변을 저장한다.
+	 * 조회 이후 코퍼스 버전이 바뀌었으면 조회 시점 버전으로 저장되어 다시 조회되지 않는다.
+	 *
+	 * @param generationNanos 답변 생성에 걸린 시간 (적중 시 절약 시간으로 기록)
+	 */
+	public void put(Lookup miss, String answer, long generationNanos) {
+		if (answer == null || answer.isBlank() || miss.key.question().isEmpty()) {
+			return;
+		}
+		cache.put(miss.key, new Entry(miss.embedding, QueryRewriteCache.entities(miss.key.question()), answer,
+				generationNanos, System.nanoTime() + ttlNanos));
+
+		Scope scope = miss.key.scope();
+		candidates.computeIfAbsent(scope, s -> new RecentKeys()).add(miss.key, maxCandidates);
+		// 이전 코퍼스 버전의 후보 목록은 더 이상 조회되지 않는다
+		candidates.keySet().removeIf(other -> other.corpusVersion() < scope.corpusVersion());
+	}
+
+	private double hitRatio() {
+		double hits = exactHits.count() + similarHits.count();
+		double total = hits + misses.count();
+		return total == 0 ? 0 : hits / total;
+	}
+
+	private static Counter requests(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("rag.answer.cache.requests")
+				.tag("result", result)
+				.register(meterRegistry);
+	}
+
+	/** 단위 벡터로 정규화하여 내적만으로 코사인 유사도를 계산할 수 있게 한다. */
+	private static float[] normalize(float[] vector) {
+		double norm = Math.sqrt(dot(vector, vector));
+		float[] unit = new float[vector.length];
+		if (norm == 0) {
+			return unit;
+		}
+		for (int i = 0; i < vector.length; i++) {
+			unit[i] = (float) (vector[i] / norm);
+		}
+		return unit;
+	}
+
+	private static double dot(float[] a, float[] b) {
+		if (a.length != b.length) {
+			return 0;
+		}
+		double sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	/** 캐시 조회 결과. 적중하지 않았으면 답변 저장에 필요한 키와 질문 임베딩을 담는다. */
+	public static final class Lookup {
+
+		private final Key key;
+		private final float[] embedding;
+		private final String answer;
+
+		private Lookup(Key key, float[] embedding, String answer) {
+			this.key = key;
+			this.embedding = embedding;
+			this.answer = answer;
+		}
+
+		public Optional<String> answer() {
+			return Optional.ofNullable(answer);
+		}
+	}
+
+	private record Key(long corpusVersion, String category, String question) {
+
+		Scope scope() {
+			return new Scope(corpusVersion, category);
+		}
+	}
+
+	/** 유사 질문을 비교하는 범위. */
+	private record Scope(long corpusVersion, String category) {
+	}
+
+	/**
+	 * @param entities       정규화 질문의 영문·숫자 토큰
+	 * @param expiresAtNanos 만료 시각 (System.nanoTime 기준, 별칭도 같은 값을 공유)
+	 */
+	private record Entry(float[] embedding, Set<String> entities, String answer, long generationNanos,
+			long expiresAtNanos) {
+	}
+
+	/** 범위별 최근 답변 키. 가장 오래된 키부터 밀려난다. 캐시에서 빠진 키는 조회 시 건너뛴다. */
+	private static final class RecentKeys {
+
+		private final ArrayDeque<Key> keys = new ArrayDeque<>();
+
+		synchronized void add(Key key, int max) {
+			keys.remove(key);
+			keys.addLast(key);
+			while (keys.size() > max) {
+				keys.removeFirst();
+			}
+		}
+
+		synchronized List<Key> snapshot() {
+			return List.copyOf(keys);
+		}
+	}
+}
@@ -2,15 +2,18 @@ package com.example.rag.chat.controller;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.ai.chat.messages.MessageType;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,8 +21,10 @@ import org.springframework.web.bind.annotation.RestController;
 import com.example.rag.chat.dto.request.ChatRequest;
 import com.example.rag.chat.dto.response.ChatResponse;
 import com.example.rag.chat.dto.response.MessageResponse;
-import com.example.rag.chat.dto.vo.SessionSummary;
+import com.example.rag.chat.dto.response.SessionPageResponse;
 import com.example.rag.chat.repository.SessionRepository;
+import com.example.rag.chat.repository.SessionRepository.Cursor;
+import com.example.rag.chat.repository.SessionRepository.SessionPage;
 import com.example.rag.chat.service.ChatService;
 
 import jakarta.validation.Valid;
@@ -35,35 +40,61 @@ import reactor.core.publisher.Flux;
 @RequiredArgsConstructor
 public class ChatController {
 
+	private static final int MAX_SESSION_PAGE_SIZE = 100;
+	private static final String CACHE_BYPASS_HEADER = "X-Cache-Bypass";
+
 	private final ChatService chatService;
 	private final SessionRepository sessionRepository;
 
-	/** 동기 방식 채팅 API. */
+	/**
+	 * 동기 방식 채팅 API.
+	 * {@code X-Cache-Bypass: true} 헤더는 rag.cache-bypass.enabled일 때만 답변·리라이팅 캐시를 우회한다.
+	 */
 	@PostMapping
-	ChatResponse chat(@Valid @RequestBody ChatRequest request) {
+	ChatResponse chat(@Valid @RequestBody ChatRequest request,
+			@RequestHeader(name = CACHE_BYPASS_HEADER, defaultValue = "false") boolean cacheBypass) {
 		String conversationId = resolveConversationId(request.conversationId());
-		return new ChatResponse(chatService.ask(request.question(), conversationId, request.category()), conversationId);
+		return new ChatResponse(chatService.ask(request.question(), conversationId, request.category(), cacheBypass),
+				conversationId);
 	}
 
 	/**
 	 * 스트리밍 방식 채팅 API.
 	 * 응답 끝에 {@code conversationId} SSE 이벤트를 전송하여 클라이언트가 세션을 추적할 수 있게 한다.
+	 * advisor 스케줄러가 포화 상태면 {@code error} 이벤트를 보내고 종료한다.
 	 */
 	@PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	Flux<ServerSentEvent<String>> chatStream(@Valid @RequestBody ChatRequest request) {
+	Flux<ServerSentEvent<String>> chatStream(@Valid @RequestBody ChatRequest request,
+			@RequestHeader(name = CACHE_BYPASS_HEADER, defaultValue = "false") boolean cacheBypass) {
 		String conversationId = resolveConversationId(request.conversationId());
-		return chatService.askStream(request.question(), conversationId, request.category())
+		return chatService.askStream(request.question(), conversationId, request.category(), cacheBypass)
 				.map(token -> ServerSentEvent.builder(token).build())
 				.concatWith(Flux.just(ServerSentEvent.<String>builder()
 						.event("conversationId")
 						.data(conversationId)
+						.build()))
+				.onErrorResume(ChatController::isRejected, e -> Flux.just(ServerSentEvent.<String>builder()
+						.event("error")
+						.data("요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해 주세요.")
 						.build()));
 	}
 
-	/** 세션 목록 조회 API. */
+	/**
+	 * 세션 목록 조회 API. 최근 활동 순으로 size개씩 조회하며,
+	 * 응답의 nextCursor를 다음 요청의 cursor로 전달하면 이어서 조회한다.
+	 */
 	@GetMapping("/sessions")
-	List<SessionSummary> sessions() {
-		return sessionRepository.findAllSessions();
+	ResponseEntity<SessionPageResponse> sessions(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int size) {
+		try {
+			Cursor position = cursor != null && !cursor.isBlank() ? Cursor.decode(cursor) : null;
+			SessionPage page = sessionRepository.findPage(position,
+					Math.clamp(size, 1, MAX_SESSION_PAGE_SIZE));
+			String nextCursor = page.nextCursor() != null ? page.nextCursor().encode() : null;
+			return ResponseEntity.ok(new SessionPageResponse(page.sessions(), nextCursor));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
 	}
 
 	/** 세션 삭제 API. */
@@ -89,6 +120,16 @@ public class ChatController {
 				.toList();
 	}
 
+	/** advisor 체인이 예외를 감싸서 전달하므로 원인까지 확인한다. */
+	private static boolean isRejected(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof RejectedExecutionException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private String resolveConversationId(String conversationId) {
 		return (conversationId != null && !conversationId.isBlank())
 				? conversationId
@@ -0,0 +1,12 @@
+package com.example.rag.chat.dto.response;
+
+import java.util.List;
+
+import com.example.rag.chat.dto.vo.SessionSummary;
+
+/**
+ * @param sessions   최근 활동 순 세션 목록
+ * @param nextCursor 다음 페이지 조회용 cursor (마지막 페이지면 null)
+ */
+public record SessionPageResponse(List<SessionSummary> sessions, String nextCursor) {
+}
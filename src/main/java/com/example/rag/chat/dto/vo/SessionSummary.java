@@ -2,5 +2,6 @@ package com.example.rag.chat.dto.vo;
 
 import java.time.LocalDateTime;
 
-public record SessionSummary(String conversationId, String title, LocalDateTime createdAt) {
+public record SessionSummary(String conversationId, String title, LocalDateTime createdAt,
+		LocalDateTime lastActiveAt, int messageCount) {
 }
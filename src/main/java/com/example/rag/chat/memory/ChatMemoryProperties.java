@@ -0,0 +1,38 @@
+package com.example.rag.chat.memory;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 대화 메모리 설정.
+ *
+ * @param maxMessages       요약 이후 메시지가 이 수를 넘으면 백그라운드 요약을 시작한다
+ * @param keepRecent        요약 시 원본으로 남길 최근 메시지 수
+ * @param cacheSize         노드 로컬 캐시에 보관할 대화 창 수
+ * @param cacheTtl          마지막 접근 후 대화 창을 캐시에서 제거하기까지의 시간
+ * @param flushInterval     캐시에 쌓인 메시지를 DB에 기록하는 주기 (write-behind)
+ * @param maxPending        DB에 기록되지 않은 메시지 수 상한 (DB 장애 시 메모리 보호)
+ * @param pendingTimeout    기록 대기 메시지가 maxPending개일 때 메시지 추가가 자리를 기다리는 시간. 넘으면 요청을 거절한다
+ * @param lockStripes       대화 ID별 잠금 stripe 수
+ * @param summaryTimeout    백그라운드 요약 LLM 호출 한 번에 허용하는 시간
+ * @param summaryBatchSize  요약 한 번에 새로 포함할 최대 메시지 수. 밀린 메시지는 여러 번에 나누어 요약한다
+ * @param summaryBackoff    요약 실패·시간 초과 후 같은 대화의 요약을 다시 시도하기까지 기다리는 시간 (연속 실패 시 두 배씩)
+ * @param summaryMaxBackoff 연속 실패 시 재시도 대기 시간 상한
+ */
+@ConfigurationProperties(prefix = "rag.memory")
+public record ChatMemoryProperties(
+		@DefaultValue("20") int maxMessages,
+		@DefaultValue("10") int keepRecent,
+		@DefaultValue("10000") long cacheSize,
+		@DefaultValue("30m") Duration cacheTtl,
+		@DefaultValue("200ms") Duration flushInterval,
+		@DefaultValue("10000") int maxPending,
+		@DefaultValue("2s") Duration pendingTimeout,
+		@DefaultValue("64") int lockStripes,
+		@DefaultValue("30s") Duration summaryTimeout,
+		@DefaultValue("50") int summaryBatchSize,
+		@DefaultValue("30s") Duration summaryBackoff,
+		@DefaultValue("10m") Duration summaryMaxBackoff) {
+}
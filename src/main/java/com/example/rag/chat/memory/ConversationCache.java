@@ -0,0 +1,354 @@
+package com.example.rag.chat.memory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.ai.chat.messages.Message;
+
+import com.example.rag.chat.repository.AppendOnlyChatMemoryRepository;
+import com.example.rag.chat.repository.AppendOnlyChatMemoryRepository.MemoryWindow;
+import com.example.rag.chat.repository.AppendOnlyChatMemoryRepository.NewMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 노드 로컬 대화 창 캐시 (read-through / write-behind).
+ *
+ * - 조회: 캐시에 없으면 DB에서 최신 요약 + 최근 windowSize개를 읽어 채운다.
+ * - 추가: 캐시된 창에 붙이고, DB 기록은 대기열에 넣어 flushInterval마다 단일 스레드가 순서대로 기록한다.
+ * - 같은 대화의 조회·추가는 대화 ID별 잠금(stripe)으로 직렬화하므로
+ *   동시 요청이 메시지를 잃거나 순서가 섞이지 않는다.
+ * - 기록은 잠금 안에서 대기열을 떼어 '기록 중'으로 표시한 뒤 잠금 밖에서 DB에 쓴다.
+ *   DB가 느려도 같은 stripe의 다른 대화는 기다리지 않는다.
+ *   기록 중인 대화를 캐시에서 다시 읽거나 초기화할 때만 기록이 끝나기를 기다리므로,
+ *   다시 읽은 창에 기록 중인 메시지가 누락되거나 중복되지 않고 초기화한 이력이 되살아나지 않는다.
+ * - 메시지는 대기열에 넣을 때 ID를 받고 DB는 이미 있는 ID를 건너뛰므로,
+ *   기록이 실패해(일부가 커밋됐는지 알 수 없어도) 같은 대기열을 다시 기록해도 중복되지 않는다.
+ * - 기록되지 않은 메시지는 maxPending개까지만 허용한다(DB 장애 시 메모리 보호).
+ *   가득 차면 추가 요청은 잠금 밖에서 pendingTimeout까지 자리가 나기를 기다리고,
+ *   그래도 없으면 RejectedExecutionException으로 턴을 실패시킨다. 받아들인 메시지의 DB 기록은 버리지 않는다.
+ *
+ * 캐시는 노드 로컬이므로 같은 대화는 같은 노드로 라우팅되는 것(sticky session)을 전제로 한다.
+ * 다른 노드에서 쓴 내용은 cacheTtl이 지나 캐시에서 빠진 뒤에 보인다.
+ *
+ * 메트릭:
+ * - cache.gets / cache.evictions 등 (cache=conversationWindow)
+ * - rag.memory.flush.lag: 메시지 추가부터 DB 기록까지의 지연
+ * - rag.memory.flush.pending: 아직 기록되지 않은 메시지 수
+ * - rag.memory.flush.failures: 기록 실패 횟수 (다음 주기에 재시도)
+ * - rag.memory.flush.rejected: 기록 대기열이 pendingTimeout 동안 가득 차 있어 거절한 추가 요청 수
+ */
+@Slf4j
+public class ConversationCache implements AutoCloseable {
+
+	private static final String CACHE_NAME = "conversationWindow";
+
+	private final AppendOnlyChatMemoryRepository repository;
+	private final int windowSize;
+	private final int maxPending;
+	private final long pendingTimeoutNanos;
+	private final Cache<String, Window> cache;
+	private final Lock[] locks;
+	/** stripe별 '기록 완료' 신호. 기록 중인 대화를 다시 읽거나 초기화하려는 스레드가 기다린다. */
+	private final Condition[] writeDone;
+	/** 기록 대기 메시지 자리. 추가 시 얻고 기록 성공·초기화 시 돌려준다. */
+	private final Semaphore pendingCapacity;
+	private final Map<String, PendingWrites> pending = new ConcurrentHashMap<>();
+	private final AtomicInteger pendingMessages = new AtomicInteger();
+	private final ScheduledExecutorService flusher =
+			Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("chat-memory-flush").factory());
+
+	private final Timer flushLag;
+	private final Counter flushFailures;
+	private final Counter rejectedAppends;
+
+	/**
+	 * @param windowSize 대화별로 보관할 최근 메시지 수 (요약 제외)
+	 */
+	public ConversationCache(AppendOnlyChatMemoryRepository repository, int windowSize,
+			ChatMemoryProperties properties, MeterRegistry meterRegistry) {
+		this.repository = repository;
+		this.windowSize = windowSize;
+		this.maxPending = properties.maxPending();
+		this.pendingTimeoutNanos = properties.pendingTimeout().toNanos();
+		this.pendingCapacity = new Semaphore(maxPending);
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.cacheSize())
+				.expireAfterAccess(properties.cacheTtl())
+				.recordStats()
+				.build();
+		this.locks = new Lock[properties.lockStripes()];
+		this.writeDone = new Condition[locks.length];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+			writeDone[i] = locks[i].newCondition();
+		}
+
+		this.flushLag = Timer.builder("rag.memory.flush.lag")
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry);
+		this.flushFailures = meterRegistry.counter("rag.memory.flush.failures");
+		this.rejectedAppends = meterRegistry.counter("rag.memory.flush.rejected");
+		Gauge.builder("rag.memory.flush.pending", pendingMessages, AtomicInteger::get).register(meterRegistry);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+		long intervalMillis = properties.flushInterval().toMillis();
+		flusher.scheduleWithFixedDelay(this::flushAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/** 최신 요약(있으면)과 최근 메시지를 반환한다. */
+	public ConversationWindow window(String conversationId) {
+		Lock lock = lockFor(conversationId);
+		lock.lock();
+		try {
+			Window window = loadIfAbsent(conversationId);
+			return new ConversationWindow(window.summary, List.copyOf(window.recent));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 메시지를 창에 추가하고 DB 기록을 예약한다.
+	 * 기록 대기 메시지가 maxPending개에 이르면 pendingTimeout까지 자리가 나기를 기다린다.
+	 *
+	 * @throws RejectedExecutionException 기다려도 자리가 나지 않은 경우 (메시지는 창에도 추가하지 않는다)
+	 */
+	public void append(String conversationId, List<Message> messages) {
+		if (messages.isEmpty()) {
+			return;
+		}
+		acquirePending(conversationId, messages.size());
+		Lock lock = lockFor(conversationId);
+		lock.lock();
+		try {
+			Window window = cache.getIfPresent(conversationId);
+			if (window != null) {
+				window.addAll(messages);
+			}
+			PendingWrites writes = pending.computeIfAbsent(conversationId, id -> new PendingWrites(System.nanoTime()));
+			messages.forEach(message -> writes.messages.add(new NewMessage(UUID.randomUUID(), message)));
+			pendingMessages.addAndGet(messages.size());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 대화의 대기 중인 메시지를 즉시 기록한다. (요약처럼 DB 기준으로 읽기 전에 호출)
+	 * 다른 스레드가 같은 대화를 기록 중이면 끝나기를 기다린 뒤 남은 메시지를 기록한다.
+	 * DB 쓰기는 잠금 밖에서 하므로 같은 stripe의 다른 대화는 막히지 않는다.
+	 */
+	public void flush(String conversationId) {
+		Lock lock = lockFor(conversationId);
+		PendingWrites writes;
+		List<NewMessage> batch;
+		lock.lock();
+		try {
+			awaitWrite(conversationId);
+			writes = pending.get(conversationId);
+			if (writes == null) {
+				return;
+			}
+			batch = List.copyOf(writes.messages);
+			writes.writing = true;
+		} finally {
+			lock.unlock();
+		}
+
+		boolean written = false;
+		try {
+			// 실패하면 대기열을 그대로 두고 다음 주기에 같은 ID로 다시 기록한다
+			repository.appendNew(conversationId, batch);
+			written = true;
+		} finally {
+			lock.lock();
+			try {
+				writes.writing = false;
+				if (written) {
+					// 기록하는 동안 추가된 메시지는 batch 뒤에 붙어 있으므로 앞부분만 제거한다
+					writes.messages.subList(0, batch.size()).clear();
+					pendingMessages.addAndGet(-batch.size());
+					pendingCapacity.release(batch.size());
+					flushLag.record(System.nanoTime() - writes.enqueuedNanos, TimeUnit.NANOSECONDS);
+					if (writes.messages.isEmpty()) {
+						pending.remove(conversationId, writes);
+					} else {
+						writes.enqueuedNanos = System.nanoTime();
+					}
+				}
+				writeDone[stripe(conversationId)].signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/** 캐시된 창을 버린다. 다음 조회 시 DB에서 다시 읽는다. (호출자가 잠금을 잡고 있어야 한다) */
+	void invalidate(String conversationId) {
+		cache.invalidate(conversationId);
+	}
+
+	/**
+	 * 대기 중인 메시지와 캐시된 창, DB 이력을 모두 삭제한다. (호출자가 잠금을 잡고 있어야 한다)
+	 * 기록 중인 메시지가 삭제 뒤에 커밋되어 이력이 되살아나지 않도록 기록이 끝나기를 기다린다.
+	 */
+	void clear(String conversationId) {
+		awaitWrite(conversationId);
+		PendingWrites writes = pending.remove(conversationId);
+		if (writes != null) {
+			pendingMessages.addAndGet(-writes.messages.size());
+			pendingCapacity.release(writes.messages.size());
+		}
+		cache.invalidate(conversationId);
+		repository.deleteByConversationId(conversationId);
+	}
+
+	Lock lockFor(String conversationId) {
+		return locks[stripe(conversationId)];
+	}
+
+	private int stripe(String conversationId) {
+		return Math.floorMod(conversationId.hashCode(), locks.length);
+	}
+
+	/** 기록 대기열에 자리가 날 때까지 잠금 없이 기다린다. */
+	private void acquirePending(String conversationId, int count) {
+		boolean acquired;
+		try {
+			acquired = pendingCapacity.tryAcquire(count, pendingTimeoutNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if (!acquired) {
+			rejectedAppends.increment();
+			log.warn("기록 대기 메시지가 {}개로 가득 차 메시지 추가를 거절합니다: conversationId={}", maxPending, conversationId);
+			throw new RejectedExecutionException("대화 메모리 기록 대기열이 가득 찼습니다");
+		}
+	}
+
+	/**
+	 * 호출자가 잠금을 잡은 상태에서 호출한다. 대화가 기록 중이면 끝날 때까지 기다린다.
+	 * 기다리는 동안에는 잠금을 놓으므로 같은 stripe의 다른 대화는 계속 진행된다.
+	 */
+	private void awaitWrite(String conversationId) {
+		Condition done = writeDone[stripe(conversationId)];
+		PendingWrites writes;
+		while ((writes = pending.get(conversationId)) != null && writes.writing) {
+			done.awaitUninterruptibly();
+		}
+	}
+
+	/** 종료 시 남은 메시지를 모두 기록한다. */
+	@Override
+	public void close() {
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flushAll();
+	}
+
+	private void flushAll() {
+		for (String conversationId : pending.keySet()) {
+			try {
+				flush(conversationId);
+			} catch (RuntimeException e) {
+				flushFailures.increment();
+				log.warn("대화 메모리 기록 실패 (다음 주기에 재시도): conversationId={}", conversationId, e);
+			}
+		}
+	}
+
+	/**
+	 * 호출자가 잠금을 잡은 상태에서 호출한다. DB 창에 아직 기록되지 않은 메시지를 덧붙인다.
+	 * 기록 중인 메시지는 DB에 이미 커밋됐는지 알 수 없으므로 기록이 끝난 뒤에 읽는다.
+	 */
+	private Window loadIfAbsent(String conversationId) {
+		Window window = cache.getIfPresent(conversationId);
+		if (window != null) {
+			return window;
+		}
+		awaitWrite(conversationId);
+		// 기다리는 동안 잠금을 놓았으므로 다른 스레드가 먼저 채웠을 수 있다
+		window = cache.getIfPresent(conversationId);
+		if (window != null) {
+			return window;
+		}
+
+		MemoryWindow stored = repository.findWindow(conversationId, windowSize);
+		Window loaded = new Window(stored.summary() != null ? stored.summary().message() : null);
+		stored.recent().forEach(row -> loaded.add(row.message()));
+		PendingWrites writes = pending.get(conversationId);
+		if (writes != null) {
+			writes.messages.forEach(write -> loaded.add(write.message()));
+		}
+		cache.put(conversationId, loaded);
+		return loaded;
+	}
+
+	/**
+	 * @param summary 최신 요약 (없으면 null)
+	 * @param recent  요약 이후 최근 메시지 (최대 windowSize개)
+	 */
+	public record ConversationWindow(Message summary, List<Message> recent) {
+	}
+
+	/** 캐시된 대화 창. 대화 잠금을 잡은 상태에서만 접근한다. */
+	private final class Window {
+
+		private final Message summary;
+		private final ArrayDeque<Message> recent = new ArrayDeque<>();
+
+		private Window(Message summary) {
+			this.summary = summary;
+		}
+
+		void addAll(List<Message> messages) {
+			messages.forEach(this::add);
+		}
+
+		void add(Message message) {
+			recent.addLast(message);
+			if (recent.size() > windowSize) {
+				recent.removeFirst();
+			}
+		}
+	}
+
+	/** 대화별 기록 대기 메시지. 대화 잠금을 잡은 상태에서만 접근한다. */
+	private static final class PendingWrites {
+
+		private long enqueuedNanos;
+		private final List<NewMessage> messages = new ArrayList<>();
+		/** 기록 스레드가 messages의 앞부분을 잠금 밖에서 DB에 쓰는 중 */
+		private boolean writing;
+
+		private PendingWrites(long enqueuedNanos) {
+			this.enqueuedNanos = enqueuedNanos;
+		}
+	}
+}
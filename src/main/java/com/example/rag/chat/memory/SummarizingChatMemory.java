@@ -1,24 +1,67 @@
 package com.example.rag.chat.memory;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
 
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.messages.SystemMessage;
-import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 
+import com.example.rag.chat.budget.HedgedLlmCaller;
+import com.example.rag.chat.memory.ConversationCache.ConversationWindow;
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.metrics.RagStage;
+import com.example.rag.chat.metrics.StageTags;
+import com.example.rag.chat.repository.AppendOnlyChatMemoryRepository;
+import com.example.rag.chat.repository.AppendOnlyChatMemoryRepository.MemoryWindow;
+import com.example.rag.chat.repository.AppendOnlyChatMemoryRepository.StoredMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * 임계값 초과 시 오래된 메시지를 LLM으로 요약하는 ChatMemory 구현.
  *
- * 메시지 수가 maxMessages를 초과하면:
- * 1. 최근 keepRecent개를 원본 유지
- * 2. 나머지를 LLM으로 요약
- * 3. [요약 SystemMessage] + [최근 메시지]로 교체하여 저장
+ * 저장은 append-only다. add는 새 메시지만 추가하고, get은 최신 요약 + 요약 이후 최근 메시지만 읽는다.
+ * 두 경로 모두 {@link ConversationCache}를 거치므로 자주 쓰이는 대화는 턴마다 DB에 가지 않는다.
+ *
+ * 요약 이후 메시지 수가 maxMessages를 초과하면 백그라운드에서:
+ * 1. 요약 이후 가장 오래된 메시지를 최대 summaryBatchSize개 읽되, 최근 keepRecent개는 원본 유지
+ * 2. 이전 요약 + 읽은 메시지를 LLM으로 요약
+ * 3. 요약한 마지막 메시지 순번(covers_seq)과 함께 요약 행을 추가
+ * 밀린 메시지가 많아도 한 번의 요약 프롬프트는 summaryBatchSize개를 넘지 않으며,
+ * 남은 메시지는 다음 조회에서 다시 임계값을 넘으므로 이어서 요약된다.
+ *
+ * {@link #get(String)}은 요약을 기다리지 않고 현재 창(이전 요약 + 최근 maxMessages개)을 즉시 반환하므로
+ * 사용자 요청 경로에는 요약 LLM 호출이 끼어들지 않는다.
+ * 요약 호출은 요청 예산과 무관한 자체 타임아웃(summaryTimeout) 안에서 호출하며({@link HedgedLlmCaller}),
+ * 기다리는 사용자가 없으므로 헤지하지 않는다.
+ * 요약이 실패하거나 시간을 넘기면 그 대화는 summaryBackoff 동안 요약을 예약하지 않는다.
+ * 연속으로 실패하면 대기 시간을 summaryMaxBackoff까지 두 배씩 늘리고, 요약이 성공하거나 이력을 초기화하면 되돌린다.
+ * (LLM 장애 중에 턴마다 요약 호출이 쌓이지 않도록 한다)
+ *
+ * 요약 결과는 요약 시작 시점의 버전(버전 토큰, 최신 요약의 covers_seq)이 그대로일 때만 추가한다.
+ * 요약 중 {@link #clear(String)}가 호출되었거나 다른 요약이 먼저 추가되었으면 결과를 버린다.
+ * 요약 중 추가된 메시지는 covers_seq 이후 순번이므로 그대로 창에 남는다.
+ * clear와 요약 추가는 캐시와 같은 대화 ID별 잠금(stripe)으로 직렬화한다.
+ *
+ * 메트릭: rag.stage.duration{stage=memory_load|memory_summarize}, rag.llm.tokens{stage=memory_summarize}
+ * (대화 메모리는 카테고리·호출 방식과 무관하므로 category, mode 태그는 none)
  */
-public class SummarizingChatMemory implements ChatMemory {
+@Slf4j
+public class SummarizingChatMemory implements ChatMemory, AutoCloseable {
+
+	static final String SUMMARY_PREFIX = "[이전 대화 요약] ";
 
 	private static final String SUMMARY_PROMPT = """
 			다음은 사용자와 AI 어시스턴트 사이의 이전 대화 내용입니다.
@@ -29,82 +72,244 @@ public class SummarizingChatMemory implements ChatMemory {
 			%s
 			""";
 
-	private final ChatMemoryRepository chatMemoryRepository;
-	private final ChatModel chatModel;
+	private final AppendOnlyChatMemoryRepository chatMemoryRepository;
+	private final ConversationCache conversationCache;
+	private final HedgedLlmCaller llmCaller;
+	private final Duration summaryTimeout;
 	private final int maxMessages;
 	private final int keepRecent;
+	/** 요약 한 번에 읽는 메시지 수 (새로 요약할 메시지 + 원본으로 남길 keepRecent개) */
+	private final int summaryReadLimit;
+	private final long summaryBackoffNanos;
+	private final long summaryMaxBackoffNanos;
+	private final ExecutorService summaryExecutor;
+	private final RagMetrics metrics;
+
+	/** 요약 진행 중인 대화 → 버전 토큰. clear 시 제거되어 진행 중인 요약 결과를 무효화한다. */
+	private final Map<String, Object> inFlight = new ConcurrentHashMap<>();
+
+	/** 요약이 실패한 대화 → 재시도 가능 시각. 최대 대기 시간의 두 배가 지나면 저절로 사라진다. */
+	private final Cache<String, Backoff> backoffs;
 
 	private SummarizingChatMemory(Builder builder) {
 		this.chatMemoryRepository = builder.chatMemoryRepository;
-		this.chatModel = builder.chatModel;
+		this.conversationCache = builder.conversationCache;
+		this.llmCaller = builder.llmCaller;
+		this.summaryTimeout = builder.summaryTimeout;
 		this.maxMessages = builder.maxMessages;
 		this.keepRecent = builder.keepRecent;
+		// 임계값을 넘긴 대화는 한 번에 적어도 maxMessages + 1개를 읽어야 요약할 메시지가 생긴다
+		this.summaryReadLimit = keepRecent + Math.max(builder.summaryBatchSize, maxMessages + 1 - keepRecent);
+		this.summaryBackoffNanos = builder.summaryBackoff.toNanos();
+		this.summaryMaxBackoffNanos = Math.max(builder.summaryMaxBackoff.toNanos(), summaryBackoffNanos);
+		this.backoffs = Caffeine.newBuilder()
+				.expireAfterWrite(Duration.ofNanos(summaryMaxBackoffNanos).multipliedBy(2))
+				.build();
+		this.metrics = builder.metrics;
+		this.summaryExecutor = builder.summaryExecutor != null
+				? builder.summaryExecutor
+				: Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-summary-", 0).factory());
 	}
 
 	@Override
 	public void add(String conversationId, List<Message> messages) {
-		List<Message> existing = chatMemoryRepository.findByConversationId(conversationId);
-		List<Message> all = new ArrayList<>(existing);
-		all.addAll(messages);
-		chatMemoryRepository.saveAll(conversationId, all);
+		conversationCache.append(conversationId, messages);
 	}
 
+	/**
+	 * 최신 요약 + 요약 이후 최근 maxMessages개를 반환한다.
+	 * 캐시는 maxMessages + 1개를 보관하여 임계값 초과 여부를 판단하고, 초과하면 요약을 예약한다.
+	 * 요약이 지연되거나 실패해도 창 크기는 maxMessages를 넘지 않는다.
+	 */
 	@Override
 	public List<Message> get(String conversationId) {
-		List<Message> messages = chatMemoryRepository.findByConversationId(conversationId);
+		ConversationWindow window = metrics.time(RagStage.MEMORY_LOAD, StageTags.NONE,
+				() -> conversationCache.window(conversationId));
+		List<Message> recent = window.recent();
 
-		if (messages.size() <= maxMessages) {
-			return messages;
+		if (recent.size() > maxMessages) {
+			scheduleSummary(conversationId);
+			recent = recent.subList(recent.size() - maxMessages, recent.size());
 		}
 
-		// 최근 keepRecent개 분리
-		List<Message> recent = messages.subList(messages.size() - keepRecent, messages.size());
-		List<Message> older = messages.subList(0, messages.size() - keepRecent);
+		List<Message> messages = new ArrayList<>(recent.size() + 1);
+		if (window.summary() != null) {
+			messages.add(window.summary());
+		}
+		messages.addAll(recent);
+		return messages;
+	}
 
-		// 오래된 메시지 요약
-		String summary = summarize(older);
-		SystemMessage summaryMessage = new SystemMessage("[이전 대화 요약] " + summary);
+	@Override
+	public void clear(String conversationId) {
+		Lock lock = conversationCache.lockFor(conversationId);
+		lock.lock();
+		try {
+			inFlight.remove(conversationId);
+			backoffs.invalidate(conversationId);
+			conversationCache.clear(conversationId);
+		} finally {
+			lock.unlock();
+		}
+	}
 
-		// 요약 + 최근 메시지로 교체 저장
-		List<Message> condensed = new ArrayList<>();
-		condensed.add(summaryMessage);
-		condensed.addAll(recent);
-		chatMemoryRepository.saveAll(conversationId, condensed);
+	@Override
+	public void close() {
+		summaryExecutor.shutdownNow();
+	}
 
-		return condensed;
+	/** 대화당 하나의 요약만 진행한다. 최근에 실패한 대화는 대기 시간이 지날 때까지 예약하지 않는다. */
+	private void scheduleSummary(String conversationId) {
+		Backoff backoff = backoffs.getIfPresent(conversationId);
+		if (backoff != null && System.nanoTime() - backoff.retryAtNanos() < 0) {
+			return;
+		}
+		Object token = new Object();
+		if (inFlight.putIfAbsent(conversationId, token) != null) {
+			return;
+		}
+		try {
+			summaryExecutor.execute(() -> summarizeInBackground(conversationId, token));
+		} catch (RejectedExecutionException e) {
+			inFlight.remove(conversationId, token);
+		}
 	}
 
-	@Override
-	public void clear(String conversationId) {
-		chatMemoryRepository.deleteByConversationId(conversationId);
+	private void summarizeInBackground(String conversationId, Object token) {
+		try {
+			conversationCache.flush(conversationId);
+			MemoryWindow snapshot = chatMemoryRepository.findOldest(conversationId, summaryReadLimit);
+			List<StoredMessage> pending = snapshot.recent();
+			if (pending.size() <= maxMessages) {
+				return;
+			}
+
+			List<StoredMessage> older = pending.subList(0, pending.size() - keepRecent);
+			List<Message> toSummarize = new ArrayList<>(older.size() + 1);
+			if (snapshot.summary() != null) {
+				toSummarize.add(snapshot.summary().message());
+			}
+			older.forEach(row -> toSummarize.add(row.message()));
+
+			String summary = summarize(toSummarize);
+			appendSummary(conversationId, token, snapshot.coveredSeq(), older.getLast().seq(),
+					SUMMARY_PREFIX + summary);
+			backoffs.invalidate(conversationId);
+		} catch (TimeoutException e) {
+			Duration delay = backOff(conversationId);
+			log.warn("대화 요약 시간 초과, {} 후 재시도: conversationId={}, {}", delay, conversationId, e.getMessage());
+		} catch (Exception e) {
+			Duration delay = backOff(conversationId);
+			log.warn("대화 요약 실패, {} 후 재시도: conversationId={}", delay, conversationId, e);
+		} finally {
+			inFlight.remove(conversationId, token);
+		}
+	}
+
+	/**
+	 * 연속 실패 횟수를 늘리고 다음 재시도 시각을 정한다. 대기 시간은 실패마다 두 배, 최대 summaryMaxBackoff.
+	 *
+	 * @return 이번 대기 시간
+	 */
+	private Duration backOff(String conversationId) {
+		Backoff next = backoffs.asMap().compute(conversationId, (id, previous) -> {
+			int failures = previous != null ? previous.failures() + 1 : 1;
+			long delay = summaryBackoffNanos;
+			for (int i = 1; i < failures && delay < summaryMaxBackoffNanos; i++) {
+				delay *= 2;
+			}
+			delay = Math.min(delay, summaryMaxBackoffNanos);
+			return new Backoff(failures, delay, System.nanoTime() + delay);
+		});
+		return Duration.ofNanos(next.delayNanos());
 	}
 
-	private String summarize(List<Message> messages) {
+	/**
+	 * 요약 행을 추가하고 캐시된 창을 버린다. (다음 조회 시 새 요약 기준으로 다시 읽는다)
+	 * 토큰이 바뀌었거나(clear) 그 사이 다른 요약이 추가되었으면 결과를 버린다.
+	 */
+	private void appendSummary(String conversationId, Object token, long baseCoveredSeq, long coversSeq,
+			String summary) {
+		Lock lock = conversationCache.lockFor(conversationId);
+		lock.lock();
+		try {
+			if (inFlight.get(conversationId) != token) {
+				log.debug("대화 요약 폐기 (이력 초기화됨): conversationId={}", conversationId);
+				return;
+			}
+			if (chatMemoryRepository.findCoveredSeq(conversationId) != baseCoveredSeq) {
+				log.debug("대화 요약 폐기 (다른 요약이 먼저 추가됨): conversationId={}", conversationId);
+				return;
+			}
+
+			chatMemoryRepository.appendSummary(conversationId, summary, coversSeq);
+			conversationCache.invalidate(conversationId);
+			log.info("대화 요약 완료: conversationId={}, seq {}까지 요약", conversationId, coversSeq);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private String summarize(List<Message> messages) throws TimeoutException {
+		String prompt = buildSummaryPrompt(messages);
+		long start = System.nanoTime();
+		ChatResponse response;
+		try {
+			response = llmCaller.call(RagStage.MEMORY_SUMMARIZE, new Prompt(prompt), summaryTimeout.toNanos());
+		} finally {
+			metrics.record(RagStage.MEMORY_SUMMARIZE, StageTags.NONE, System.nanoTime() - start);
+		}
+		metrics.recordUsage(RagStage.MEMORY_SUMMARIZE, StageTags.NONE, response);
+		return response.getResult().getOutput().getText();
+	}
+
+	/** 요약 대상 메시지를 "TYPE: 내용" 줄로 이어 요약 프롬프트를 만든다. */
+	static String buildSummaryPrompt(List<Message> messages) {
 		StringBuilder sb = new StringBuilder();
 		for (Message msg : messages) {
 			sb.append(msg.getMessageType().name()).append(": ").append(msg.getText()).append("\n");
 		}
-		String prompt = SUMMARY_PROMPT.formatted(sb.toString());
-		return chatModel.call(new Prompt(prompt)).getResult().getOutput().getText();
+		return SUMMARY_PROMPT.formatted(sb.toString());
 	}
 
+	/**
+	 * @param failures     연속 실패 횟수
+	 * @param delayNanos   이번 대기 시간
+	 * @param retryAtNanos 이 시각({@link System#nanoTime()}) 이후에 다시 요약을 예약한다
+	 */
+	private record Backoff(int failures, long delayNanos, long retryAtNanos) {}
+
 	public static Builder builder() {
 		return new Builder();
 	}
 
 	public static class Builder {
-		private ChatMemoryRepository chatMemoryRepository;
-		private ChatModel chatModel;
+		private AppendOnlyChatMemoryRepository chatMemoryRepository;
+		private HedgedLlmCaller llmCaller;
+		private Duration summaryTimeout = Duration.ofSeconds(30);
 		private int maxMessages = 20;
 		private int keepRecent = 10;
+		private int summaryBatchSize = 50;
+		private Duration summaryBackoff = Duration.ofSeconds(30);
+		private Duration summaryMaxBackoff = Duration.ofMinutes(10);
+		private ConversationCache conversationCache;
+		private ExecutorService summaryExecutor;
+		private RagMetrics metrics;
 
-		public Builder chatMemoryRepository(ChatMemoryRepository chatMemoryRepository) {
+		public Builder chatMemoryRepository(AppendOnlyChatMemoryRepository chatMemoryRepository) {
 			this.chatMemoryRepository = chatMemoryRepository;
 			return this;
 		}
 
-		public Builder chatModel(ChatModel chatModel) {
-			this.chatModel = chatModel;
+		/** 요약 LLM 호출기. */
+		public Builder llmCaller(HedgedLlmCaller llmCaller) {
+			this.llmCaller = llmCaller;
+			return this;
+		}
+
+		/** 요약 LLM 호출 한 번에 허용하는 시간. */
+		public Builder summaryTimeout(Duration summaryTimeout) {
+			this.summaryTimeout = summaryTimeout;
 			return this;
 		}
 
@@ -118,6 +323,37 @@ public class SummarizingChatMemory implements ChatMemory {
 			return this;
 		}
 
+		/** 요약 한 번에 새로 포함할 최대 메시지 수. 밀린 메시지는 여러 번에 나누어 요약한다. */
+		public Builder summaryBatchSize(int summaryBatchSize) {
+			this.summaryBatchSize = summaryBatchSize;
+			return this;
+		}
+
+		/** 요약 실패 후 재시도 대기 시간과, 연속 실패 시 두 배씩 늘어나는 대기 시간의 상한. */
+		public Builder summaryBackoff(Duration summaryBackoff, Duration summaryMaxBackoff) {
+			this.summaryBackoff = summaryBackoff;
+			this.summaryMaxBackoff = summaryMaxBackoff;
+			return this;
+		}
+
+		/** 요약을 실행할 executor. 지정하지 않으면 가상 스레드를 사용한다. */
+		public Builder summaryExecutor(ExecutorService summaryExecutor) {
+			this.summaryExecutor = summaryExecutor;
+			return this;
+		}
+
+		/** 대화 창 캐시. 메시지 추가·조회는 이 캐시를 거친다. */
+		public Builder conversationCache(ConversationCache conversationCache) {
+			this.conversationCache = conversationCache;
+			return this;
+		}
+
+		/** 대화 창 조회·요약 단계 메트릭. */
+		public Builder metrics(RagMetrics metrics) {
+			this.metrics = metrics;
+			return this;
+		}
+
 		public SummarizingChatMemory build() {
 			return new SummarizingChatMemory(this);
 		}
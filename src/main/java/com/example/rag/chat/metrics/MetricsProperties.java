@@ -0,0 +1,20 @@
+package com.example.rag.chat.metrics;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 단계 메트릭 설정.
+ *
+ * @param categories category 태그로 그대로 남길 카테고리. 요청의 카테고리는 사용자가 보내는 값이므로
+ *                   목록에 없는 값은 other로 묶어 시계열 수를 제한한다
+ */
+@ConfigurationProperties(prefix = "rag.metrics")
+public record MetricsProperties(@DefaultValue List<String> categories) {
+
+	public MetricsProperties {
+		categories = List.copyOf(categories);
+	}
+}
@@ -0,0 +1,101 @@
+package com.example.rag.chat.metrics;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * RAG 파이프라인 단계별 지연 시간·후보 수·LLM 토큰 메트릭.
+ * 모든 메트릭은 stage, category, mode 태그를 가진다. ({@link RagStage}, {@link StageTags})
+ * category는 rag.metrics.categories에 있는 값만 그대로 쓰고, 나머지는 other로 기록한다.
+ * (요청 파라미터를 그대로 태그로 쓰면 임의의 값마다 histogram 시계열이 생긴다)
+ *
+ * - rag.stage.duration: 단계 소요 시간 (Prometheus histogram)
+ * - rag.stage.candidates: 단계가 만든 후보 문서 수
+ * - rag.llm.tokens{type=prompt|completion}: 단계별 LLM 토큰 사용량
+ */
+@Component
+public class RagMetrics {
+
+	private static final String OTHER = "other";
+
+	private final MeterRegistry meterRegistry;
+	private final Set<String> categories;
+
+	public RagMetrics(MeterRegistry meterRegistry, MetricsProperties properties) {
+		this.meterRegistry = meterRegistry;
+		this.categories = Set.copyOf(properties.categories());
+	}
+
+	public <T> T time(RagStage stage, StageTags tags, Supplier<T> work) {
+		long start = System.nanoTime();
+		try {
+			return work.get();
+		} finally {
+			record(stage, tags, System.nanoTime() - start);
+		}
+	}
+
+	public void record(RagStage stage, StageTags tags, long nanos) {
+		Timer.builder("rag.stage.duration")
+				.tag("stage", stage.tag())
+				.tag("category", category(tags))
+				.tag("mode", tags.mode())
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordCandidates(RagStage stage, StageTags tags, int count) {
+		DistributionSummary.builder("rag.stage.candidates")
+				.tag("stage", stage.tag())
+				.tag("category", category(tags))
+				.tag("mode", tags.mode())
+				.register(meterRegistry)
+				.record(count);
+	}
+
+	/** 응답 메타데이터에 사용량이 있으면 토큰 수를 기록한다. */
+	public void recordUsage(RagStage stage, StageTags tags, ChatResponse response) {
+		if (response == null || response.getMetadata() == null) {
+			return;
+		}
+		recordUsage(stage, tags, response.getMetadata().getUsage());
+	}
+
+	public void recordUsage(RagStage stage, StageTags tags, Usage usage) {
+		if (usage == null) {
+			return;
+		}
+		tokens(stage, tags, "prompt").increment(nullToZero(usage.getPromptTokens()));
+		tokens(stage, tags, "completion").increment(nullToZero(usage.getCompletionTokens()));
+	}
+
+	private Counter tokens(RagStage stage, StageTags tags, String type) {
+		return Counter.builder("rag.llm.tokens")
+				.tag("stage", stage.tag())
+				.tag("category", category(tags))
+				.tag("mode", tags.mode())
+				.tag("type", type)
+				.register(meterRegistry);
+	}
+
+	/** 설정된 카테고리와 none(카테고리 없음)만 그대로 쓰고 나머지는 other. */
+	private String category(StageTags tags) {
+		String category = tags.category();
+		return category.equals(StageTags.NONE.category()) || categories.contains(category) ? category : OTHER;
+	}
+
+	private static int nullToZero(Integer value) {
+		return value != null ? value : 0;
+	}
+}
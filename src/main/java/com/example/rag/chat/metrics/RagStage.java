@@ -0,0 +1,38 @@
+package com.example.rag.chat.metrics;
+
+/**
+ * 지연 시간과 비용을 측정하는 RAG 파이프라인 단계.
+ */
+public enum RagStage {
+
+	/** LLM 쿼리 리라이팅 (캐시 적중 포함) */
+	QUERY_REWRITE("query_rewrite"),
+	/** 검색 쿼리 임베딩 (임베딩 캐시 적중 포함) */
+	QUERY_EMBEDDING("query_embedding"),
+	/** 벡터 검색 레그 (PARALLEL 모드) */
+	VECTOR_SEARCH("vector_search"),
+	/** 키워드 검색 레그 (PARALLEL 모드) */
+	KEYWORD_SEARCH("keyword_search"),
+	/** 벡터 + 키워드 검색과 RRF 병합을 수행하는 단일 SQL (SINGLE_QUERY 모드) */
+	HYBRID_SEARCH("hybrid_search"),
+	/** Java RRF 병합 (PARALLEL 모드) */
+	RRF_MERGE("rrf_merge"),
+	/** 재순위화 */
+	RERANK("rerank"),
+	/** 대화 창 조회 */
+	MEMORY_LOAD("memory_load"),
+	/** 백그라운드 대화 요약 */
+	MEMORY_SUMMARIZE("memory_summarize"),
+	/** 최종 답변 생성 (스트리밍이면 마지막 토큰까지) */
+	GENERATION("generation");
+
+	private final String tag;
+
+	RagStage(String tag) {
+		this.tag = tag;
+	}
+
+	public String tag() {
+		return tag;
+	}
+}
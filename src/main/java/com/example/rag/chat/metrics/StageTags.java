@@ -0,0 +1,35 @@
+package com.example.rag.chat.metrics;
+
+import java.util.Map;
+
+/**
+ * 단계 메트릭에 붙이는 요청 단위 태그.
+ * ChatService가 advisor 파라미터({@link #CATEGORY}, {@link #MODE})로 넘기고, 각 단계는 context에서 읽는다.
+ *
+ * @param category 검색 카테고리 (없으면 none)
+ * @param mode     sync / stream (요청과 무관한 단계는 none)
+ */
+public record StageTags(String category, String mode) {
+
+	/** advisor context 키 — 카테고리 */
+	public static final String CATEGORY = "rag_category";
+	/** advisor context 키 — 호출 방식 */
+	public static final String MODE = "rag_mode";
+
+	public static final String SYNC = "sync";
+	public static final String STREAM = "stream";
+
+	/** 대화 메모리처럼 카테고리·호출 방식과 무관한 단계용 */
+	public static final StageTags NONE = new StageTags("none", "none");
+
+	public StageTags {
+		category = category == null || category.isBlank() ? "none" : category;
+		mode = mode == null || mode.isBlank() ? "none" : mode;
+	}
+
+	public static StageTags from(Map<String, Object> context) {
+		Object category = context.get(CATEGORY);
+		Object mode = context.get(MODE);
+		return new StageTags(category != null ? category.toString() : null, mode != null ? mode.toString() : null);
+	}
+}
@@ -0,0 +1,292 @@
+package com.example.rag.chat.replica;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 코사인 유사도 HNSW(Hierarchical Navigable Small World) 인덱스.
+ *
+ * 벡터는 정규화하여 {@link OffHeapVectors}에 저장하므로 유사도는 내적이다.
+ * 그래프(층별 이웃 목록)는 힙에 두며, 이웃 선택은 논문의 휴리스틱(다양한 방향의 이웃 우선)을 따른다.
+ *
+ * 삭제는 노드를 표시만 하고 그래프 탐색에는 계속 사용한다. 표시된 노드는 결과에서 제외되며,
+ * 비율이 커지면 호출자가 인덱스를 다시 만든다. ({@link #deletedRatio()})
+ *
+ * 검색은 읽기 잠금, 삽입·삭제는 쓰기 잠금으로 보호한다.
+ */
+final class HnswIndex {
+
+	/** 유사도 내림차순 */
+	private static final Comparator<Hit> BEST_FIRST = Comparator.comparingDouble(Hit::score).reversed();
+	/** 유사도 오름차순 (결과 집합에서 가장 나쁜 후보를 꺼내기 위함) */
+	private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score);
+
+	private final int m;
+	private final int efConstruction;
+	private final boolean simd;
+	private final double levelMultiplier;
+	private final SplittableRandom random = new SplittableRandom(42);
+	private final OffHeapVectors vectors;
+	/** graph.get(node)[level] = 이웃 노드 번호 */
+	private final List<int[][]> graph = new ArrayList<>();
+	private final BitSet deleted = new BitSet();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private int entryPoint = -1;
+	private int maxLevel = -1;
+	private int deletedCount;
+
+	HnswIndex(int dimensions, int initialCapacity, int m, int efConstruction, boolean simd) {
+		this.m = m;
+		this.efConstruction = efConstruction;
+		this.simd = simd;
+		this.levelMultiplier = 1 / Math.log(m);
+		this.vectors = new OffHeapVectors(dimensions, initialCapacity);
+	}
+
+	double deletedRatio() {
+		lock.readLock().lock();
+		try {
+			return vectors.size() == 0 ? 0 : (double) deletedCount / vectors.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 벡터를 삽입하고 노드 번호를 반환한다.
+	 */
+	int insert(float[] vector) {
+		float[] query = VectorMath.normalize(vector);
+		lock.writeLock().lock();
+		try {
+			int node = vectors.add(query);
+			int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+			int[][] links = new int[level + 1][];
+			for (int l = 0; l <= level; l++) {
+				links[l] = new int[0];
+			}
+			graph.add(links);
+
+			if (entryPoint < 0) {
+				entryPoint = node;
+				maxLevel = level;
+				return node;
+			}
+
+			float[] scratch = new float[vectors.dimensions()];
+			Hit entry = new Hit(entryPoint, similarity(query, entryPoint, scratch));
+			for (int l = maxLevel; l > level; l--) {
+				entry = greedy(query, entry, l, scratch);
+			}
+			for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+				List<Hit> candidates = searchLayer(query, entry, efConstruction, l, scratch);
+				int[] selected = selectNeighbors(candidates, maxConnections(l));
+				links[l] = selected;
+				for (int neighbor : selected) {
+					connect(neighbor, node, l, scratch);
+				}
+				entry = candidates.getFirst();
+			}
+
+			if (level > maxLevel) {
+				entryPoint = node;
+				maxLevel = level;
+			}
+			return node;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** 노드를 삭제 표시한다. */
+	void delete(int node) {
+		lock.writeLock().lock();
+		try {
+			if (!deleted.get(node)) {
+				deleted.set(node);
+				deletedCount++;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 유사도가 높은 순으로 최대 k개의 살아 있는 노드를 찾는다.
+	 *
+	 * @param ef 0층 탐색 후보 수 (k보다 작으면 k)
+	 */
+	List<Hit> search(float[] vector, int k, int ef) {
+		float[] query = VectorMath.normalize(vector);
+		lock.readLock().lock();
+		try {
+			if (entryPoint < 0) {
+				return List.of();
+			}
+			float[] scratch = new float[vectors.dimensions()];
+			Hit entry = new Hit(entryPoint, similarity(query, entryPoint, scratch));
+			for (int l = maxLevel; l > 0; l--) {
+				entry = greedy(query, entry, l, scratch);
+			}
+			// 삭제 표시된 노드 비율만큼 후보를 넓혀 결과 수가 줄지 않도록 한다
+			double alive = 1 - (double) deletedCount / vectors.size();
+			int width = (int) Math.ceil(Math.max(ef, k) / Math.max(alive, 0.5));
+			List<Hit> hits = new ArrayList<>(k);
+			for (Hit hit : searchLayer(query, entry, width, 0, scratch)) {
+				if (!deleted.get(hit.node())) {
+					hits.add(hit);
+					if (hits.size() == k) {
+						break;
+					}
+				}
+			}
+			return hits;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private int maxConnections(int level) {
+		return level == 0 ? m * 2 : m;
+	}
+
+	/** 상위 층에서 현재 노드보다 가까운 이웃이 없을 때까지 이동한다. */
+	private Hit greedy(float[] query, Hit entry, int level, float[] scratch) {
+		Hit best = entry;
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			for (int neighbor : neighbors(best.node(), level)) {
+				float score = similarity(query, neighbor, scratch);
+				if (score > best.score()) {
+					best = new Hit(neighbor, score);
+					improved = true;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * 한 층에서 ef개의 근접 후보를 찾는다.
+	 *
+	 * @return 유사도 내림차순 후보
+	 */
+	private List<Hit> searchLayer(float[] query, Hit entry, int ef, int level, float[] scratch) {
+		BitSet visited = new BitSet(vectors.size());
+		visited.set(entry.node());
+		PriorityQueue<Hit> candidates = new PriorityQueue<>(BEST_FIRST);
+		PriorityQueue<Hit> results = new PriorityQueue<>(WORST_FIRST);
+		candidates.add(entry);
+		results.add(entry);
+
+		while (!candidates.isEmpty()) {
+			Hit current = candidates.poll();
+			if (results.size() >= ef && current.score() < results.peek().score()) {
+				break;
+			}
+			for (int neighbor : neighbors(current.node(), level)) {
+				if (visited.get(neighbor)) {
+					continue;
+				}
+				visited.set(neighbor);
+				float score = similarity(query, neighbor, scratch);
+				if (results.size() < ef || score > results.peek().score()) {
+					Hit hit = new Hit(neighbor, score);
+					candidates.add(hit);
+					results.add(hit);
+					if (results.size() > ef) {
+						results.poll();
+					}
+				}
+			}
+		}
+
+		List<Hit> sorted = new ArrayList<>(results);
+		sorted.sort(BEST_FIRST);
+		return sorted;
+	}
+
+	/**
+	 * 이웃 선택 휴리스틱: 후보가 이미 고른 이웃보다 질의 노드에 더 가까울 때만 고른다.
+	 * 자리가 남으면 탈락한 후보를 유사도 순으로 채운다.
+	 *
+	 * @param candidates 유사도 내림차순 후보
+	 */
+	private int[] selectNeighbors(List<Hit> candidates, int max) {
+		List<Hit> selected = new ArrayList<>(max);
+		List<float[]> selectedVectors = new ArrayList<>(max);
+		List<Hit> pruned = new ArrayList<>();
+		for (Hit candidate : candidates) {
+			if (selected.size() >= max) {
+				break;
+			}
+			float[] vector = new float[vectors.dimensions()];
+			vectors.copy(candidate.node(), vector);
+			boolean diverse = true;
+			for (float[] chosen : selectedVectors) {
+				if (VectorMath.dot(vector, chosen, simd) > candidate.score()) {
+					diverse = false;
+					break;
+				}
+			}
+			if (diverse) {
+				selected.add(candidate);
+				selectedVectors.add(vector);
+			} else {
+				pruned.add(candidate);
+			}
+		}
+		for (int i = 0; i < pruned.size() && selected.size() < max; i++) {
+			selected.add(pruned.get(i));
+		}
+		return selected.stream().mapToInt(Hit::node).toArray();
+	}
+
+	/** neighbor의 이웃 목록에 node를 추가하고, 넘치면 neighbor 기준으로 다시 고른다. */
+	private void connect(int neighbor, int node, int level, float[] scratch) {
+		int[][] links = graph.get(neighbor);
+		int[] current = links[level];
+		int[] extended = new int[current.length + 1];
+		System.arraycopy(current, 0, extended, 0, current.length);
+		extended[current.length] = node;
+
+		int max = maxConnections(level);
+		if (extended.length <= max) {
+			links[level] = extended;
+			return;
+		}
+
+		float[] base = new float[vectors.dimensions()];
+		vectors.copy(neighbor, base);
+		List<Hit> candidates = new ArrayList<>(extended.length);
+		for (int candidate : extended) {
+			candidates.add(new Hit(candidate, similarity(base, candidate, scratch)));
+		}
+		candidates.sort(BEST_FIRST);
+		links[level] = selectNeighbors(candidates, max);
+	}
+
+	private int[] neighbors(int node, int level) {
+		int[][] links = graph.get(node);
+		return level < links.length ? links[level] : new int[0];
+	}
+
+	private float similarity(float[] query, int node, float[] scratch) {
+		vectors.copy(node, scratch);
+		return VectorMath.dot(query, scratch, simd);
+	}
+
+	/**
+	 * @param score 코사인 유사도
+	 */
+	record Hit(int node, float score) {
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.rag.chat.replica;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * 고정 차원 벡터를 direct buffer 하나에 연속으로 저장하는 저장소. (노드 i는 [i * dimensions, (i + 1) * dimensions))
+ *
+ * 힙 밖에 두어 GC가 벡터를 스캔·복사하지 않으며, 용량이 차면 두 배 크기로 옮긴다.
+ * 읽기는 {@link #copy}로 호출자의 scratch 배열에 bulk copy한 뒤 배열 내적을 계산한다.
+ * (Java 21에서 MemorySegment는 preview라 Vector API가 direct buffer를 직접 읽을 수 없다)
+ *
+ * 동기화는 호출자({@link HnswIndex})가 담당한다.
+ */
+final class OffHeapVectors {
+
+	private final int dimensions;
+	private FloatBuffer buffer;
+	private int size;
+
+	OffHeapVectors(int dimensions, int initialCapacity) {
+		this.dimensions = dimensions;
+		this.buffer = allocate((long) Math.max(initialCapacity, 16) * dimensions);
+	}
+
+	int dimensions() {
+		return dimensions;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/** 벡터를 추가하고 노드 번호를 반환한다. */
+	int add(float[] vector) {
+		if (vector.length != dimensions) {
+			throw new IllegalArgumentException("벡터 차원이 다릅니다: " + vector.length + " != " + dimensions);
+		}
+		if ((long) (size + 1) * dimensions > buffer.capacity()) {
+			grow();
+		}
+		buffer.put(size * dimensions, vector);
+		return size++;
+	}
+
+	/** 노드 벡터를 scratch로 복사한다. */
+	void copy(int node, float[] scratch) {
+		buffer.get(node * dimensions, scratch, 0, dimensions);
+	}
+
+	private void grow() {
+		long capacity = (long) buffer.capacity() * 2;
+		FloatBuffer grown = allocate(capacity);
+		grown.put(0, buffer, 0, size * dimensions);
+		buffer = grown;
+	}
+
+	private static FloatBuffer allocate(long floats) {
+		if (floats * Float.BYTES > Integer.MAX_VALUE) {
+			throw new IllegalStateException("레플리카 벡터 저장소 크기 한도(2GB)를 넘었습니다.");
+		}
+		return ByteBuffer.allocateDirect((int) (floats * Float.BYTES)).order(ByteOrder.nativeOrder()).asFloatBuffer();
+	}
+}
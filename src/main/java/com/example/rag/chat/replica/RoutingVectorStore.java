@@ -0,0 +1,68 @@
+package com.example.rag.chat.replica;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.advisor.RetrievalRerankAdvisor;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 애플리케이션이 주입받는 기본 VectorStore.
+ * 레플리카가 적재한 카테고리의 검색은 {@link VectorReplica}로, 나머지 검색과 모든 쓰기는 PgVectorStore로 보낸다.
+ */
+@Primary
+@Component
+@RequiredArgsConstructor
+public class RoutingVectorStore implements VectorStore {
+
+	private final PgVectorStore pgVectorStore;
+	private final VectorReplica replica;
+	private final EmbeddingModel embeddingModel;
+
+	/**
+	 * {@code category == '...'} 필터의 카테고리를 레플리카가 적재했으면 레플리카에서 검색한다.
+	 * 쿼리 임베딩은 PgVectorStore와 같은 EmbeddingModel(임베딩 캐시)을 거친다.
+	 */
+	@Override
+	public List<Document> similaritySearch(SearchRequest request) {
+		String category = RetrievalRerankAdvisor.extractCategory(request.getFilterExpression());
+		if (replica.covers(category)) {
+			Optional<List<Document>> results = replica.search(category, embeddingModel.embed(request.getQuery()),
+					request.getTopK(), request.getSimilarityThreshold());
+			if (results.isPresent()) {
+				return results.get();
+			}
+		}
+		return pgVectorStore.similaritySearch(request);
+	}
+
+	@Override
+	public void add(List<Document> documents) {
+		pgVectorStore.add(documents);
+	}
+
+	@Override
+	public void delete(List<String> idList) {
+		pgVectorStore.delete(idList);
+	}
+
+	@Override
+	public void delete(Filter.Expression filterExpression) {
+		pgVectorStore.delete(filterExpression);
+	}
+
+	@Override
+	public <T> Optional<T> getNativeClient() {
+		return pgVectorStore.getNativeClient();
+	}
+}
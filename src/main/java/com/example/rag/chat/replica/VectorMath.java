@@ -0,0 +1,59 @@
+package com.example.rag.chat.replica;
+
+/**
+ * 내적 연산. Vector API 모듈(jdk.incubator.vector)이 로드되어 있으면 {@link SimdDot}을, 없으면 스칼라 루프를 사용한다.
+ * SimdDot은 SIMD 경로가 선택된 경우에만 로드되므로 모듈 없이 실행해도 클래스 로딩 오류가 나지 않는다.
+ * SimdDot은 인큐베이터 모듈이 필요해 별도 소스 세트(src/simd/java)에서 컴파일된다.
+ */
+final class VectorMath {
+
+	private static final boolean SIMD_AVAILABLE =
+			ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private VectorMath() {
+	}
+
+	static boolean simdAvailable() {
+		return SIMD_AVAILABLE;
+	}
+
+	static float dot(float[] a, float[] b, boolean simd) {
+		return simd ? SimdDot.dot(a, b) : scalarDot(a, b);
+	}
+
+	/** 누적기 4개로 덧셈 의존 사슬을 끊어 명령 수준 병렬성을 높인다. */
+	static float scalarDot(float[] a, float[] b) {
+		float s0 = 0;
+		float s1 = 0;
+		float s2 = 0;
+		float s3 = 0;
+		int i = 0;
+		for (int bound = a.length & ~3; i < bound; i += 4) {
+			s0 += a[i] * b[i];
+			s1 += a[i + 1] * b[i + 1];
+			s2 += a[i + 2] * b[i + 2];
+			s3 += a[i + 3] * b[i + 3];
+		}
+		for (; i < a.length; i++) {
+			s0 += a[i] * b[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	/** 단위 벡터로 정규화한 사본. 코사인 유사도를 내적만으로 계산하기 위해 저장 전에 정규화한다. */
+	static float[] normalize(float[] vector) {
+		double norm = 0;
+		for (float v : vector) {
+			norm += v * v;
+		}
+		float[] unit = new float[vector.length];
+		if (norm == 0) {
+			return unit;
+		}
+		float scale = (float) (1 / Math.sqrt(norm));
+		for (int i = 0; i < vector.length; i++) {
+			unit[i] = vector[i] * scale;
+		}
+		return unit;
+	}
+}
@@ -0,0 +1,409 @@
+package com.example.rag.chat.replica;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.document.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.rag.chat.repository.HybridSearchRepository;
+import com.example.rag.chat.repository.VectorReplicaRepository;
+import com.example.rag.chat.repository.VectorReplicaRepository.ChunkVersion;
+import com.example.rag.chat.repository.VectorReplicaRepository.ReplicaRow;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 선택한 카테고리의 vector_store 청크를 JVM 안의 HNSW 인덱스로 복제한 읽기 전용 레플리카.
+ *
+ * 수천 개 규모의 카테고리(FAQ 등)는 DB 왕복 없이 메모리에서 검색하는 편이 빠르다.
+ * 검색은 {@link RoutingVectorStore}를 통해서만 하며, 결과는 PgVectorStore와 같은 형태다.
+ * (score = 코사인 유사도, metadata에 distance = 1 - score)
+ *
+ * 적재·갱신·대조는 모두 단일 작업 스레드에서 순서대로 실행되므로,
+ * 적재 도중 커밋된 문서의 갱신은 적재가 끝난 뒤 적용된다.
+ *
+ * - 적재: 애플리케이션 시작 후 rag.vector-replica.categories의 청크를 읽어 카테고리별 인덱스를 만든다.
+ *   적재가 끝나기 전이나 설정에 없는 카테고리는 {@link #covers}가 false이며 PgVectorStore로 검색한다.
+ * - 갱신: DocumentService가 문서를 등록·수정·삭제하면 커밋 후 {@link #refreshAfterCommit}으로 문서 단위로 갱신한다.
+ *   내용이 그대로인 청크는 metadata만 바꾸고(재색인은 바뀐 청크에만 새 ID를 준다),
+ *   사라진 청크는 삭제 표시, 새 청크와 내용이 바뀐 청크는 삽입한다.
+ *   삭제 표시 비율이 maxDeletedRatio를 넘으면 카테고리를 다시 적재한다.
+ * - 대조: syncInterval마다 카테고리의 청크 버전(md5)을 DB와 비교해 달라진 문서를 갱신한다.
+ *   다른 노드, 평가 실행기, 직접 SQL로 바뀐 청크도 이 주기 안에 반영된다.
+ * - 복구: 카테고리 갱신에 실패하면 그 카테고리만 검색에서 빼고(PgVectorStore로 검색) 백그라운드에서 다시 적재한다.
+ *   다시 적재하지 못하면 다음 대조 주기에 재시도한다.
+ *
+ * 메트릭:
+ * - rag.replica.vectors{category}: 카테고리별 검색 가능한 청크 수
+ * - rag.replica.available{category}: 레플리카 검색 여부 (1 = 레플리카, 0 = 적재 전·복구 중으로 PgVectorStore)
+ * - rag.replica.sync.failures{operation=refresh|rebuild|reconcile}: 동기화 실패 횟수
+ */
+@Slf4j
+@Component
+public class VectorReplica {
+
+	private static final String DOCUMENT_ID = "documentId";
+
+	private final VectorReplicaProperties properties;
+	private final VectorReplicaRepository repository;
+	private final MeterRegistry meterRegistry;
+	private final boolean simd;
+	/** 검색 가능한 카테고리별 인덱스. 적재 전이거나 복구 중인 카테고리는 없다. 교체(재적재)는 통째로 한다. */
+	private final Map<String, CategoryIndex> indexes = new ConcurrentHashMap<>();
+	/** 인덱스를 바꾸는 작업은 모두 이 스레드에서 실행한다. */
+	private final ScheduledExecutorService worker =
+			Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("vector-replica").factory());
+
+	private final Counter refreshFailures;
+	private final Counter rebuildFailures;
+	private final Counter reconcileFailures;
+
+	public VectorReplica(VectorReplicaProperties properties, VectorReplicaRepository repository,
+			MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.repository = repository;
+		this.meterRegistry = meterRegistry;
+		this.simd = properties.simd() && VectorMath.simdAvailable();
+		this.refreshFailures = meterRegistry.counter("rag.replica.sync.failures", "operation", "refresh");
+		this.rebuildFailures = meterRegistry.counter("rag.replica.sync.failures", "operation", "rebuild");
+		this.reconcileFailures = meterRegistry.counter("rag.replica.sync.failures", "operation", "reconcile");
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		if (!enabled()) {
+			return;
+		}
+		if (properties.simd() && !simd) {
+			log.warn("jdk.incubator.vector 모듈이 없어 스칼라 내적을 사용합니다. (--add-modules jdk.incubator.vector)");
+		}
+		for (String category : properties.categories()) {
+			Gauge.builder("rag.replica.vectors", this, replica -> replica.liveCount(category))
+					.tag("category", category)
+					.register(meterRegistry);
+			Gauge.builder("rag.replica.available", this, replica -> replica.covers(category) ? 1 : 0)
+					.tag("category", category)
+					.register(meterRegistry);
+			worker.execute(() -> rebuild(category));
+		}
+		long interval = properties.syncInterval().toMillis();
+		worker.scheduleWithFixedDelay(this::synchronize, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/** 카테고리 검색을 레플리카가 처리할 수 있는지 여부. */
+	public boolean covers(String category) {
+		return category != null && indexes.containsKey(category);
+	}
+
+	/**
+	 * 카테고리 인덱스에서 검색한다. {@link RoutingVectorStore}가 호출한다.
+	 *
+	 * @param embedding 쿼리 임베딩
+	 * @param threshold 최소 코사인 유사도
+	 * @return 적재되지 않은 카테고리면 empty
+	 */
+	Optional<List<Document>> search(String category, float[] embedding, int topK, double threshold) {
+		CategoryIndex index = category != null ? indexes.get(category) : null;
+		if (index == null) {
+			return Optional.empty();
+		}
+		return Optional.of(index.search(embedding, topK, Math.max(properties.efSearch(), topK), threshold));
+	}
+
+	/**
+	 * 현재 트랜잭션이 커밋된 뒤 문서의 청크를 레플리카에 반영하도록 작업 스레드에 넘긴다. (트랜잭션 밖이면 즉시)
+	 * 커밋 전에 반영하면 롤백된 청크가 검색될 수 있다.
+	 */
+	public void refreshAfterCommit(UUID documentId) {
+		if (!enabled()) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			worker.execute(() -> refresh(documentId.toString()));
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				worker.execute(() -> refresh(documentId.toString()));
+			}
+		});
+	}
+
+	/**
+	 * 문서의 청크를 DB에서 다시 읽어 적재된 모든 카테고리에 반영한다. (작업 스레드)
+	 */
+	void refresh(String documentId) {
+		List<ReplicaRow> rows;
+		try {
+			rows = repository.findByDocumentId(documentId);
+		} catch (RuntimeException e) {
+			refreshFailures.increment();
+			// 문서가 들어 있는 카테고리는 삭제된 청크를 돌려줄 수 있으므로 다시 적재할 때까지 검색에서 뺀다
+			// 새 문서면 어느 카테고리에도 없으므로 다음 대조 주기에 반영된다
+			indexes.forEach((category, index) -> {
+				if (index.containsDocument(documentId)) {
+					evict(category, e);
+				}
+			});
+			log.warn("벡터 레플리카 문서 갱신 실패(documentId={}) — 다음 대조 주기에 반영합니다.", documentId, e);
+			return;
+		}
+
+		indexes.forEach((category, index) -> {
+			Map<String, ReplicaRow> current = rows.stream()
+					.filter(row -> category.equals(row.category()))
+					.collect(Collectors.toMap(ReplicaRow::id, Function.identity()));
+			try {
+				index.sync(documentId, current);
+			} catch (RuntimeException e) {
+				refreshFailures.increment();
+				evict(category, e);
+				return;
+			}
+			if (index.deletedRatio() > properties.maxDeletedRatio()) {
+				rebuild(category);
+			}
+		});
+	}
+
+	/**
+	 * 카테고리를 DB에서 다시 적재해 교체한다. (작업 스레드)
+	 * 실패하면 기존 인덱스(없으면 PgVectorStore 검색)를 유지하고 다음 대조 주기에 재시도한다.
+	 */
+	void rebuild(String category) {
+		long start = System.nanoTime();
+		try {
+			List<ReplicaRow> rows = repository.findByCategory(category);
+			CategoryIndex index = new CategoryIndex(rows.size());
+			for (ReplicaRow row : rows) {
+				index.insert(row);
+			}
+			indexes.put(category, index);
+			log.info("벡터 레플리카 적재: category={}, 청크 {}개, {}ms (simd={})",
+					category, index.liveCount(), (System.nanoTime() - start) / 1_000_000, simd);
+		} catch (RuntimeException e) {
+			rebuildFailures.increment();
+			log.warn("벡터 레플리카 적재 실패: category={} — 다음 대조 주기에 다시 시도합니다.", category, e);
+		}
+	}
+
+	/**
+	 * 적재되지 않은 카테고리는 다시 적재하고, 적재된 카테고리는 DB 청크 버전과 대조해 달라진 문서를 갱신한다. (작업 스레드)
+	 */
+	void synchronize() {
+		for (String category : properties.categories()) {
+			CategoryIndex index = indexes.get(category);
+			if (index == null) {
+				rebuild(category);
+				continue;
+			}
+			try {
+				reconcile(category, index);
+			} catch (RuntimeException e) {
+				reconcileFailures.increment();
+				log.warn("벡터 레플리카 대조 실패: category={}", category, e);
+			}
+		}
+	}
+
+	private void reconcile(String category, CategoryIndex index) {
+		List<ChunkVersion> versions = repository.findVersionsByCategory(category);
+		Set<String> changed = index.changedDocuments(versions);
+		if (changed.isEmpty()) {
+			return;
+		}
+		log.info("벡터 레플리카 대조: category={}, 변경 문서 {}개", category, changed.size());
+		if (changed.contains(null)) {
+			// documentId가 없는 청크는 문서 단위로 갱신할 수 없으므로 카테고리를 다시 적재한다
+			rebuild(category);
+			return;
+		}
+		changed.forEach(this::refresh);
+	}
+
+	/** 갱신에 실패한 카테고리를 검색에서 빼고 다시 적재를 예약한다. */
+	private void evict(String category, RuntimeException cause) {
+		indexes.remove(category);
+		log.error("벡터 레플리카 갱신 실패: category={} — 다시 적재할 때까지 PgVectorStore로 검색합니다.", category, cause);
+		worker.execute(() -> rebuild(category));
+	}
+
+	private boolean enabled() {
+		return properties.enabled() && !properties.categories().isEmpty();
+	}
+
+	private int liveCount(String category) {
+		CategoryIndex index = indexes.get(category);
+		return index != null ? index.liveCount() : 0;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		worker.shutdownNow();
+	}
+
+	/**
+	 * 카테고리 하나의 HNSW 인덱스와 노드 ↔ 청크 매핑.
+	 * 쓰기는 작업 스레드에서만 일어나며, 검색은 잠금 없이 매핑을 읽는다.
+	 */
+	private final class CategoryIndex {
+
+		private final int initialCapacity;
+		/** 첫 청크가 들어올 때 임베딩 차원으로 만든다. */
+		private volatile HnswIndex index;
+		private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+		private final Map<String, Chunk> chunks = new ConcurrentHashMap<>();
+		private final Map<String, Set<String>> chunksByDocument = new HashMap<>();
+
+		CategoryIndex(int initialCapacity) {
+			this.initialCapacity = initialCapacity;
+		}
+
+		List<Document> search(float[] embedding, int topK, int ef, double threshold) {
+			HnswIndex current = index;
+			if (current == null) {
+				return List.of();
+			}
+			List<Document> results = new ArrayList<>(topK);
+			for (HnswIndex.Hit hit : current.search(embedding, topK, ef)) {
+				Document document = documents.get(hit.node());
+				if (document == null || hit.score() < threshold) {
+					continue;
+				}
+				Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+				metadata.put(HybridSearchRepository.DISTANCE, 1 - hit.score());
+				results.add(Document.builder()
+						.id(document.getId())
+						.text(document.getText())
+						.metadata(metadata)
+						.score((double) hit.score())
+						.build());
+			}
+			return results;
+		}
+
+		/**
+		 * 문서의 청크를 current와 같게 맞춘다.
+		 *
+		 * @param current 이 카테고리에 속한 문서의 현재 청크 (청크 ID → 행)
+		 */
+		void sync(String documentId, Map<String, ReplicaRow> current) {
+			Set<String> previous = chunksByDocument.getOrDefault(documentId, Set.of());
+			for (String chunkId : List.copyOf(previous)) {
+				if (!current.containsKey(chunkId)) {
+					remove(chunkId);
+				}
+			}
+			for (ReplicaRow row : current.values()) {
+				Chunk chunk = chunks.get(row.id());
+				if (chunk == null) {
+					insert(row);
+				} else if (!documents.get(chunk.node()).getText().equals(row.content())) {
+					// 같은 ID의 내용이 직접 바뀌었으면 임베딩도 다르므로 다시 삽입한다
+					remove(row.id());
+					insert(row);
+				} else {
+					documents.put(chunk.node(), document(row));
+					chunks.put(row.id(), new Chunk(chunk.node(), chunk.documentId(), row.version()));
+				}
+			}
+		}
+
+		void insert(ReplicaRow row) {
+			if (index == null) {
+				index = new HnswIndex(row.embedding().length, initialCapacity, properties.m(),
+						properties.efConstruction(), simd);
+			}
+			int node = index.insert(row.embedding());
+			String documentId = documentId(row);
+			documents.put(node, document(row));
+			chunks.put(row.id(), new Chunk(node, documentId, row.version()));
+			chunksByDocument.computeIfAbsent(documentId, id -> new HashSet<>()).add(row.id());
+		}
+
+		/**
+		 * DB 청크 버전과 비교해 청크가 추가·삭제·변경된 문서를 찾는다.
+		 *
+		 * @return 변경된 문서의 documentId (documentId가 없는 청크가 바뀌었으면 null 포함)
+		 */
+		Set<String> changedDocuments(List<ChunkVersion> versions) {
+			Set<String> changed = new HashSet<>();
+			Set<String> stored = new HashSet<>(versions.size());
+			for (ChunkVersion version : versions) {
+				stored.add(version.id());
+				Chunk chunk = chunks.get(version.id());
+				if (chunk == null || !chunk.version().equals(version.version())) {
+					changed.add(version.documentId());
+				}
+			}
+			chunks.forEach((chunkId, chunk) -> {
+				if (!stored.contains(chunkId)) {
+					changed.add(chunk.documentId());
+				}
+			});
+			return changed;
+		}
+
+		boolean containsDocument(String documentId) {
+			return chunksByDocument.containsKey(documentId);
+		}
+
+		private void remove(String chunkId) {
+			Chunk chunk = chunks.remove(chunkId);
+			index.delete(chunk.node());
+			documents.remove(chunk.node());
+			Set<String> documentChunks = chunksByDocument.get(chunk.documentId());
+			documentChunks.remove(chunkId);
+			if (documentChunks.isEmpty()) {
+				chunksByDocument.remove(chunk.documentId());
+			}
+		}
+
+		int liveCount() {
+			return chunks.size();
+		}
+
+		double deletedRatio() {
+			return index != null ? index.deletedRatio() : 0;
+		}
+
+		private static Document document(ReplicaRow row) {
+			return Document.builder().id(row.id()).text(row.content()).metadata(row.metadata()).build();
+		}
+
+		/** metadata에 documentId가 없으면 null. */
+		private static String documentId(ReplicaRow row) {
+			Object documentId = row.metadata().get(DOCUMENT_ID);
+			return documentId != null ? documentId.toString() : null;
+		}
+	}
+
+	/**
+	 * @param node    HNSW 노드 번호
+	 * @param version md5(content || metadata)
+	 */
+	private record Chunk(int node, String documentId, String version) {
+	}
+}
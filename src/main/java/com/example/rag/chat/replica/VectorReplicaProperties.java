@@ -0,0 +1,31 @@
+package com.example.rag.chat.replica;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * JVM 내 HNSW 벡터 레플리카 설정.
+ *
+ * @param enabled          레플리카 사용 여부
+ * @param categories       레플리카로 검색할 카테고리 (소규모 FAQ 등, 나머지는 PgVectorStore)
+ * @param m                노드당 이웃 수 (0층은 2배)
+ * @param efConstruction   삽입 시 탐색 후보 수
+ * @param efSearch         검색 시 탐색 후보 수 (topK보다 작으면 topK 사용)
+ * @param simd             Vector API(jdk.incubator.vector) 사용 여부 (모듈이 없으면 스칼라 연산)
+ * @param maxDeletedRatio  삭제 표시된 노드 비율이 이 값을 넘으면 카테고리 인덱스를 다시 만든다
+ * @param syncInterval     DB와 청크 버전을 대조하는 주기 (다른 노드·직접 SQL 변경 반영, 실패한 카테고리 재적재)
+ */
+@ConfigurationProperties(prefix = "rag.vector-replica")
+public record VectorReplicaProperties(
+		@DefaultValue("false") boolean enabled,
+		@DefaultValue List<String> categories,
+		@DefaultValue("16") int m,
+		@DefaultValue("100") int efConstruction,
+		@DefaultValue("64") int efSearch,
+		@DefaultValue("true") boolean simd,
+		@DefaultValue("0.3") double maxDeletedRatio,
+		@DefaultValue("30s") Duration syncInterval) {
+}
@@ -0,0 +1,245 @@
+package com.example.rag.chat.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * spring_ai_chat_memory 테이블을 append-only로 사용하는 대화 저장소.
+ *
+ * 기본 JdbcChatMemoryRepository는 saveAll마다 대화 전체를 삭제 후 재삽입하므로
+ * 대화가 길어질수록 턴당 DB 작업이 늘어난다. 이 저장소는:
+ * - 새 메시지만 INSERT 한다. ({@link #append})
+ *   메시지마다 message_id를 기록하고 이미 있는 ID는 건너뛰므로, 같은 메시지를 다시 기록해도 중복되지 않는다.
+ * - 요약은 대체하는 마지막 메시지 순번(covers_seq)과 함께 SYSTEM 행으로 추가한다. ({@link #appendSummary})
+ * - 최신 요약 + 요약 이후 최근 N개만 (conversation_id, seq) 인덱스로 읽는다. ({@link #findWindow})
+ *   요약할 때도 요약 이후 가장 오래된 N개씩만 읽는다. ({@link #findOldest})
+ *
+ * 따라서 턴당 DB 작업은 대화 길이와 무관하게 일정하다.
+ *
+ * 메시지 기록·삭제 시 같은 트랜잭션에서 chat_session 행도 갱신한다. ({@link SessionRepository})
+ */
+@Repository
+@RequiredArgsConstructor
+public class AppendOnlyChatMemoryRepository implements ChatMemoryRepository {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final SessionRepository sessionRepository;
+
+	@Override
+	public List<String> findConversationIds() {
+		return jdbcTemplate.queryForList(
+				"SELECT DISTINCT conversation_id FROM spring_ai_chat_memory", String.class);
+	}
+
+	/** 요약 행을 포함한 전체 이력을 순서대로 조회한다. */
+	@Override
+	public List<Message> findByConversationId(String conversationId) {
+		return jdbcTemplate.query("""
+				SELECT content, type FROM spring_ai_chat_memory
+				WHERE conversation_id = ?
+				ORDER BY seq
+				""",
+				(rs, rowNum) -> toMessage(rs),
+				conversationId);
+	}
+
+	/** ChatMemoryRepository 호환용. 전체 교체가 필요한 경우에만 사용한다. */
+	@Override
+	@Transactional
+	public void saveAll(String conversationId, List<Message> messages) {
+		deleteByConversationId(conversationId);
+		append(conversationId, messages);
+	}
+
+	@Override
+	@Transactional
+	public void deleteByConversationId(String conversationId) {
+		jdbcTemplate.update("DELETE FROM spring_ai_chat_memory WHERE conversation_id = ?", conversationId);
+		sessionRepository.delete(conversationId);
+	}
+
+	/** 메시지를 순서대로 추가하고 세션 행을 갱신한다. 메시지마다 새 ID를 부여한다. */
+	@Transactional
+	public void append(String conversationId, List<Message> messages) {
+		appendNew(conversationId, messages.stream()
+				.map(message -> new NewMessage(UUID.randomUUID(), message))
+				.toList());
+	}
+
+	/**
+	 * 메시지를 순서대로 추가하고 세션 행을 갱신한다.
+	 * 이미 기록된 message_id는 건너뛰고 세션 메시지 수에도 더하지 않으므로, 실패한 기록을 그대로 다시 시도해도 된다.
+	 *
+	 * @return 새로 기록된 메시지 수
+	 */
+	@Transactional
+	public int appendNew(String conversationId, List<NewMessage> messages) {
+		if (messages.isEmpty()) {
+			return 0;
+		}
+		LocalDateTime at = LocalDateTime.now();
+		Timestamp now = Timestamp.valueOf(at);
+		int[][] counts = jdbcTemplate.batchUpdate("""
+				INSERT INTO spring_ai_chat_memory (conversation_id, content, type, "timestamp", message_id)
+				VALUES (?, ?, ?, ?, ?)
+				ON CONFLICT (message_id) DO NOTHING
+				""",
+				messages, messages.size(),
+				(ps, message) -> {
+					ps.setString(1, conversationId);
+					ps.setString(2, message.message().getText());
+					ps.setString(3, message.message().getMessageType().name());
+					ps.setTimestamp(4, now);
+					ps.setObject(5, message.id());
+				});
+
+		List<Message> inserted = new ArrayList<>(messages.size());
+		int i = 0;
+		for (int[] batch : counts) {
+			for (int count : batch) {
+				// 드라이버가 행 수를 알려 주지 않으면(SUCCESS_NO_INFO) 기록된 것으로 본다
+				if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+					inserted.add(messages.get(i).message());
+				}
+				i++;
+			}
+		}
+		if (inserted.isEmpty()) {
+			return 0;
+		}
+
+		String firstUserMessage = inserted.stream()
+				.filter(message -> message.getMessageType() == MessageType.USER)
+				.map(Message::getText)
+				.findFirst()
+				.orElse(null);
+		sessionRepository.touch(conversationId, firstUserMessage, at, inserted.size());
+		return inserted.size();
+	}
+
+	/**
+	 * 요약을 추가한다. coversSeq 이하의 메시지는 이후 창 조회에서 이 요약으로 대체된다.
+	 */
+	public void appendSummary(String conversationId, String content, long coversSeq) {
+		jdbcTemplate.update("""
+				INSERT INTO spring_ai_chat_memory (conversation_id, content, type, "timestamp", covers_seq)
+				VALUES (?, ?, 'SYSTEM', ?, ?)
+				""",
+				conversationId, content, Timestamp.valueOf(LocalDateTime.now()), coversSeq);
+	}
+
+	/**
+	 * 최신 요약과, 요약이 대체하지 않은 메시지 중 최근 limit개를 조회한다.
+	 */
+	public MemoryWindow findWindow(String conversationId, int limit) {
+		return findUnsummarized(conversationId, limit, "DESC");
+	}
+
+	/**
+	 * 최신 요약과, 요약이 대체하지 않은 메시지 중 가장 오래된 limit개를 조회한다.
+	 * 밀린 요약을 한 번에 limit개씩 나누어 처리할 때 사용한다.
+	 */
+	public MemoryWindow findOldest(String conversationId, int limit) {
+		return findUnsummarized(conversationId, limit, "ASC");
+	}
+
+	/** order는 DESC(최근 limit개) 또는 ASC(오래된 limit개) 상수만 받는다. */
+	private MemoryWindow findUnsummarized(String conversationId, int limit, String order) {
+		List<StoredMessage> rows = jdbcTemplate.query("""
+				WITH summary AS (
+				    SELECT seq, content, type, covers_seq
+				    FROM spring_ai_chat_memory
+				    WHERE conversation_id = ? AND covers_seq IS NOT NULL
+				    ORDER BY seq DESC
+				    LIMIT 1
+				)
+				SELECT seq, content, type, covers_seq FROM summary
+				UNION ALL
+				(SELECT seq, content, type, covers_seq
+				 FROM spring_ai_chat_memory
+				 WHERE conversation_id = ?
+				   AND covers_seq IS NULL
+				   AND seq > COALESCE((SELECT covers_seq FROM summary), 0)
+				 ORDER BY seq %s
+				 LIMIT ?)
+				""".formatted(order),
+				(rs, rowNum) -> new StoredMessage(rs.getLong("seq"), toMessage(rs),
+						rs.getObject("covers_seq", Long.class)),
+				conversationId, conversationId, limit);
+
+		StoredMessage summary = null;
+		List<StoredMessage> recent = new ArrayList<>(rows.size());
+		for (StoredMessage row : rows) {
+			if (row.coversSeq() != null) {
+				summary = row;
+			} else {
+				recent.add(row);
+			}
+		}
+		recent.sort((a, b) -> Long.compare(a.seq(), b.seq()));
+		return new MemoryWindow(summary, recent);
+	}
+
+	/** 최신 요약이 대체한 마지막 메시지 순번. 요약이 없으면 0. */
+	public long findCoveredSeq(String conversationId) {
+		List<Long> seqs = jdbcTemplate.queryForList("""
+				SELECT covers_seq FROM spring_ai_chat_memory
+				WHERE conversation_id = ? AND covers_seq IS NOT NULL
+				ORDER BY seq DESC
+				LIMIT 1
+				""",
+				Long.class, conversationId);
+		return seqs.isEmpty() ? 0 : seqs.getFirst();
+	}
+
+	private static Message toMessage(ResultSet rs) throws SQLException {
+		String content = rs.getString("content");
+		return switch (MessageType.valueOf(rs.getString("type"))) {
+			case USER -> new UserMessage(content);
+			case ASSISTANT -> new AssistantMessage(content);
+			case SYSTEM -> new SystemMessage(content);
+			case TOOL -> new ToolResponseMessage(List.of());
+		};
+	}
+
+	/**
+	 * @param id 기록 재시도 시 중복을 막는 메시지 ID (message_id)
+	 */
+	public record NewMessage(UUID id, Message message) {}
+
+	/**
+	 * @param coversSeq 요약 행이면 대체하는 마지막 메시지 순번, 일반 메시지면 null
+	 */
+	public record StoredMessage(long seq, Message message, Long coversSeq) {}
+
+	/**
+	 * @param summary 최신 요약 (없으면 null)
+	 * @param recent  요약 이후 메시지 중 조회한 것 (순번 오름차순)
+	 */
+	public record MemoryWindow(StoredMessage summary, List<StoredMessage> recent) {
+
+		/** 요약이 대체한 마지막 메시지 순번. 요약이 없으면 0. */
+		public long coveredSeq() {
+			return summary != null ? summary.coversSeq() : 0;
+		}
+	}
+}
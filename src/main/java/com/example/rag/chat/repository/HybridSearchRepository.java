@@ -0,0 +1,134 @@
+package com.example.rag.chat.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pgvector.PGvector;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 벡터 검색 + 키워드 검색 + RRF 병합을 SQL 한 번으로 수행하는 저장소.
+ *
+ * CTE 구성:
+ * 1. vector_leg  — HNSW 코사인 거리 상위 K개, 유사도 임계값 적용 후 순위 부여
+ * 2. keyword_leg — tsvector ts_rank 상위 K개 순위 부여
+ * 3. fused       — 두 레그를 FULL OUTER JOIN 하여 Σ 1/(rrfK + rank) 계산
+ *
+ * 카테고리 필터는 두 레그 모두에 generated 컬럼 category로 적용한다.
+ * 한 레그가 느려도 요청 전체가 묶이지 않도록 짧은 트랜잭션 안에서 statement_timeout을 걸고 실행한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HybridSearchRepository {
+
+	/** 벡터 레그로 찾은 문서의 metadata에 담기는 코사인 거리 (PgVectorStore와 동일한 키) */
+	public static final String DISTANCE = "distance";
+	/** 키워드 레그로 찾은 문서의 metadata에 담기는 ts_rank 점수 */
+	public static final String KEYWORD_SCORE = "keywordScore";
+
+	private static final String SQL = """
+			WITH vector_leg AS (
+			    SELECT id, distance, ROW_NUMBER() OVER (ORDER BY distance) AS rank
+			    FROM (
+			        SELECT id, embedding <=> ? AS distance
+			        FROM vector_store
+			        %1$s
+			        ORDER BY distance
+			        LIMIT ?
+			    ) nearest
+			    WHERE distance <= ?
+			),
+			keyword_leg AS (
+			    SELECT id, keyword_score, ROW_NUMBER() OVER (ORDER BY keyword_score DESC) AS rank
+			    FROM (
+			        SELECT id, ts_rank(content_tsv, query) AS keyword_score
+			        FROM vector_store, to_tsquery('simple', ?) query
+			        WHERE %2$s %3$s
+			        ORDER BY keyword_score DESC
+			        LIMIT ?
+			    ) matched
+			),
+			fused AS (
+			    SELECT COALESCE(v.id, k.id) AS id, v.distance, k.keyword_score,
+			           COALESCE(1.0 / (? + v.rank), 0) + COALESCE(1.0 / (? + k.rank), 0) AS rrf_score
+			    FROM vector_leg v
+			    FULL OUTER JOIN keyword_leg k ON v.id = k.id
+			)
+			SELECT s.id, s.content, s.metadata, f.distance, f.keyword_score, f.rrf_score
+			FROM fused f
+			JOIN vector_store s ON s.id = f.id
+			ORDER BY f.rrf_score DESC
+			LIMIT ?
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * 하이브리드 검색 후 RRF로 병합한 상위 topK개 문서를 반환한다.
+	 *
+	 * @param embedding           쿼리 임베딩
+	 * @param query               키워드 검색 쿼리
+	 * @param topK                레그별 후보 수이자 최종 결과 수
+	 * @param similarityThreshold 벡터 레그 최소 유사도 (1 - 코사인 거리)
+	 * @param rrfK                RRF 상수
+	 * @param category            카테고리 필터 (null이면 전체 검색)
+	 * @param timeout             SQL 실행 제한 시간 (넘으면 QueryTimeoutException 등 DataAccessException)
+	 * @return RRF 점수 순 Document 목록 (score = RRF 점수, metadata에 distance / keywordScore 포함)
+	 */
+	public List<Document> search(float[] embedding, String query, int topK, double similarityThreshold,
+			int rrfK, String category, Duration timeout) {
+		String tsQuery = KeywordSearchRepository.buildTsQuery(query);
+		boolean filtered = category != null && !category.isBlank();
+
+		String sql = SQL.formatted(
+				filtered ? "WHERE category = ?" : "",
+				tsQuery.isEmpty() ? "FALSE" : "content_tsv @@ query",
+				filtered ? "AND category = ?" : "");
+
+		List<Object> params = new ArrayList<>();
+		params.add(new PGvector(embedding));
+		if (filtered) {
+			params.add(category);
+		}
+		params.add(topK);
+		params.add(1 - similarityThreshold);
+		params.add(tsQuery);
+		if (filtered) {
+			params.add(category);
+		}
+		params.add(topK);
+		params.add(rrfK);
+		params.add(rrfK);
+		params.add(topK);
+
+		return transactionTemplate.execute(status -> {
+			jdbcTemplate.execute("SET LOCAL statement_timeout = " + Math.max(timeout.toMillis(), 1));
+			return jdbcTemplate.query(sql, (rs, rowNum) -> {
+				Map<String, Object> metadata = MetadataParser.parse(rs.getString("metadata"));
+				double distance = rs.getDouble("distance");
+				if (!rs.wasNull()) {
+					metadata.put(DISTANCE, distance);
+				}
+				double keywordScore = rs.getDouble("keyword_score");
+				if (!rs.wasNull()) {
+					metadata.put(KEYWORD_SCORE, keywordScore);
+				}
+				return Document.builder()
+						.id(rs.getString("id"))
+						.text(rs.getString("content"))
+						.metadata(metadata)
+						.score(rs.getDouble("rrf_score"))
+						.build();
+			}, params.toArray());
+		});
+	}
+}
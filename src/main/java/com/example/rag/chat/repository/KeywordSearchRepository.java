@@ -1,6 +1,10 @@
 package com.example.rag.chat.repository;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.springframework.ai.document.Document;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -11,21 +15,24 @@ import lombok.RequiredArgsConstructor;
 /**
  * tsvector 기반 키워드 검색 저장소.
  * 'simple' 설정으로 한국어 공백 분리 검색을 지원한다.
+ * 카테고리 필터는 generated 컬럼 category와 (category, content_tsv) 복합 GIN 인덱스를 사용한다.
  */
 @Repository
 @RequiredArgsConstructor
 public class KeywordSearchRepository {
 
+	private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{M}\\p{N}]+");
+
 	private final JdbcTemplate jdbcTemplate;
 
 	/**
 	 * 키워드 검색으로 관련 문서를 조회한다.
-	 * 쿼리를 공백으로 분리하여 OR 검색한다.
+	 * 쿼리를 단어로 분리하여 OR 검색한다. ({@link #buildTsQuery})
 	 *
 	 * @param query    검색 쿼리
 	 * @param topK     최대 결과 수
 	 * @param category 카테고리 필터 (null이면 전체 검색)
-	 * @return ts_rank 순으로 정렬된 Document 목록
+	 * @return ts_rank 순으로 정렬된 Document 목록 (metadata에 keywordScore 포함)
 	 */
 	public List<Document> search(String query, int topK, String category) {
 		String tsQuery = buildTsQuery(query);
@@ -38,41 +45,43 @@ public class KeywordSearchRepository {
 
 		if (category != null && !category.isBlank()) {
 			sql = """
-					SELECT id, content, metadata
-					FROM vector_store
-					WHERE content_tsv @@ to_tsquery('simple', ?)
-					  AND metadata->>'category' = ?
-					ORDER BY ts_rank(content_tsv, to_tsquery('simple', ?)) DESC
+					SELECT id, content, metadata, ts_rank(content_tsv, query) AS keyword_score
+					FROM vector_store, to_tsquery('simple', ?) query
+					WHERE content_tsv @@ query
+					  AND category = ?
+					ORDER BY keyword_score DESC
 					LIMIT ?
 					""";
-			params = new Object[]{tsQuery, category, tsQuery, topK};
+			params = new Object[]{tsQuery, category, topK};
 		} else {
 			sql = """
-					SELECT id, content, metadata
-					FROM vector_store
-					WHERE content_tsv @@ to_tsquery('simple', ?)
-					ORDER BY ts_rank(content_tsv, to_tsquery('simple', ?)) DESC
+					SELECT id, content, metadata, ts_rank(content_tsv, query) AS keyword_score
+					FROM vector_store, to_tsquery('simple', ?) query
+					WHERE content_tsv @@ query
+					ORDER BY keyword_score DESC
 					LIMIT ?
 					""";
-			params = new Object[]{tsQuery, tsQuery, topK};
+			params = new Object[]{tsQuery, topK};
 		}
 
 		return jdbcTemplate.query(sql, (rs, rowNum) -> {
-			String id = rs.getString("id");
-			String content = rs.getString("content");
-			Document doc = new Document(id, content, java.util.Map.of());
-			return doc;
+			Map<String, Object> metadata = MetadataParser.parse(rs.getString("metadata"));
+			metadata.put(HybridSearchRepository.KEYWORD_SCORE, rs.getDouble("keyword_score"));
+			return new Document(rs.getString("id"), rs.getString("content"), metadata);
 		}, params);
 	}
 
 	/**
-	 * 공백으로 분리된 단어를 OR(|) 연산자로 결합하여 tsquery 문자열을 생성한다.
+	 * 문자·숫자가 아닌 글자로 단어를 나누고 OR(|) 연산자로 결합하여 tsquery 문자열을 생성한다.
+	 * 문장부호와 tsquery 연산자(&, |, !, (, ), :, ', *, <->)를 단어에 남기면 to_tsquery가 구문 오류를 내므로
+	 * 모두 구분자로 취급한다. ('simple' 설정의 to_tsvector도 같은 글자에서 단어를 나눈다)
 	 */
-	private String buildTsQuery(String query) {
+	static String buildTsQuery(String query) {
 		if (query == null || query.isBlank()) {
 			return "";
 		}
-		String[] words = query.strip().split("\\s+");
-		return String.join(" | ", words);
+		return Arrays.stream(NON_WORD.split(query.strip()))
+				.filter(word -> !word.isEmpty())
+				.collect(Collectors.joining(" | "));
 	}
 }
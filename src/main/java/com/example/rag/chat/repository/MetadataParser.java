@@ -0,0 +1,35 @@
+package com.example.rag.chat.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * vector_store.metadata(json) 컬럼 값을 Document metadata 맵으로 변환한다.
+ * Document는 null 값을 허용하지 않으므로 null 항목은 제외한다.
+ */
+final class MetadataParser {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final TypeReference<HashMap<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+	private MetadataParser() {
+	}
+
+	static Map<String, Object> parse(String json) {
+		if (json == null || json.isBlank()) {
+			return new HashMap<>();
+		}
+		try {
+			HashMap<String, Object> metadata = OBJECT_MAPPER.readValue(json, MAP_TYPE);
+			metadata.values().removeIf(Objects::isNull);
+			return metadata;
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("metadata JSON을 해석할 수 없습니다: " + json, e);
+		}
+	}
+}
@@ -1,8 +1,13 @@
 package com.example.rag.chat.repository;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 import com.example.rag.chat.dto.vo.SessionSummary;
@@ -10,37 +15,118 @@ import com.example.rag.chat.dto.vo.SessionSummary;
 import lombok.RequiredArgsConstructor;
 
 /**
- * SPRING_AI_CHAT_MEMORY 테이블에서 세션 목록을 조회한다.
+ * chat_session 테이블에서 세션 목록을 조회·갱신한다.
+ *
+ * 세션 행은 대화 메모리가 기록될 때 {@link #touch}로 함께 갱신되므로
+ * 목록 조회는 전체 대화 이력을 훑지 않고 (last_active_at, conversation_id) 인덱스로 페이지 크기만큼만 읽는다.
  */
 @Repository
 @RequiredArgsConstructor
 public class SessionRepository {
 
+	private static final int TITLE_MAX_LENGTH = 50;
+
+	private static final RowMapper<SessionSummary> ROW_MAPPER = (rs, rowNum) -> new SessionSummary(
+			rs.getString("conversation_id"),
+			rs.getString("title"),
+			rs.getTimestamp("created_at").toLocalDateTime(),
+			rs.getTimestamp("last_active_at").toLocalDateTime(),
+			rs.getInt("message_count"));
+
 	private final JdbcTemplate jdbcTemplate;
 
 	/**
-	 * 세션 목록 조회. conversation_id별 첫 번째 USER 메시지를 제목으로 사용한다.
-	 * 최신 세션 순으로 정렬.
+	 * 최근 활동 순 세션 목록을 한 페이지 조회한다.
+	 * 제목(첫 USER 메시지)이 없는 세션은 제외한다.
+	 *
+	 * @param cursor 이전 페이지의 마지막 세션 위치 (첫 페이지는 null)
+	 * @param size   페이지 크기
 	 */
-	public List<SessionSummary> findAllSessions() {
-		return jdbcTemplate.query("""
-				SELECT DISTINCT ON (conversation_id)
-				       conversation_id, content, "timestamp"
-				FROM   spring_ai_chat_memory
-				WHERE  type = 'USER'
-				ORDER  BY conversation_id, "timestamp" ASC
+	public SessionPage findPage(Cursor cursor, int size) {
+		List<SessionSummary> rows;
+		if (cursor == null) {
+			rows = jdbcTemplate.query("""
+					SELECT conversation_id, title, created_at, last_active_at, message_count
+					FROM chat_session
+					WHERE title IS NOT NULL
+					ORDER BY last_active_at DESC, conversation_id DESC
+					LIMIT ?
+					""",
+					ROW_MAPPER, size + 1);
+		} else {
+			rows = jdbcTemplate.query("""
+					SELECT conversation_id, title, created_at, last_active_at, message_count
+					FROM chat_session
+					WHERE title IS NOT NULL
+					  AND (last_active_at, conversation_id) < (?, ?)
+					ORDER BY last_active_at DESC, conversation_id DESC
+					LIMIT ?
+					""",
+					ROW_MAPPER, Timestamp.valueOf(cursor.lastActiveAt()), cursor.conversationId(), size + 1);
+		}
+
+		if (rows.size() <= size) {
+			return new SessionPage(rows, null);
+		}
+		List<SessionSummary> page = rows.subList(0, size);
+		SessionSummary last = page.getLast();
+		return new SessionPage(page, new Cursor(last.lastActiveAt(), last.conversationId()));
+	}
+
+	/**
+	 * 메시지가 기록될 때 세션 행을 생성하거나 갱신한다.
+	 * 제목은 처음 기록된 USER 메시지로 정하며 이후에는 바꾸지 않는다.
+	 *
+	 * @param firstUserMessage 이번에 기록된 첫 USER 메시지 (없으면 null)
+	 */
+	public void touch(String conversationId, String firstUserMessage, LocalDateTime at, int messageCount) {
+		Timestamp timestamp = Timestamp.valueOf(at);
+		jdbcTemplate.update("""
+				INSERT INTO chat_session (conversation_id, title, created_at, last_active_at, message_count)
+				VALUES (?, ?, ?, ?, ?)
+				ON CONFLICT (conversation_id) DO UPDATE
+				SET title = COALESCE(chat_session.title, EXCLUDED.title),
+				    last_active_at = EXCLUDED.last_active_at,
+				    message_count = chat_session.message_count + EXCLUDED.message_count
 				""",
-				(rs, rowNum) -> new SessionSummary(
-						rs.getString("conversation_id"),
-						truncate(rs.getString("content"), 50),
-						rs.getTimestamp("timestamp").toLocalDateTime()))
-				.stream()
-				.sorted((a, b) -> b.createdAt().compareTo(a.createdAt()))
-				.toList();
+				conversationId, truncate(firstUserMessage), timestamp, timestamp, messageCount);
+	}
+
+	public void delete(String conversationId) {
+		jdbcTemplate.update("DELETE FROM chat_session WHERE conversation_id = ?", conversationId);
 	}
 
-	private String truncate(String text, int maxLen) {
-		if (text == null) return "";
-		return text.length() <= maxLen ? text : text.substring(0, maxLen) + "...";
+	private String truncate(String text) {
+		if (text == null) return null;
+		return text.length() <= TITLE_MAX_LENGTH ? text : text.substring(0, TITLE_MAX_LENGTH) + "...";
+	}
+
+	/**
+	 * @param nextCursor 다음 페이지 위치 (마지막 페이지면 null)
+	 */
+	public record SessionPage(List<SessionSummary> sessions, Cursor nextCursor) {}
+
+	/**
+	 * keyset 페이지 위치. API에는 불투명한 문자열로 노출한다.
+	 */
+	public record Cursor(LocalDateTime lastActiveAt, String conversationId) {
+
+		public String encode() {
+			String raw = lastActiveAt + "|" + conversationId;
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+		}
+
+		/**
+		 * @throws IllegalArgumentException 형식이 잘못된 경우
+		 */
+		public static Cursor decode(String encoded) {
+			try {
+				String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+				int separator = raw.indexOf('|');
+				return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("잘못된 cursor입니다: " + encoded, e);
+			}
+		}
 	}
 }
@@ -0,0 +1,70 @@
+package com.example.rag.chat.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.pgvector.PGvector;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JVM 내 벡터 레플리카를 채우기 위해 vector_store의 청크를 임베딩과 함께 읽는 저장소.
+ *
+ * 청크 버전은 md5(content || metadata)로, 레플리카가 주기적으로 DB와 대조해
+ * 다른 노드나 직접 SQL로 바뀐 청크를 찾는 데 쓴다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VectorReplicaRepository {
+
+	private static final String SELECT = """
+			SELECT id, content, metadata, category, md5(content || metadata::text) AS version,
+			       embedding::text AS embedding
+			FROM vector_store
+			""";
+
+	private static final RowMapper<ReplicaRow> ROW_MAPPER = (rs, rowNum) -> new ReplicaRow(rs.getString("id"),
+			rs.getString("content"), MetadataParser.parse(rs.getString("metadata")), rs.getString("category"),
+			rs.getString("version"), new PGvector(rs.getString("embedding")).toArray());
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/** 카테고리의 모든 청크. (generated 컬럼 category로 필터) */
+	public List<ReplicaRow> findByCategory(String category) {
+		return jdbcTemplate.query(SELECT + "WHERE category = ?", ROW_MAPPER, category);
+	}
+
+	/** 문서의 모든 청크. 등록·수정·삭제 후 레플리카를 문서 단위로 갱신할 때 사용한다. */
+	public List<ReplicaRow> findByDocumentId(String documentId) {
+		return jdbcTemplate.query(SELECT + "WHERE metadata->>'documentId' = ?", ROW_MAPPER, documentId);
+	}
+
+	/** 카테고리의 청크 버전. 내용과 임베딩은 읽지 않는다. */
+	public List<ChunkVersion> findVersionsByCategory(String category) {
+		return jdbcTemplate.query("""
+				SELECT id, metadata->>'documentId' AS document_id, md5(content || metadata::text) AS version
+				FROM vector_store
+				WHERE category = ?
+				""", (rs, rowNum) -> new ChunkVersion(rs.getString("id"), rs.getString("document_id"),
+				rs.getString("version")), category);
+	}
+
+	/**
+	 * @param category  generated 컬럼 category 값
+	 * @param version   md5(content || metadata)
+	 * @param embedding 저장된 임베딩 (정규화 전)
+	 */
+	public record ReplicaRow(String id, String content, Map<String, Object> metadata, String category,
+			String version, float[] embedding) {
+	}
+
+	/**
+	 * @param documentId metadata의 documentId (없으면 null)
+	 */
+	public record ChunkVersion(String id, String documentId, String version) {
+	}
+}
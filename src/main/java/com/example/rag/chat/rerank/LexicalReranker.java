@@ -0,0 +1,142 @@
+package com.example.rag.chat.rerank;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+
+/**
+ * 네트워크 호출 없이 CPU만으로 동작하는 재순위화 전략.
+ *
+ * 후보 집합 안에서 BM25 점수를 계산하고 RRF 점수, 벡터 유사도와 가중 합산한다.
+ * 한국어 조사·어미 변화("환불은" / "환불")에 강하도록 단어 대신 단어 내 문자 bigram을 term으로 사용한다.
+ *
+ * score = 0.5 × BM25/max(BM25) + 0.3 × RRF/max(RRF) + 0.2 × (1 − cosine distance)
+ */
+@Component
+public class LexicalReranker implements Reranker {
+
+	public static final String NAME = "local";
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private static final double LEXICAL_WEIGHT = 0.5;
+	private static final double RRF_WEIGHT = 0.3;
+	private static final double VECTOR_WEIGHT = 0.2;
+
+	@Override
+	public String name() {
+		return NAME;
+	}
+
+	@Override
+	public List<Document> rerank(String query, List<Document> candidates, int topN) {
+		Set<Integer> queryTerms = new HashSet<>(terms(query));
+		int n = candidates.size();
+
+		// 후보별 term 빈도와 문서 길이, 후보 집합 내 문서 빈도
+		List<Map<Integer, Integer>> termFrequencies = new ArrayList<>(n);
+		int[] lengths = new int[n];
+		Map<Integer, Integer> documentFrequencies = new HashMap<>();
+		long totalLength = 0;
+
+		for (int i = 0; i < n; i++) {
+			List<Integer> docTerms = terms(candidates.get(i).getText());
+			Map<Integer, Integer> tf = new HashMap<>();
+			for (Integer term : docTerms) {
+				if (queryTerms.contains(term)) {
+					tf.merge(term, 1, Integer::sum);
+				}
+			}
+			for (Integer term : tf.keySet()) {
+				documentFrequencies.merge(term, 1, Integer::sum);
+			}
+			termFrequencies.add(tf);
+			lengths[i] = docTerms.size();
+			totalLength += docTerms.size();
+		}
+
+		double avgLength = n == 0 ? 0 : Math.max(1.0, (double) totalLength / n);
+		double[] bm25 = new double[n];
+		double maxBm25 = 0;
+		double maxRrf = 0;
+
+		for (int i = 0; i < n; i++) {
+			double score = 0;
+			for (Map.Entry<Integer, Integer> e : termFrequencies.get(i).entrySet()) {
+				int df = documentFrequencies.get(e.getKey());
+				double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+				double tf = e.getValue();
+				score += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[i] / avgLength));
+			}
+			bm25[i] = score;
+			maxBm25 = Math.max(maxBm25, score);
+			maxRrf = Math.max(maxRrf, rrfScore(candidates.get(i)));
+		}
+
+		List<Scored> scored = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			Document doc = candidates.get(i);
+			double lexical = maxBm25 > 0 ? bm25[i] / maxBm25 : 0;
+			double rrf = maxRrf > 0 ? rrfScore(doc) / maxRrf : 0;
+			scored.add(new Scored(doc, LEXICAL_WEIGHT * lexical + RRF_WEIGHT * rrf + VECTOR_WEIGHT * vectorSimilarity(doc)));
+		}
+
+		return scored.stream()
+				.sorted(Comparator.comparingDouble(Scored::score).reversed())
+				.limit(topN)
+				.map(Scored::document)
+				.toList();
+	}
+
+	/**
+	 * 텍스트를 단어(문자·숫자 연속열)로 나누고 각 단어의 문자 bigram을 정수로 압축해 반환한다.
+	 * 한 글자 단어는 그 문자 자체를 term으로 사용한다.
+	 */
+	static List<Integer> terms(String text) {
+		List<Integer> terms = new ArrayList<>();
+		if (text == null) {
+			return terms;
+		}
+		int wordStart = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (inWord && wordStart < 0) {
+				wordStart = i;
+			} else if (!inWord && wordStart >= 0) {
+				addWordTerms(text, wordStart, i, terms);
+				wordStart = -1;
+			}
+		}
+		return terms;
+	}
+
+	private static void addWordTerms(String text, int start, int end, List<Integer> terms) {
+		if (end - start == 1) {
+			terms.add((int) Character.toLowerCase(text.charAt(start)));
+			return;
+		}
+		for (int i = start; i < end - 1; i++) {
+			terms.add((Character.toLowerCase(text.charAt(i)) << 16) | Character.toLowerCase(text.charAt(i + 1)));
+		}
+	}
+
+	private static double rrfScore(Document doc) {
+		return doc.getScore() != null ? doc.getScore() : 0;
+	}
+
+	private static double vectorSimilarity(Document doc) {
+		Object distance = doc.getMetadata().get("distance");
+		return distance instanceof Number d ? 1 - d.doubleValue() : 0;
+	}
+
+	private record Scored(Document document, double score) {
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.rag.chat.rerank;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.budget.HedgedLlmCaller;
+import com.example.rag.chat.budget.LatencyBudgetController;
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.metrics.RagStage;
+import com.example.rag.chat.metrics.StageTags;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LLM으로 문서 관련성을 재평가하는 재순위화 전략.
+ * 후보를 200자로 잘라 번호 목록으로 전달하고, 응답의 번호 순서대로 문서를 선택한다.
+ * 토큰 사용량은 rag.llm.tokens{stage=rerank}로 기록한다.
+ * 호출은 배정된 시간 안에서 헤지 호출하며({@link HedgedLlmCaller}), 시간을 넘기면 RRF 순서를 유지한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LlmReranker implements Reranker {
+
+	public static final String NAME = "llm";
+
+	private static final String RERANK_PROMPT = """
+			당신은 문서 관련성 평가 전문가입니다.
+			사용자 질문과 검색된 문서 목록이 주어집니다.
+			각 문서의 관련성을 평가하고, 가장 관련성 높은 문서의 번호를 순서대로 나열하세요.
+
+			규칙:
+			1. 관련성이 높은 순서대로 문서 번호만 쉼표로 구분하여 출력하세요.
+			2. 관련 없는 문서는 제외하세요.
+			3. 최대 %d개까지만 선택하세요.
+			4. 숫자와 쉼표만 출력하세요. 설명은 금지입니다.
+
+			사용자 질문: %s
+
+			검색된 문서 목록:
+			%s
+			""";
+
+	private final HedgedLlmCaller llmCaller;
+	private final LatencyBudgetController budgetController;
+	private final RagMetrics metrics;
+
+	@Override
+	public String name() {
+		return NAME;
+	}
+
+	@Override
+	public List<Document> rerank(String query, List<Document> candidates, int topN) {
+		return rerank(query, candidates, topN, StageTags.NONE, budgetController.rerankTimeoutNanos(null));
+	}
+
+	@Override
+	public List<Document> rerank(String query, List<Document> candidates, int topN, StageTags tags,
+			long timeoutNanos) {
+		StringBuilder docList = new StringBuilder();
+		for (int i = 0; i < candidates.size(); i++) {
+			docList.append(String.format("[%d] %s\n", i + 1,
+					truncate(candidates.get(i).getText(), 200)));
+		}
+
+		String prompt = String.format(RERANK_PROMPT, topN, query, docList);
+
+		try {
+			ChatResponse chatResponse = llmCaller.call(RagStage.RERANK, new Prompt(prompt), timeoutNanos);
+			metrics.recordUsage(RagStage.RERANK, tags, chatResponse);
+			String response = chatResponse.getResult().getOutput().getText().trim();
+			log.info("재순위화 LLM 응답: {}", response);
+
+			return Arrays.stream(response.split("[,\\s]+"))
+					.map(String::trim)
+					.filter(s -> s.matches("\\d+"))
+					.map(Integer::parseInt)
+					.filter(idx -> idx >= 1 && idx <= candidates.size())
+					.distinct()
+					.limit(topN)
+					.map(idx -> candidates.get(idx - 1))
+					.toList();
+		} catch (TimeoutException e) {
+			budgetController.recordFallback(RagStage.RERANK);
+			log.warn("재순위화 시간 초과, 원본 순서 유지: {}", e.getMessage());
+			return candidates.stream().limit(topN).toList();
+		} catch (Exception e) {
+			log.warn("재순위화 실패, 원본 순서 유지: {}", e.getMessage());
+			return candidates.stream().limit(topN).toList();
+		}
+	}
+
+	private static String truncate(String text, int maxLength) {
+		if (text == null || text.length() <= maxLength) {
+			return text;
+		}
+		return text.substring(0, maxLength) + "...";
+	}
+}
@@ -0,0 +1,22 @@
+package com.example.rag.chat.rerank;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 재순위화 전략 설정.
+ *
+ * @param defaultStrategy 카테고리별 설정이 없을 때 사용할 전략 이름 (local, llm)
+ * @param categories      카테고리 → 전략 이름
+ */
+@ConfigurationProperties(prefix = "rag.rerank")
+public record RerankProperties(
+		@DefaultValue(LexicalReranker.NAME) String defaultStrategy,
+		Map<String, String> categories) {
+
+	public RerankProperties {
+		categories = categories != null ? Map.copyOf(categories) : Map.of();
+	}
+}
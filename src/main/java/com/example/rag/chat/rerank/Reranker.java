@@ -0,0 +1,39 @@
+package com.example.rag.chat.rerank;
+
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+
+import com.example.rag.chat.metrics.StageTags;
+
+/**
+ * 검색 후보 재순위화 전략.
+ *
+ * 후보 {@link Document}의 score에는 RRF 점수가, 벡터 검색으로 찾은 후보의
+ * metadata "distance"에는 코사인 거리가 담겨 있다.
+ */
+public interface Reranker {
+
+	/** 설정에서 전략을 선택할 때 사용하는 이름. */
+	String name();
+
+	/**
+	 * 후보를 관련성 순으로 재정렬하여 상위 topN개를 반환한다.
+	 *
+	 * @param query      검색 쿼리
+	 * @param candidates RRF 점수 순으로 정렬된 후보
+	 * @param topN       반환할 최대 문서 수
+	 */
+	List<Document> rerank(String query, List<Document> candidates, int topN);
+
+	/**
+	 * 요청 태그와 배정된 시간 안에서 재순위화한다.
+	 * LLM을 호출하는 전략은 토큰 사용량을 태그별로 기록하고, 시간 안에 끝나지 않으면 RRF 순서를 반환한다.
+	 *
+	 * @param timeoutNanos 재순위화에 배정된 시간
+	 */
+	default List<Document> rerank(String query, List<Document> candidates, int topN, StageTags tags,
+			long timeoutNanos) {
+		return rerank(query, candidates, topN);
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.rag.chat.rerank;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.budget.LatencyBudget;
+import com.example.rag.chat.budget.LatencyBudgetController;
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.metrics.RagStage;
+import com.example.rag.chat.metrics.StageTags;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 카테고리별로 설정된 {@link Reranker}를 선택해 실행하고 소요 시간을 기록한다.
+ * 소요 시간은 지연 예산 판단을 위해 {@link LatencyBudgetController}에도 전략별로 전달한다.
+ *
+ * 메트릭: rag.rerank.duration{strategy}, rag.stage.duration{stage=rerank}
+ */
+@Slf4j
+@Component
+public class RerankerSelector {
+
+	private final Map<String, Reranker> rerankers;
+	private final RerankProperties properties;
+	private final RagMetrics metrics;
+	private final LatencyBudgetController budgetController;
+	private final MeterRegistry meterRegistry;
+
+	public RerankerSelector(List<Reranker> rerankers, RerankProperties properties, RagMetrics metrics,
+			LatencyBudgetController budgetController, MeterRegistry meterRegistry) {
+		this.rerankers = rerankers.stream().collect(Collectors.toMap(Reranker::name, Function.identity()));
+		this.properties = properties;
+		this.metrics = metrics;
+		this.budgetController = budgetController;
+		this.meterRegistry = meterRegistry;
+
+		// 존재하지 않는 전략 이름은 기동 시점에 실패시킨다
+		resolve(properties.defaultStrategy());
+		properties.categories().values().forEach(this::resolve);
+	}
+
+	/**
+	 * 카테고리에 맞는 전략으로 후보를 재순위화한다.
+	 *
+	 * @param category 카테고리 (null이면 기본 전략)
+	 * @param tags     단계 메트릭 태그
+	 * @param budget   요청 예산 (없으면 전체 예산 기준으로 시간을 배정)
+	 */
+	public List<Document> rerank(String query, List<Document> candidates, int topN, String category,
+			StageTags tags, LatencyBudget budget) {
+		Reranker reranker = select(category);
+		Timer.Sample sample = Timer.start(meterRegistry);
+		List<Document> reranked = reranker.rerank(query, candidates, topN, tags,
+				budgetController.rerankTimeoutNanos(budget));
+		long nanos = sample.stop(Timer.builder("rag.rerank.duration")
+				.tag("strategy", reranker.name())
+				.register(meterRegistry));
+		metrics.record(RagStage.RERANK, tags, nanos);
+		budgetController.observeRerank(reranker.name(), nanos);
+		log.info("재순위화({}): {}개 → {}개, {}ms", reranker.name(), candidates.size(), reranked.size(), nanos / 1_000_000);
+		return reranked;
+	}
+
+	/** 카테고리에 적용될 전략 이름. */
+	public String strategyFor(String category) {
+		return select(category).name();
+	}
+
+	Reranker select(String category) {
+		String strategy = category != null
+				? properties.categories().getOrDefault(category, properties.defaultStrategy())
+				: properties.defaultStrategy();
+		return resolve(strategy);
+	}
+
+	private Reranker resolve(String strategy) {
+		Reranker reranker = rerankers.get(strategy);
+		if (reranker == null) {
+			throw new IllegalStateException("알 수 없는 재순위화 전략입니다: " + strategy);
+		}
+		return reranker;
+	}
+}
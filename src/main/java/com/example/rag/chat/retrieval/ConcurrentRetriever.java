@@ -0,0 +1,146 @@
+package com.example.rag.chat.retrieval;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.metrics.RagStage;
+import com.example.rag.chat.metrics.StageTags;
+import com.example.rag.chat.repository.KeywordSearchRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 벡터 검색과 키워드 검색을 가상 스레드에서 동시에 실행하는 검색 엔진.
+ *
+ * 각 레그는 검색 시작 시점 기준의 개별 타임아웃을 가진다.
+ * 타임아웃되거나 실패한 레그는 버리고, 완료된 레그의 결과만으로 RRF 병합이 진행되도록 한다.
+ *
+ * 메트릭:
+ * - rag.retrieval.leg{leg, outcome}: 레그별 completed / timeout / failed 횟수
+ * - rag.retrieval.leg.duration{leg}: 레그별 실제 소요 시간 (드롭된 레그 포함)
+ * - rag.stage.duration{stage=query_embedding|vector_search|keyword_search}, rag.stage.candidates
+ *
+ * 벡터 레그는 쿼리를 먼저 임베딩해 임베딩 캐시를 채운 뒤 검색하므로,
+ * VectorStore 내부의 임베딩은 캐시에서 응답되어 임베딩과 검색 시간을 나눠 기록할 수 있다.
+ */
+@Slf4j
+@Component
+public class ConcurrentRetriever {
+
+	private final VectorStore vectorStore;
+	private final EmbeddingModel embeddingModel;
+	private final KeywordSearchRepository keywordSearchRepository;
+	private final RetrievalProperties properties;
+	private final RagMetrics metrics;
+	private final MeterRegistry meterRegistry;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	public ConcurrentRetriever(VectorStore vectorStore, EmbeddingModel embeddingModel,
+			KeywordSearchRepository keywordSearchRepository, RetrievalProperties properties, RagMetrics metrics,
+			MeterRegistry meterRegistry) {
+		this.vectorStore = vectorStore;
+		this.embeddingModel = embeddingModel;
+		this.keywordSearchRepository = keywordSearchRepository;
+		this.properties = properties;
+		this.metrics = metrics;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * 두 검색 레그를 동시에 실행하고, 각 레그의 타임아웃 안에 도착한 결과를 반환한다.
+	 *
+	 * @param vectorRequest 벡터 검색 요청
+	 * @param query         키워드 검색 쿼리
+	 * @param topK          키워드 검색 최대 결과 수
+	 * @param category      키워드 검색 카테고리 필터 (null이면 전체 검색)
+	 * @param tags          단계 메트릭 태그
+	 */
+	public RetrievalResult retrieve(SearchRequest vectorRequest, String query, int topK, String category,
+			StageTags tags) {
+		long startNanos = System.nanoTime();
+
+		Future<List<Document>> vectorFuture = submit(Leg.VECTOR, () -> {
+			metrics.time(RagStage.QUERY_EMBEDDING, tags, () -> embeddingModel.embed(vectorRequest.getQuery()));
+			return recordLeg(RagStage.VECTOR_SEARCH, tags, () -> vectorStore.similaritySearch(vectorRequest));
+		});
+		Future<List<Document>> keywordFuture = submit(Leg.KEYWORD, () -> recordLeg(RagStage.KEYWORD_SEARCH, tags,
+				() -> keywordSearchRepository.search(query, topK, category)));
+
+		List<Document> vectorResults = await(Leg.VECTOR, vectorFuture, properties.vectorTimeout(), startNanos);
+		List<Document> keywordResults = await(Leg.KEYWORD, keywordFuture, properties.keywordTimeout(), startNanos);
+
+		return new RetrievalResult(vectorResults, keywordResults);
+	}
+
+	private Future<List<Document>> submit(Leg leg, Callable<List<Document>> search) {
+		Timer timer = Timer.builder("rag.retrieval.leg.duration")
+				.tag("leg", leg.tag)
+				.register(meterRegistry);
+		return executor.submit(() -> timer.recordCallable(search));
+	}
+
+	private List<Document> recordLeg(RagStage stage, StageTags tags, Supplier<List<Document>> search) {
+		List<Document> results = metrics.time(stage, tags, search);
+		metrics.recordCandidates(stage, tags, results.size());
+		return results;
+	}
+
+	private List<Document> await(Leg leg, Future<List<Document>> future, Duration timeout, long startNanos) {
+		long remainingNanos = timeout.toNanos() - (System.nanoTime() - startNanos);
+		try {
+			List<Document> results = future.get(Math.max(remainingNanos, 0), TimeUnit.NANOSECONDS);
+			record(leg, "completed");
+			return results;
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			log.warn("{} 검색 타임아웃({}ms) — 결과 제외", leg.tag, timeout.toMillis());
+			record(leg, "timeout");
+		} catch (ExecutionException e) {
+			log.warn("{} 검색 실패 — 결과 제외: {}", leg.tag, e.getCause().getMessage());
+			record(leg, "failed");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			record(leg, "failed");
+		}
+		return List.of();
+	}
+
+	private void record(Leg leg, String outcome) {
+		meterRegistry.counter("rag.retrieval.leg", "leg", leg.tag, "outcome", outcome).increment();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private enum Leg {
+		VECTOR("vector"),
+		KEYWORD("keyword");
+
+		private final String tag;
+
+		Leg(String tag) {
+			this.tag = tag;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.rag.chat.retrieval;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 하이브리드 검색 설정.
+ *
+ * @param mode                검색 실행 방식
+ * @param vectorTimeout       벡터 검색 레그 타임아웃 (검색 시작 시점 기준, PARALLEL 모드)
+ * @param keywordTimeout      키워드 검색 레그 타임아웃 (검색 시작 시점 기준, PARALLEL 모드)
+ * @param singleQueryTimeout  SINGLE_QUERY 모드의 SQL statement_timeout (초과하거나 실패하면 PARALLEL 경로로 재검색)
+ * @param searchTopK          레그별 검색 후보 수이자 RRF 병합 후 남길 후보 수
+ * @param similarityThreshold 벡터 검색 코사인 유사도 하한
+ * @param rrfK                RRF 상수 (score = Σ 1/(rrfK + rank))
+ * @param rerankTopN          재순위화 후 컨텍스트에 넣을 문서 수 (후보가 이 수 이하면 재순위화 생략)
+ */
+@ConfigurationProperties(prefix = "rag.retrieval")
+public record RetrievalProperties(
+		@DefaultValue("single-query") Mode mode,
+		@DefaultValue("3s") Duration vectorTimeout,
+		@DefaultValue("2s") Duration keywordTimeout,
+		@DefaultValue("2s") Duration singleQueryTimeout,
+		@DefaultValue("10") int searchTopK,
+		@DefaultValue("0.3") double similarityThreshold,
+		@DefaultValue("60") int rrfK,
+		@DefaultValue("5") int rerankTopN) {
+
+	public enum Mode {
+		/** 벡터/키워드 검색과 RRF 병합을 SQL 한 번으로 수행 ({@link SingleQueryRetriever}) */
+		SINGLE_QUERY,
+		/** 두 레그를 별도 쿼리로 동시에 실행하고 Java에서 RRF 병합 ({@link ConcurrentRetriever}) */
+		PARALLEL
+	}
+}
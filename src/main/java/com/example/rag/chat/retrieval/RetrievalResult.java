@@ -0,0 +1,14 @@
+package com.example.rag.chat.retrieval;
+
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * 레그별 검색 결과. 타임아웃/실패한 레그는 빈 목록이다.
+ *
+ * @param vectorResults  벡터 검색 결과 (유사도 순)
+ * @param keywordResults 키워드 검색 결과 (ts_rank 순)
+ */
+public record RetrievalResult(List<Document> vectorResults, List<Document> keywordResults) {
+}
@@ -0,0 +1,57 @@
+package com.example.rag.chat.retrieval;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.metrics.RagStage;
+import com.example.rag.chat.metrics.StageTags;
+import com.example.rag.chat.repository.HybridSearchRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 쿼리를 임베딩한 뒤 {@link HybridSearchRepository}로 검색과 RRF 병합을 DB 왕복 한 번에 수행한다.
+ *
+ * 메트릭:
+ * - rag.retrieval.single-query.duration (임베딩 제외 SQL 소요 시간)
+ * - rag.stage.duration{stage=query_embedding|hybrid_search}, rag.stage.candidates{stage=hybrid_search}
+ */
+@Slf4j
+@Component
+public class SingleQueryRetriever {
+
+	private final EmbeddingModel embeddingModel;
+	private final HybridSearchRepository hybridSearchRepository;
+	private final RagMetrics metrics;
+	private final Timer searchTimer;
+
+	public SingleQueryRetriever(EmbeddingModel embeddingModel, HybridSearchRepository hybridSearchRepository,
+			RagMetrics metrics, MeterRegistry meterRegistry) {
+		this.embeddingModel = embeddingModel;
+		this.hybridSearchRepository = hybridSearchRepository;
+		this.metrics = metrics;
+		this.searchTimer = Timer.builder("rag.retrieval.single-query.duration").register(meterRegistry);
+	}
+
+	/**
+	 * @param timeout SQL 제한 시간
+	 * @return RRF 점수 순으로 병합된 상위 topK개 문서 (score = RRF 점수)
+	 * @throws org.springframework.dao.DataAccessException SQL이 실패하거나 시간 안에 끝나지 않은 경우
+	 */
+	public List<Document> retrieve(String query, int topK, double similarityThreshold, int rrfK, String category,
+			Duration timeout, StageTags tags) {
+		float[] embedding = metrics.time(RagStage.QUERY_EMBEDDING, tags, () -> embeddingModel.embed(query));
+		List<Document> results = metrics.time(RagStage.HYBRID_SEARCH, tags, () -> searchTimer.record(
+				() -> hybridSearchRepository.search(embedding, query, topK, similarityThreshold, rrfK, category,
+						timeout)));
+		metrics.recordCandidates(RagStage.HYBRID_SEARCH, tags, results.size());
+		return results;
+	}
+}
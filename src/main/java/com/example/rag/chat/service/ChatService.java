@@ -1,51 +1,146 @@
 package com.example.rag.chat.service;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
+import static com.example.rag.chat.advisor.QueryRewriteAdvisor.CACHE_BYPASS;
 import static com.example.rag.chat.advisor.RetrievalRerankAdvisor.FILTER_EXPRESSION;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.ChatClient.AdvisorSpec;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.stereotype.Service;
 
-import lombok.RequiredArgsConstructor;
+import com.example.rag.chat.budget.LatencyBudget;
+import com.example.rag.chat.budget.LatencyBudgetController;
+import com.example.rag.chat.cache.CacheBypassProperties;
+import com.example.rag.chat.cache.SemanticAnswerCache;
+import com.example.rag.chat.cache.SemanticAnswerCache.Lookup;
+import com.example.rag.chat.metrics.StageTags;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 /**
  * 채팅 서비스.
  * {@link ChatClient}를 통해 LLM에 질문을 전달하고 응답을 반환한다.
  * conversationId로 세션별 대화 이력을 구분한다.
+ *
+ * 대화의 첫 질문은 advisor 체인을 타기 전에 {@link SemanticAnswerCache}를 조회하고,
+ * 적중하면 리라이팅·검색·재순위화·생성을 생략한 채 캐시된 답변을 대화 이력에 기록하고 반환한다.
+ * 이전 대화가 있는 턴은 답변이 이력에 따라 달라지므로 캐시를 사용하지 않는다.
+ * 캐시 우회를 요청하면({@link CacheBypassProperties}) 답변 캐시와 리라이팅 캐시를 모두 건너뛴다.
+ *
+ * 스트리밍 경로의 블로킹 단계(캐시 조회, advisor before)는 요청 스레드가 아닌 advisor 스케줄러에서 실행되며,
+ * 구독부터 첫 토큰까지의 시간을 rag.chat.ttft{source=cache|model}로 기록한다.
+ *
+ * 요청 시작 시점에 지연 예산({@link LatencyBudget})을 만들어 advisor 체인에 전달한다.
  */
 @Service
-@RequiredArgsConstructor
 public class ChatService {
 
 	private final ChatClient chatClient;
 	private final ChatMemory chatMemory;
+	private final SemanticAnswerCache answerCache;
+	private final LatencyBudgetController budgetController;
+	private final Scheduler advisorScheduler;
+	private final boolean bypassAllowed;
+	private final Timer cachedTimeToFirstToken;
+	private final Timer modelTimeToFirstToken;
+
+	public ChatService(ChatClient chatClient, ChatMemory chatMemory, SemanticAnswerCache answerCache,
+			LatencyBudgetController budgetController, Scheduler advisorScheduler, CacheBypassProperties bypassProperties,
+			MeterRegistry meterRegistry) {
+		this.chatClient = chatClient;
+		this.chatMemory = chatMemory;
+		this.answerCache = answerCache;
+		this.budgetController = budgetController;
+		this.advisorScheduler = advisorScheduler;
+		this.bypassAllowed = bypassProperties.enabled();
+		this.cachedTimeToFirstToken = timeToFirstToken(meterRegistry, "cache");
+		this.modelTimeToFirstToken = timeToFirstToken(meterRegistry, "model");
+	}
 
 	/**
 	 * 동기 방식으로 질문에 대한 답변을 반환한다.
+	 *
+	 * @param cacheBypass 답변·리라이팅 캐시를 우회할지 여부 (허용된 경우에만 적용)
 	 */
-	public String ask(String question, String conversationId, String category) {
-		return chatClient.prompt()
+	public String ask(String question, String conversationId, String category, boolean cacheBypass) {
+		LatencyBudget budget = budgetController.start();
+		boolean bypass = cacheBypass && bypassAllowed;
+		Lookup lookup = bypass ? null : lookupAnswer(question, conversationId, category);
+		if (lookup != null && lookup.answer().isPresent()) {
+			return replay(question, conversationId, lookup.answer().get());
+		}
+
+		long start = System.nanoTime();
+		String answer = chatClient.prompt()
 				.user(question)
-				.advisors(advisorParams(conversationId, category))
+				.advisors(advisorParams(conversationId, category, StageTags.SYNC, budget, bypass))
 				.call()
 				.content();
+		if (lookup != null) {
+			answerCache.put(lookup, answer, System.nanoTime() - start);
+		}
+		return answer;
 	}
 
 	/**
 	 * 스트리밍 방식으로 질문에 대한 답변을 토큰 단위로 반환한다.
+	 * 캐시에 적중하면 캐시된 답변을 한 번에 전송한다.
+	 * advisor 스케줄러의 대기열이 가득 차면 RejectedExecutionException으로 종료된다.
+	 *
+	 * @param cacheBypass 답변·리라이팅 캐시를 우회할지 여부 (허용된 경우에만 적용)
 	 */
-	public Flux<String> askStream(String question, String conversationId, String category) {
-		return chatClient.prompt()
+	public Flux<String> askStream(String question, String conversationId, String category, boolean cacheBypass) {
+		boolean bypass = cacheBypass && bypassAllowed;
+		return Flux.defer(() -> {
+			long start = System.nanoTime();
+			LatencyBudget budget = budgetController.start();
+			return Mono.fromCallable(() -> Optional.ofNullable(
+							bypass ? null : lookupAnswer(question, conversationId, category)))
+					.subscribeOn(advisorScheduler)
+					.flatMapMany(lookup -> streamAnswer(question, conversationId, category, lookup.orElse(null),
+							budget, bypass, start));
+		});
+	}
+
+	private Flux<String> streamAnswer(String question, String conversationId, String category, Lookup lookup,
+			LatencyBudget budget, boolean bypass, long start) {
+		if (lookup != null && lookup.answer().isPresent()) {
+			String answer = replay(question, conversationId, lookup.answer().get());
+			cachedTimeToFirstToken.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return Flux.just(answer);
+		}
+
+		AtomicBoolean firstToken = new AtomicBoolean(true);
+		Flux<String> tokens = chatClient.prompt()
 				.user(question)
-				.advisors(advisorParams(conversationId, category))
+				.advisors(advisorParams(conversationId, category, StageTags.STREAM, budget, bypass))
 				.stream()
-				.content();
+				.content()
+				.doOnNext(token -> {
+					if (firstToken.getAndSet(false)) {
+						modelTimeToFirstToken.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+					}
+				});
+		if (lookup == null) {
+			return tokens;
+		}
+		StringBuilder answer = new StringBuilder();
+		return tokens
+				.doOnNext(answer::append)
+				.doOnComplete(() -> answerCache.put(lookup, answer.toString(), System.nanoTime() - start));
 	}
 
 	/** 대화 이력 조회. */
@@ -58,13 +153,49 @@ public class ChatService {
 		chatMemory.clear(conversationId);
 	}
 
-	/** advisor 공통 파라미터 설정. */
-	private Consumer<AdvisorSpec> advisorParams(String conversationId, String category) {
+	/**
+	 * 답변 캐시를 조회한다. 캐시를 사용하지 않는 턴이면 null.
+	 */
+	private Lookup lookupAnswer(String question, String conversationId, String category) {
+		if (!answerCache.isEnabled()) {
+			return null;
+		}
+		if (!chatMemory.get(conversationId).isEmpty()) {
+			answerCache.recordBypass();
+			return null;
+		}
+		return answerCache.lookup(question, category);
+	}
+
+	/** 캐시된 답변을 advisor 체인을 거친 턴과 같이 대화 이력에 기록한다. */
+	private String replay(String question, String conversationId, String answer) {
+		chatMemory.add(conversationId, List.of(new UserMessage(question), new AssistantMessage(answer)));
+		return answer;
+	}
+
+	/** advisor 공통 파라미터 설정. (단계 메트릭 태그, 지연 예산, 캐시 우회 포함) */
+	private Consumer<AdvisorSpec> advisorParams(String conversationId, String category, String mode,
+			LatencyBudget budget, boolean bypass) {
 		return a -> {
 			a.param(ChatMemory.CONVERSATION_ID, conversationId);
+			a.param(StageTags.MODE, mode);
+			a.param(LatencyBudget.CONTEXT_KEY, budget);
+			if (bypass) {
+				a.param(CACHE_BYPASS, true);
+			}
 			if (category != null && !category.isBlank()) {
 				a.param(FILTER_EXPRESSION, "category == '" + category + "'");
+				a.param(StageTags.CATEGORY, category);
 			}
 		};
 	}
+
+	private static Timer timeToFirstToken(MeterRegistry meterRegistry, String source) {
+		return Timer.builder("rag.chat.ttft")
+				.description("스트리밍 요청 구독부터 첫 토큰 전송까지의 시간")
+				.tag("source", source)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
 }
@@ -3,17 +3,37 @@ package com.example.rag.config;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.ChatMemoryRepository;
-import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
 
-import com.example.rag.chat.memory.SummarizingChatMemory;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 
+import com.example.rag.chat.advisor.AdvisorProperties;
+import com.example.rag.chat.advisor.GenerationMetricsAdvisor;
 import com.example.rag.chat.advisor.QueryRewriteAdvisor;
 import com.example.rag.chat.advisor.RetrievalRerankAdvisor;
-import com.example.rag.chat.repository.KeywordSearchRepository;
+import com.example.rag.chat.budget.HedgedLlmCaller;
+import com.example.rag.chat.budget.LatencyBudgetController;
+import com.example.rag.chat.cache.CachingEmbeddingModel;
+import com.example.rag.chat.cache.EmbeddingCacheProperties;
+import com.example.rag.chat.cache.QueryRewriteCache;
+import com.example.rag.chat.memory.ChatMemoryProperties;
+import com.example.rag.chat.memory.ConversationCache;
+import com.example.rag.chat.memory.SummarizingChatMemory;
+import com.example.rag.chat.metrics.RagMetrics;
+import com.example.rag.chat.replica.VectorReplica;
+import com.example.rag.chat.repository.AppendOnlyChatMemoryRepository;
+import com.example.rag.chat.rerank.RerankerSelector;
+import com.example.rag.chat.retrieval.ConcurrentRetriever;
+import com.example.rag.chat.retrieval.RetrievalProperties;
+import com.example.rag.chat.retrieval.SingleQueryRetriever;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * AI 관련 빈 설정.
@@ -21,6 +41,8 @@ import com.example.rag.chat.repository.KeywordSearchRepository;
  *
  * Advisor 실행 순서:
  * MessageChatMemoryAdvisor(order=0) → QueryRewriteAdvisor(order=10) → RetrievalRerankAdvisor(order=20)
+ * → GenerationMetricsAdvisor(order=100, 답변 생성 시간·토큰 기록)
+ * 스트리밍 경로에서 세 advisor의 before 단계는 {@link #advisorScheduler}에서 실행된다.
  */
 @Configuration
 public class AiConfig {
@@ -37,34 +59,81 @@ public class AiConfig {
 			5. 답변은 친절하고 간결하게 작성하세요.
 			""";
 
+	/**
+	 * 스트리밍 경로의 블로킹 advisor 단계(대화 이력 조회, 리라이팅, 검색·재순위화)를 실행하는 스케줄러.
+	 * 전역 boundedElastic을 다른 작업과 공유하지 않도록 분리하고, 대기열이 가득 차면 요청을 거절한다.
+	 */
+	@Bean(destroyMethod = "dispose")
+	Scheduler advisorScheduler(AdvisorProperties properties) {
+		return Schedulers.newBoundedElastic(properties.threadCap(), properties.queueCapacity(), "rag-advisor");
+	}
+
+	/**
+	 * 노드 로컬 대화 창 캐시. 메시지는 주기적으로 DB에 기록되며, 종료 시 close()로 남은 메시지를 기록한다.
+	 * 창 크기는 요약 임계값 판단을 위해 maxMessages + 1.
+	 */
+	@Bean
+	ConversationCache conversationCache(AppendOnlyChatMemoryRepository chatMemoryRepository,
+			ChatMemoryProperties properties, MeterRegistry meterRegistry) {
+		return new ConversationCache(chatMemoryRepository, properties.maxMessages() + 1, properties, meterRegistry);
+	}
+
 	/**
 	 * 대화 이력 저장소.
-	 * 메시지가 20개를 초과하면 오래된 메시지를 LLM으로 요약하여 맥락을 보존한다.
+	 * 메시지가 maxMessages를 초과하면 오래된 메시지를 백그라운드에서 LLM으로 요약하여 맥락을 보존한다.
+	 * 메시지는 append-only로 저장하고, 최신 요약 + 최근 메시지 창만 읽는다.
+	 * 요약 executor는 close()로 정리된다. (destroy 메서드 추론)
 	 */
 	@Bean
-	ChatMemory chatMemory(ChatMemoryRepository chatMemoryRepository, ChatModel chatModel) {
+	ChatMemory chatMemory(AppendOnlyChatMemoryRepository chatMemoryRepository, ConversationCache conversationCache,
+			HedgedLlmCaller llmCaller, ChatMemoryProperties properties, RagMetrics ragMetrics) {
 		return SummarizingChatMemory.builder()
 				.chatMemoryRepository(chatMemoryRepository)
-				.chatModel(chatModel)
-				.maxMessages(20)
-				.keepRecent(10)
+				.conversationCache(conversationCache)
+				.llmCaller(llmCaller)
+				.summaryTimeout(properties.summaryTimeout())
+				.maxMessages(properties.maxMessages())
+				.keepRecent(properties.keepRecent())
+				.summaryBatchSize(properties.summaryBatchSize())
+				.summaryBackoff(properties.summaryBackoff(), properties.summaryMaxBackoff())
+				.metrics(ragMetrics)
 				.build();
 	}
 
+	/**
+	 * 쿼리 임베딩 캐시.
+	 * PgVectorStore가 주입받는 EmbeddingModel을 캐시 데코레이터로 대체하여
+	 * 직전에 임베딩한 쿼리를 다시 임베딩하지 않도록 한다.
+	 * loadtest 프로파일에서는 로컬 임베딩 모델을 감싼 같은 이름의 빈으로 대체된다.
+	 */
+	@Bean
+	@Primary
+	@Profile("!loadtest")
+	EmbeddingModel cachingEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+			EmbeddingCacheProperties properties, MeterRegistry meterRegistry) {
+		return new CachingEmbeddingModel(openAiEmbeddingModel, properties.maxMemory().toBytes(), meterRegistry);
+	}
+
 	/**
 	 * ChatClient 구성.
 	 * Advisor 체인: 대화 이력 → 쿼리 리라이팅 → 하이브리드 검색(벡터+키워드) + 재순위화
 	 */
 	@Bean
 	ChatClient chatClient(ChatClient.Builder builder, ChatMemory chatMemory,
-			ChatModel chatModel, VectorStore vectorStore,
-			KeywordSearchRepository keywordSearchRepository) {
+			HedgedLlmCaller llmCaller, QueryRewriteCache rewriteCache,
+			SingleQueryRetriever singleQueryRetriever, ConcurrentRetriever concurrentRetriever,
+			RetrievalProperties retrievalProperties, RerankerSelector rerankerSelector,
+			LatencyBudgetController budgetController, VectorReplica vectorReplica, RagMetrics ragMetrics,
+			Scheduler advisorScheduler) {
 		return builder
 				.defaultSystem(SYSTEM_PROMPT)
 				.defaultAdvisors(
-						MessageChatMemoryAdvisor.builder(chatMemory).build(),
-						new QueryRewriteAdvisor(chatModel, 10),
-						new RetrievalRerankAdvisor(vectorStore, chatModel, keywordSearchRepository, 20))
+						MessageChatMemoryAdvisor.builder(chatMemory).scheduler(advisorScheduler).build(),
+						new QueryRewriteAdvisor(llmCaller, rewriteCache, budgetController, ragMetrics,
+								advisorScheduler, 10),
+						new RetrievalRerankAdvisor(singleQueryRetriever, concurrentRetriever, retrievalProperties,
+								rerankerSelector, budgetController, vectorReplica, ragMetrics, advisorScheduler, 20),
+						new GenerationMetricsAdvisor(ragMetrics, 100))
 				.build();
 	}
 }
@@ -3,8 +3,8 @@ package com.example.rag.document.controller;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,54 +16,78 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.rag.document.dto.request.IngestRequest;
-import com.example.rag.document.dto.response.IngestResponse;
+import com.example.rag.document.dto.response.DocumentPageResponse;
+import com.example.rag.document.dto.response.IngestJobResponse;
 import com.example.rag.document.dto.vo.DocumentDetail;
-import com.example.rag.document.dto.vo.DocumentSummary;
 import com.example.rag.document.service.DocumentService;
-import com.example.rag.document.service.FileParserService;
+import com.example.rag.document.service.IngestJob;
+import com.example.rag.document.service.IngestJobService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 /**
  * 문서 CRUD API 컨트롤러.
+ * 등록({@code POST /api/documents}, {@code POST /api/documents/upload})과 수정({@code PUT /api/documents/{id}})은
+ * 적재 작업을 등록하고 202를 반환하며,
+ * 진행 상황은 {@code GET /api/documents/jobs/{jobId}}로 조회한다.
  */
 @RestController
 @RequestMapping("/api/documents")
 @RequiredArgsConstructor
 public class DocumentController {
 
+	private static final int MAX_DOCUMENT_PAGE_SIZE = 100;
+
 	private final DocumentService documentService;
-	private final FileParserService fileParserService;
+	private final IngestJobService ingestJobService;
 
-	/** 문서를 청크 분할 후 벡터 저장소에 등록한다. */
+	/** 문서 적재 작업을 등록한다. 대기열이 가득 차면 429를 반환한다. */
 	@PostMapping
-	@ResponseStatus(HttpStatus.CREATED)
-	IngestResponse ingest(@Valid @RequestBody IngestRequest request) {
-		UUID documentId = documentService.ingest(request.title(), request.content(), request.category());
-		return new IngestResponse("문서가 등록되었습니다.", documentId);
+	ResponseEntity<IngestJobResponse> ingest(@Valid @RequestBody IngestRequest request) {
+		try {
+			IngestJob job = ingestJobService.submit(request.title(), request.content(), request.category());
+			return ResponseEntity.accepted().body(toResponse(job));
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+		}
 	}
 
-	/** 파일 업로드로 문서를 등록한다. */
+	/** 파일 업로드로 문서 적재 작업을 등록한다. 대기열이 가득 차면 429를 반환한다. */
 	@PostMapping(value = "/upload", consumes = MULTIPART_FORM_DATA_VALUE)
-	@ResponseStatus(HttpStatus.CREATED)
-	IngestResponse upload(@RequestParam("file") MultipartFile file,
+	ResponseEntity<IngestJobResponse> upload(@RequestParam("file") MultipartFile file,
 			@RequestParam("title") String title,
 			@RequestParam(value = "category", required = false) String category) throws IOException {
-		String content = fileParserService.extractText(file);
-		UUID documentId = documentService.ingest(title, content, category != null ? category : "");
-		return new IngestResponse("문서가 등록되었습니다.", documentId);
+		try {
+			IngestJob job = ingestJobService.submit(file, title, category != null ? category : "");
+			return ResponseEntity.accepted().body(toResponse(job));
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+		}
+	}
+
+	/** 적재 작업 상태 조회. */
+	@GetMapping("/jobs/{jobId}")
+	ResponseEntity<IngestJobResponse> job(@PathVariable UUID jobId) {
+		return ingestJobService.find(jobId)
+				.map(job -> ResponseEntity.ok(toResponse(job)))
+				.orElseGet(() -> ResponseEntity.notFound().build());
 	}
 
-	/** 문서 목록 조회. */
+	/**
+	 * 문서 목록 조회. 제목 순으로 page번째(0부터) 페이지를 size개씩 조회하며,
+	 * category(일치)와 q(제목 부분 일치)로 거를 수 있다.
+	 */
 	@GetMapping
-	List<DocumentSummary> list() {
-		return documentService.list();
+	DocumentPageResponse list(@RequestParam(required = false) String category,
+			@RequestParam(required = false) String q,
+			@RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "20") int size) {
+		return documentService.list(category, q, Math.max(page, 0), Math.clamp(size, 1, MAX_DOCUMENT_PAGE_SIZE));
 	}
 
 	/** 문서 상세 조회. */
@@ -76,15 +100,23 @@ public class DocumentController {
 		return ResponseEntity.ok(detail);
 	}
 
-	/** 문서 수정 (삭제 후 재등록). */
+	/**
+	 * 문서 수정 작업을 등록한다. 바뀐 청크만 다시 임베딩한다.
+	 * 문서가 없으면 404, 대기열이 가득 차면 429를 반환한다.
+	 */
 	@PutMapping("/{documentId}")
-	ResponseEntity<IngestResponse> update(@PathVariable UUID documentId,
+	ResponseEntity<IngestJobResponse> update(@PathVariable UUID documentId,
 			@Valid @RequestBody IngestRequest request) {
-		boolean updated = documentService.update(documentId, request.title(), request.content(), request.category());
-		if (!updated) {
+		if (!documentService.exists(documentId)) {
 			return ResponseEntity.notFound().build();
 		}
-		return ResponseEntity.ok(new IngestResponse("문서가 수정되었습니다.", documentId));
+		try {
+			IngestJob job = ingestJobService.submitUpdate(documentId, request.title(), request.content(),
+					request.category());
+			return ResponseEntity.accepted().body(toResponse(job));
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+		}
 	}
 
 	/** 문서 삭제. */
@@ -96,4 +128,9 @@ public class DocumentController {
 		}
 		return ResponseEntity.noContent().build();
 	}
+
+	private IngestJobResponse toResponse(IngestJob job) {
+		return new IngestJobResponse(job.getJobId(), job.getDocumentId(), job.getStatus().name(),
+				job.getChunksProcessed(), job.getError());
+	}
 }
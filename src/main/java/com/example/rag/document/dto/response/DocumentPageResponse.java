@@ -0,0 +1,14 @@
+package com.example.rag.document.dto.response;
+
+import java.util.List;
+
+import com.example.rag.document.dto.vo.DocumentSummary;
+
+/**
+ * @param documents 제목 순 문서 목록
+ * @param page      페이지 번호 (0부터)
+ * @param size      페이지 크기
+ * @param total     필터 조건에 맞는 전체 문서 수
+ */
+public record DocumentPageResponse(List<DocumentSummary> documents, int page, int size, long total) {
+}
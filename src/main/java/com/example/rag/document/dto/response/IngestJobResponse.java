@@ -0,0 +1,14 @@
+package com.example.rag.document.dto.response;
+
+import java.util.UUID;
+
+/**
+ * @param jobId           적재 작업 ID
+ * @param documentId      등록(수정)될 문서 ID
+ * @param status          QUEUED, RUNNING, COMPLETED, FAILED
+ * @param chunksProcessed 임베딩이 끝난 청크 수, 수정은 새로 임베딩한 청크만 센다
+ *                        (문서는 모든 청크의 임베딩이 끝난 뒤 한 번에 검색에 반영된다)
+ * @param error           실패 사유 (실패한 경우)
+ */
+public record IngestJobResponse(UUID jobId, UUID documentId, String status, int chunksProcessed, String error) {
+}
@@ -1,6 +1,11 @@
 package com.example.rag.document.dto.vo;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
-public record DocumentSummary(UUID documentId, String title, String category, int chunkCount) {
+/**
+ * @param byteSize 원본 텍스트 크기 (UTF-8 바이트)
+ */
+public record DocumentSummary(UUID documentId, String title, String category, int chunkCount, long byteSize,
+		LocalDateTime createdAt, LocalDateTime updatedAt) {
 }
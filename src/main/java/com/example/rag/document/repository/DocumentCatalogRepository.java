@@ -0,0 +1,123 @@
+package com.example.rag.document.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.example.rag.document.dto.vo.DocumentSummary;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * document_catalog 테이블 저장소.
+ * 문서 단위 메타데이터를 적재·수정·삭제 트랜잭션에서 함께 갱신하므로
+ * 목록 조회가 청크 단위의 vector_store를 집계하지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DocumentCatalogRepository {
+
+	private static final RowMapper<DocumentSummary> ROW_MAPPER = (rs, rowNum) -> new DocumentSummary(
+			rs.getObject("document_id", UUID.class),
+			rs.getString("title"),
+			rs.getString("category"),
+			rs.getInt("chunk_count"),
+			rs.getLong("byte_size"),
+			rs.getTimestamp("created_at").toLocalDateTime(),
+			rs.getTimestamp("updated_at").toLocalDateTime());
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * 문서 목록을 제목 순으로 한 페이지 조회한다.
+	 *
+	 * @param category 카테고리 일치 필터 (null이면 전체)
+	 * @param query    제목 부분 일치 필터 (null이면 전체, pg_trgm GIN 인덱스 사용)
+	 */
+	public List<DocumentSummary> findPage(String category, String query, int page, int size) {
+		StringBuilder sql = new StringBuilder("""
+				SELECT document_id, title, category, chunk_count, byte_size, created_at, updated_at
+				FROM document_catalog
+				WHERE 1 = 1
+				""");
+		List<Object> params = new ArrayList<>(filterParams(sql, category, query));
+		sql.append(" ORDER BY title, document_id LIMIT ? OFFSET ?");
+		params.add(size);
+		params.add((long) page * size);
+		return jdbcTemplate.query(sql.toString(), ROW_MAPPER, params.toArray());
+	}
+
+	/** 필터 조건에 맞는 문서 수. */
+	public long count(String category, String query) {
+		StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM document_catalog WHERE 1 = 1");
+		List<Object> params = filterParams(sql, category, query);
+		Long count = jdbcTemplate.queryForObject(sql.toString(), Long.class, params.toArray());
+		return count != null ? count : 0;
+	}
+
+	public Optional<DocumentSummary> findById(UUID documentId) {
+		return jdbcTemplate.query("""
+				SELECT document_id, title, category, chunk_count, byte_size, created_at, updated_at
+				FROM document_catalog
+				WHERE document_id = ?
+				""",
+				ROW_MAPPER, documentId).stream().findFirst();
+	}
+
+	/**
+	 * 문서 행을 트랜잭션이 끝날 때까지 잠근다. 같은 문서의 수정을 직렬화할 때 사용한다.
+	 *
+	 * @return 문서가 있으면 true
+	 */
+	public boolean lock(UUID documentId) {
+		return !jdbcTemplate.queryForList("""
+				SELECT document_id FROM document_catalog WHERE document_id = ? FOR UPDATE
+				""",
+				UUID.class, documentId).isEmpty();
+	}
+
+	/** 문서를 등록하거나, 이미 있으면 제목·카테고리·크기를 갱신한다. (created_at 유지) */
+	public void upsert(UUID documentId, String title, String category, int chunkCount, long byteSize) {
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		jdbcTemplate.update("""
+				INSERT INTO document_catalog (document_id, title, category, chunk_count, byte_size, created_at, updated_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?)
+				ON CONFLICT (document_id) DO UPDATE
+				SET title = EXCLUDED.title,
+				    category = EXCLUDED.category,
+				    chunk_count = EXCLUDED.chunk_count,
+				    byte_size = EXCLUDED.byte_size,
+				    updated_at = EXCLUDED.updated_at
+				""",
+				documentId, title, category, chunkCount, byteSize, now, now);
+	}
+
+	/** @return 삭제된 행이 있으면 true */
+	public boolean delete(UUID documentId) {
+		return jdbcTemplate.update("DELETE FROM document_catalog WHERE document_id = ?", documentId) > 0;
+	}
+
+	private static List<Object> filterParams(StringBuilder sql, String category, String query) {
+		List<Object> params = new ArrayList<>();
+		if (category != null && !category.isBlank()) {
+			sql.append(" AND category = ?");
+			params.add(category);
+		}
+		if (query != null && !query.isBlank()) {
+			sql.append(" AND title ILIKE ?");
+			params.add("%" + escapeLike(query.strip()) + "%");
+		}
+		return params;
+	}
+
+	private static String escapeLike(String text) {
+		return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+}
@@ -1,12 +1,19 @@
 package com.example.rag.document.repository;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
-import com.example.rag.document.dto.vo.DocumentSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
 
 import lombok.RequiredArgsConstructor;
 
@@ -18,33 +25,17 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class DocumentRepository {
 
-	private final JdbcTemplate jdbcTemplate;
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-	/** documentId별 문서 목록 조회. */
-	public List<DocumentSummary> findAllGroupedByDocumentId() {
-		return jdbcTemplate.query("""
-				SELECT metadata->>'documentId' AS document_id,
-				       metadata->>'title' AS title,
-				       metadata->>'category' AS category,
-				       COUNT(*) AS chunk_count
-				FROM vector_store
-				WHERE metadata->>'documentId' IS NOT NULL
-				GROUP BY document_id, title, category
-				ORDER BY title
-				""",
-				(rs, rowNum) -> new DocumentSummary(
-						UUID.fromString(rs.getString("document_id")),
-						rs.getString("title"),
-						rs.getString("category"),
-						rs.getInt("chunk_count")));
-	}
+	private final JdbcTemplate jdbcTemplate;
 
-	/** documentId에 해당하는 청크의 content, title, category 조회. */
+	/** documentId에 해당하는 청크의 content, title, category를 청크 순서대로 조회. */
 	public List<ChunkRow> findChunksByDocumentId(UUID documentId) {
 		return jdbcTemplate.query("""
 				SELECT content, metadata->>'title' AS title, metadata->>'category' AS category
 				FROM vector_store
 				WHERE metadata->>'documentId' = ?
+				ORDER BY (metadata->>'chunkIndex')::int
 				""",
 				(rs, rowNum) -> new ChunkRow(
 						rs.getString("content"),
@@ -61,5 +52,138 @@ public class DocumentRepository {
 				String.class, documentId.toString());
 	}
 
+	/**
+	 * 증분 재색인을 위해 documentId에 해당하는 청크의 해시와 위치를 조회한다.
+	 * 해시가 도입되기 전에 저장된 청크는 contentHash가 null이다.
+	 */
+	public List<ChunkState> findChunkStatesByDocumentId(UUID documentId) {
+		return jdbcTemplate.query("""
+				SELECT id, metadata->>'contentHash' AS content_hash,
+				       (metadata->>'chunkIndex')::int AS chunk_index,
+				       metadata->>'title' AS title, metadata->>'category' AS category
+				FROM vector_store
+				WHERE metadata->>'documentId' = ?
+				""",
+				(rs, rowNum) -> new ChunkState(
+						rs.getObject("id", UUID.class),
+						rs.getString("content_hash"),
+						rs.getObject("chunk_index", Integer.class),
+						rs.getString("title"),
+						rs.getString("category")),
+				documentId.toString());
+	}
+
+	/** 내용이 그대로인 청크의 metadata만 갱신한다. (임베딩·content는 유지) */
+	public void updateChunkMetadata(List<MetadataUpdate> updates) {
+		jdbcTemplate.batchUpdate("""
+				UPDATE vector_store SET metadata = CAST(? AS json) WHERE id = ?
+				""",
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						MetadataUpdate update = updates.get(i);
+						ps.setString(1, toJson(update.metadata()));
+						ps.setObject(2, update.id());
+					}
+
+					@Override
+					public int getBatchSize() {
+						return updates.size();
+					}
+				});
+	}
+
+	/** 청크를 ID로 일괄 삭제한다. */
+	public void deleteChunks(List<UUID> ids) {
+		jdbcTemplate.batchUpdate("DELETE FROM vector_store WHERE id = ?", ids, ids.size(),
+				(ps, id) -> ps.setObject(1, id));
+	}
+
+	/**
+	 * 카테고리의 청크를 모두 삭제한다. (generated 컬럼 category로 필터)
+	 *
+	 * @return 삭제한 청크 수
+	 */
+	public int deleteChunksByCategory(String category) {
+		return jdbcTemplate.update("DELETE FROM vector_store WHERE category = ?", category);
+	}
+
+	/**
+	 * 임베딩이 완료된 청크를 적재 대기 테이블(vector_store_staging)에 JDBC 배치 INSERT로 기록한다.
+	 * 검색은 vector_store만 읽으므로 {@link #publishStagedChunks}로 옮기기 전까지는 보이지 않는다.
+	 * 배치마다 호출자 트랜잭션 없이 바로 커밋되어, 문서 전체의 임베딩을 메모리에 모아 두지 않아도 된다.
+	 */
+	public void stageChunks(UUID stagingId, List<ChunkInsert> chunks) {
+		jdbcTemplate.batchUpdate("""
+				INSERT INTO vector_store_staging (staging_id, id, content, metadata, embedding)
+				VALUES (?, ?, ?, CAST(? AS json), ?)
+				""",
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						ChunkInsert chunk = chunks.get(i);
+						ps.setObject(1, stagingId);
+						ps.setObject(2, chunk.id());
+						ps.setString(3, chunk.content());
+						ps.setString(4, toJson(chunk.metadata()));
+						ps.setObject(5, new PGvector(chunk.embedding()));
+					}
+
+					@Override
+					public int getBatchSize() {
+						return chunks.size();
+					}
+				});
+	}
+
+	/**
+	 * 적재 대기 청크를 vector_store로 옮기고 대기 행을 삭제한다. 호출자의 트랜잭션에서 실행한다.
+	 * content_tsv는 트리거가, category는 generated 컬럼이 채운다.
+	 *
+	 * @return 옮긴 청크 수
+	 */
+	public int publishStagedChunks(UUID stagingId) {
+		int published = jdbcTemplate.update("""
+				INSERT INTO vector_store (id, content, metadata, embedding)
+				SELECT id, content, metadata, embedding
+				FROM vector_store_staging
+				WHERE staging_id = ?
+				""",
+				stagingId);
+		deleteStagedChunks(stagingId);
+		return published;
+	}
+
+	/** 적재를 포기한 문서의 대기 청크를 삭제한다. */
+	public void deleteStagedChunks(UUID stagingId) {
+		jdbcTemplate.update("DELETE FROM vector_store_staging WHERE staging_id = ?", stagingId);
+	}
+
+	/**
+	 * 기록된 지 age가 지난 대기 청크를 삭제한다. (적재 도중 프로세스가 종료되어 남은 행 정리)
+	 *
+	 * @return 삭제한 청크 수
+	 */
+	public int deleteStagedChunksOlderThan(Duration age) {
+		return jdbcTemplate.update("""
+				DELETE FROM vector_store_staging WHERE created_at < now() - make_interval(secs => ?)
+				""",
+				age.toSeconds());
+	}
+
+	private static String toJson(Map<String, Object> metadata) {
+		try {
+			return OBJECT_MAPPER.writeValueAsString(metadata);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("metadata를 JSON으로 변환할 수 없습니다.", e);
+		}
+	}
+
 	public record ChunkRow(String content, String title, String category) {}
+
+	public record ChunkInsert(UUID id, String content, Map<String, Object> metadata, float[] embedding) {}
+
+	public record ChunkState(UUID id, String contentHash, Integer chunkIndex, String title, String category) {}
+
+	public record MetadataUpdate(UUID id, Map<String, Object> metadata) {}
 }
@@ -0,0 +1,41 @@
+package com.example.rag.document.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 문서 코퍼스 버전.
+ * 문서가 등록·수정·삭제될 때마다 증가하며, 코퍼스에 의존하는 캐시(답변 캐시 등)는
+ * 엔트리를 만든 시점의 버전이 현재 버전과 다르면 사용하지 않는다.
+ *
+ * 버전은 노드 로컬이다. 다른 노드에서 변경된 문서는 해당 캐시의 TTL이 지난 뒤 반영된다.
+ */
+@Component
+public class CorpusVersion {
+
+	private final AtomicLong version = new AtomicLong();
+
+	public long current() {
+		return version.get();
+	}
+
+	/**
+	 * 현재 트랜잭션이 커밋된 뒤 버전을 올린다. (트랜잭션 밖이면 즉시)
+	 * 커밋 전에 올리면 변경 전 코퍼스로 만든 답변이 새 버전으로 캐시될 수 있다.
+	 */
+	public void bumpAfterCommit() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			version.incrementAndGet();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				version.incrementAndGet();
+			}
+		});
+	}
+}
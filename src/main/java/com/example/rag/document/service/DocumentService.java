@@ -1,31 +1,55 @@
 package com.example.rag.document.service;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.IntConsumer;
 
-import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.rag.chat.replica.VectorReplica;
+import com.example.rag.document.repository.DocumentCatalogRepository;
 import com.example.rag.document.repository.DocumentRepository;
 import com.example.rag.document.repository.DocumentRepository.ChunkRow;
+import com.example.rag.document.repository.DocumentRepository.ChunkState;
+import com.example.rag.document.dto.response.DocumentPageResponse;
 import com.example.rag.document.dto.vo.DocumentDetail;
 import com.example.rag.document.dto.vo.DocumentSummary;
+import com.example.rag.document.service.IngestionPipeline.IngestResult;
+import com.example.rag.document.service.IngestionPipeline.PreparedDocument;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * 문서 처리 서비스.
  * 원본 문서를 청크로 분할한 뒤 벡터 저장소에 임베딩하여 저장한다.
+ * 청킹·임베딩과 대기 테이블 기록은 {@link IngestionPipeline}이 트랜잭션 밖에서 배치 단위로 겹쳐 실행하고,
+ * 공개(대기 청크 이동·카탈로그)만 문서 단위의 짧은 트랜잭션에서 실행해 임베딩 API 호출 동안 DB 커넥션을 잡지 않는다.
+ * 저장하지 못한 준비 결과의 대기 청크는 지운다.
+ * 수정 시에는 청크 해시를 비교해 바뀐 청크만 다시 임베딩한다.
+ * 문서 카탈로그(document_catalog)는 등록·수정·삭제와 같은 트랜잭션에서 갱신하며, 목록 조회는 카탈로그만 읽는다.
+ * 변경이 커밋되면 {@link CorpusVersion}을 올려 코퍼스 기반 캐시를 무효화하고, JVM 내 벡터 레플리카에 문서를 반영한다.
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DocumentService {
 
+	/** 임베딩하는 동안 같은 문서가 다른 요청으로 바뀌었을 때 수정을 다시 시도하는 횟수. */
+	private static final int MAX_UPDATE_ATTEMPTS = 3;
+
 	private final VectorStore vectorStore;
 	private final DocumentRepository documentRepository;
-	private final StructuredTextChunker chunker = new StructuredTextChunker();
+	private final DocumentCatalogRepository documentCatalogRepository;
+	private final IngestionPipeline ingestionPipeline;
+	private final CorpusVersion corpusVersion;
+	private final VectorReplica vectorReplica;
+	private final TransactionTemplate transactionTemplate;
 
 	/**
 	 * 문서를 메타데이터와 함께 생성하고, 청크 분할 후 벡터 저장소에 저장한다.
@@ -34,59 +58,149 @@ public class DocumentService {
 	 */
 	public UUID ingest(String title, String content, String category) {
 		UUID documentId = UUID.randomUUID();
-		return ingest(documentId, title, content, category);
+		ingest(documentId, title, TextSource.of(content), category, chunks -> {});
+		return documentId;
 	}
 
-	private UUID ingest(UUID documentId, String title, String content, String category) {
-		Map<String, Object> metadata = Map.of(
-				"title", title,
-				"category", category,
-				"documentId", documentId.toString());
+	/**
+	 * 지정한 documentId로 문서를 등록한다. 비동기 적재 작업이 진행 상황을 받기 위해 사용한다.
+	 *
+	 * @param source   원본 텍스트를 조각 단위로 전달하는 소스 (파일은 페이지 단위로 스트리밍)
+	 * @param progress 배치 임베딩이 끝날 때마다 임베딩된 청크 수를 전달받는 콜백
+	 */
+	public void ingest(UUID documentId, String title, TextSource source, String category, IntConsumer progress) {
+		PreparedDocument prepared = ingestionPipeline.prepare(source, metadata(documentId, title, category), progress);
+		try {
+			transactionTemplate.executeWithoutResult(status -> store(documentId, title, category, prepared));
+		} catch (RuntimeException e) {
+			ingestionPipeline.discard(prepared);
+			throw e;
+		}
+	}
 
-		List<Document> chunks = chunker.chunk(content).stream()
-				.map(text -> new Document(text, metadata))
-				.toList();
-		vectorStore.add(chunks);
-		return documentId;
+	/**
+	 * 문서 목록을 제목 순으로 페이지 조회한다.
+	 *
+	 * @param category 카테고리 필터 (null이면 전체)
+	 * @param query    제목 검색어 (null이면 전체)
+	 */
+	public DocumentPageResponse list(String category, String query, int page, int size) {
+		List<DocumentSummary> documents = documentCatalogRepository.findPage(category, query, page, size);
+		long total = documentCatalogRepository.count(category, query);
+		return new DocumentPageResponse(documents, page, size, total);
 	}
 
-	/** 문서 목록 조회 (documentId별 그룹). */
-	public List<DocumentSummary> list() {
-		return documentRepository.findAllGroupedByDocumentId();
+	/** 카탈로그에 문서가 있는지 확인한다. */
+	public boolean exists(UUID documentId) {
+		return documentCatalogRepository.findById(documentId).isPresent();
 	}
 
-	/** 문서 상세 조회: 청크 내용을 합쳐 원본 텍스트를 재조합한다. */
+	/** 문서 상세 조회: 청크 내용을 순서대로 합쳐 원본 텍스트를 재조합한다. */
 	public DocumentDetail getById(UUID documentId) {
-		List<ChunkRow> rows = documentRepository.findChunksByDocumentId(documentId);
-
-		if (rows.isEmpty()) {
-			return null;
-		}
-
-		String combinedContent = String.join("\n", rows.stream().map(ChunkRow::content).toList());
-		ChunkRow first = rows.getFirst();
-		return new DocumentDetail(documentId, first.title(), combinedContent, first.category(), rows.size());
+		return documentCatalogRepository.findById(documentId)
+				.map(summary -> {
+					List<ChunkRow> rows = documentRepository.findChunksByDocumentId(documentId);
+					String combinedContent = String.join("\n", rows.stream().map(ChunkRow::content).toList());
+					return new DocumentDetail(documentId, summary.title(), combinedContent, summary.category(),
+							rows.size());
+				})
+				.orElse(null);
 	}
 
-	/** 문서 삭제: documentId에 해당하는 모든 청크를 삭제한다. */
+	/**
+	 * 문서 삭제: documentId에 해당하는 모든 청크와 카탈로그 행을 삭제한다.
+	 * 청크 없이 카탈로그 행만 남은 문서도 목록에서 지울 수 있도록 카탈로그 행은 항상 삭제한다.
+	 *
+	 * @return 청크나 카탈로그 행이 있었으면 true
+	 */
+	@Transactional
 	public boolean delete(UUID documentId) {
 		List<String> chunkIds = documentRepository.findChunkIdsByDocumentId(documentId);
+		boolean catalogDeleted = documentCatalogRepository.delete(documentId);
 
 		if (chunkIds.isEmpty()) {
-			return false;
+			return catalogDeleted;
 		}
 
 		vectorStore.delete(chunkIds);
+		corpusVersion.bumpAfterCommit();
+		vectorReplica.refreshAfterCommit(documentId);
 		return true;
 	}
 
-	/** 문서 수정: 기존 청크를 삭제하고 동일 documentId로 재등록한다. */
-	public boolean update(UUID documentId, String title, String content, String category) {
-		if (!delete(documentId)) {
-			return false;
+	/**
+	 * 문서 수정: 새 청크의 contentHash를 기존 청크와 비교하여
+	 * 바뀐 청크만 임베딩·저장하고, 남은 기존 청크는 삭제한다.
+	 *
+	 * 임베딩은 트랜잭션 밖에서 하므로, 저장 트랜잭션에서 문서 행을 잠근 뒤 청크가 임베딩 전과 같은지 확인한다.
+	 * 그 사이 다른 요청이 문서를 바꿨으면 바뀐 청크를 기준으로 다시 준비한다.
+	 * 적재 워커({@link IngestJobService})에서 실행한다.
+	 *
+	 * @param progress 배치 임베딩이 끝날 때마다 새로 임베딩된 청크 수를 전달받는 콜백
+	 */
+	public boolean update(UUID documentId, String title, String content, String category, IntConsumer progress) {
+		Map<String, Object> metadata = metadata(documentId, title, category);
+		for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
+			List<ChunkState> existing = documentRepository.findChunkStatesByDocumentId(documentId);
+			if (existing.isEmpty()) {
+				return false;
+			}
+
+			PreparedDocument prepared = ingestionPipeline.prepareReindex(TextSource.of(content), metadata, existing,
+					progress);
+			UpdateResult result;
+			try {
+				result = transactionTemplate.execute(status -> {
+					if (!documentCatalogRepository.lock(documentId)) {
+						return UpdateResult.NOT_FOUND;
+					}
+					if (!sameChunks(existing, documentRepository.findChunkIdsByDocumentId(documentId))) {
+						return UpdateResult.CONFLICT;
+					}
+					store(documentId, title, category, prepared);
+					return UpdateResult.UPDATED;
+				});
+			} catch (RuntimeException e) {
+				ingestionPipeline.discard(prepared);
+				throw e;
+			}
+			if (result != UpdateResult.UPDATED) {
+				ingestionPipeline.discard(prepared);
+			}
+			if (result != UpdateResult.CONFLICT) {
+				return result == UpdateResult.UPDATED;
+			}
+			log.info("문서가 임베딩 중 변경되어 수정을 다시 시도합니다. (documentId={}, attempt={})", documentId, attempt);
 		}
-		ingest(documentId, title, content, category);
-		return true;
+		throw new IllegalStateException("문서가 동시에 수정되고 있어 저장하지 못했습니다: " + documentId);
+	}
+
+	/** 준비한 청크와 카탈로그를 저장한다. 호출자의 트랜잭션에서 실행한다. */
+	private void store(UUID documentId, String title, String category, PreparedDocument prepared) {
+		IngestResult result = ingestionPipeline.store(prepared);
+		documentCatalogRepository.upsert(documentId, title, nullToEmpty(category), result.chunks(), result.bytes());
+		corpusVersion.bumpAfterCommit();
+		vectorReplica.refreshAfterCommit(documentId);
+	}
+
+	private static boolean sameChunks(List<ChunkState> existing, List<String> current) {
+		return existing.size() == current.size()
+				&& new HashSet<>(current).containsAll(existing.stream().map(state -> state.id().toString()).toList());
+	}
+
+	private static Map<String, Object> metadata(UUID documentId, String title, String category) {
+		return Map.of(
+				"title", title,
+				"category", nullToEmpty(category),
+				"documentId", documentId.toString());
+	}
+
+	private static String nullToEmpty(String category) {
+		return category != null ? category : "";
+	}
+
+	private enum UpdateResult {
+		UPDATED, NOT_FOUND, CONFLICT
 	}
 
 }
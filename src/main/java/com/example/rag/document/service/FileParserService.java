@@ -1,42 +1,208 @@
 package com.example.rag.document.service;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 
 /**
  * 업로드된 파일에서 텍스트를 추출한다.
  * 지원 형식: PDF, TXT, MD
+ *
+ * 추출한 텍스트는 페이지(PDF) 또는 문단 묶음(TXT, MD) 단위로 sink에 전달되므로
+ * 문서 크기와 무관하게 힙에는 처리 중인 일부만 남는다.
+ *
+ * PDF는 임시 파일을 랜덤 액세스로 읽고 스트림 캐시도 임시 파일에 두며,
+ * 페이지 범위를 pdfWorkers개 스레드에서 병렬 추출한 뒤 페이지 순서대로 내보낸다.
+ * PDDocument는 스레드 안전하지 않으므로 스레드마다 문서를 따로 연다.
  */
 @Service
+@RequiredArgsConstructor
 public class FileParserService {
 
-	public String extractText(MultipartFile file) throws IOException {
-		String filename = file.getOriginalFilename();
+	/** TXT/MD를 문단 경계에서 끊어 전달하는 최소 크기 (문자 수) */
+	private static final int TEXT_BLOCK_CHARS = 16 * 1024;
+
+	/** 추출 스레드별로 미리 추출해 둘 수 있는 페이지 범위 수 */
+	private static final int PREFETCH_RANGES = 1;
+
+	private final IngestProperties properties;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	/**
+	 * 업로드 시점에 임시 파일로 저장된 파일에서 텍스트를 추출해 순서대로 sink에 전달한다.
+	 *
+	 * @param file     임시 파일 경로
+	 * @param filename 원본 파일명 (확장자로 형식 판별)
+	 */
+	public void extractText(Path file, String filename, Consumer<String> sink) throws IOException {
 		String ext = getExtension(filename).toLowerCase();
 
-		return switch (ext) {
-			case "pdf" -> extractPdf(file);
-			case "txt", "md" -> new String(file.getBytes(), StandardCharsets.UTF_8);
+		switch (ext) {
+			case "pdf" -> extractPdf(file, sink);
+			case "txt", "md" -> extractPlainText(file, sink);
 			default -> throw new IllegalArgumentException("지원하지 않는 파일 형식입니다: " + ext);
-		};
+		}
 	}
 
-	private String extractPdf(MultipartFile file) throws IOException {
-		try (PDDocument document = Loader.loadPDF(file.getBytes())) {
-			return new PDFTextStripper().getText(document);
+	/** 업로드 요청 단계에서 형식을 먼저 검증할 수 있도록 확장자를 확인한다. */
+	public void validate(String filename) {
+		String ext = getExtension(filename).toLowerCase();
+		if (!ext.equals("pdf") && !ext.equals("txt") && !ext.equals("md")) {
+			throw new IllegalArgumentException("지원하지 않는 파일 형식입니다: " + ext);
 		}
 	}
 
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * 빈 줄에서만 끊어 전달한다. 조각 경계가 청커의 섹션 경계와 일치하므로
+	 * 전체를 한 번에 전달했을 때와 같은 섹션으로 나뉜다.
+	 */
+	private void extractPlainText(Path file, Consumer<String> sink) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			StringBuilder block = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank() && block.length() >= TEXT_BLOCK_CHARS) {
+					sink.accept(block.toString());
+					block.setLength(0);
+					continue;
+				}
+				block.append(line).append('\n');
+			}
+			if (!block.isEmpty()) {
+				sink.accept(block.toString());
+			}
+		}
+	}
+
+	private void extractPdf(Path file, Consumer<String> sink) throws IOException {
+		int pageCount;
+		try (PDDocument document = openPdf(file)) {
+			pageCount = document.getNumberOfPages();
+			if (pageCount <= properties.pdfPagesPerRange() || properties.pdfWorkers() <= 1) {
+				PageExtractor extractor = new PageExtractor(document);
+				for (int page = 1; page <= pageCount; page++) {
+					sink.accept(extractor.extract(page));
+				}
+				return;
+			}
+		}
+		extractPdfInParallel(file, pageCount, sink);
+	}
+
+	/**
+	 * 페이지 범위를 워커에 순환 배정한다. (워커 w는 범위 w, w + workers, ...)
+	 * 워커는 범위마다 결과를 자신의 큐에 넣고, 호출 스레드는 범위 순서대로 큐에서 꺼내 전달한다.
+	 * 큐 용량만큼만 앞서 추출하므로 메모리에는 최대 workers × (PREFETCH_RANGES + 1)개 범위만 남는다.
+	 */
+	private void extractPdfInParallel(Path file, int pageCount, Consumer<String> sink) throws IOException {
+		int rangeSize = properties.pdfPagesPerRange();
+		int rangeCount = (pageCount + rangeSize - 1) / rangeSize;
+		int workers = Math.min(properties.pdfWorkers(), rangeCount);
+
+		List<BlockingQueue<PageRange>> queues = new ArrayList<>(workers);
+		List<Future<?>> futures = new ArrayList<>(workers);
+		try {
+			for (int w = 0; w < workers; w++) {
+				BlockingQueue<PageRange> queue = new ArrayBlockingQueue<>(PREFETCH_RANGES);
+				queues.add(queue);
+				int worker = w;
+				futures.add(executor.submit(() -> {
+					extractRanges(file, pageCount, rangeSize, worker, workers, queue);
+					return null;
+				}));
+			}
+
+			for (int range = 0; range < rangeCount; range++) {
+				PageRange result = queues.get(range % workers).take();
+				if (result.error() instanceof IOException e) {
+					throw e;
+				}
+				if (result.error() != null) {
+					throw new IOException("PDF 페이지 추출에 실패했습니다.", result.error());
+				}
+				result.pages().forEach(sink);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("PDF 추출 대기 중 인터럽트되었습니다.", e);
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+	}
+
+	private void extractRanges(Path file, int pageCount, int rangeSize, int worker, int workers,
+			BlockingQueue<PageRange> queue) throws InterruptedException {
+		try (PDDocument document = openPdf(file)) {
+			PageExtractor extractor = new PageExtractor(document);
+			for (int start = worker * rangeSize + 1; start <= pageCount; start += workers * rangeSize) {
+				int end = Math.min(start + rangeSize - 1, pageCount);
+				List<String> pages = new ArrayList<>(end - start + 1);
+				for (int page = start; page <= end; page++) {
+					pages.add(extractor.extract(page));
+				}
+				queue.put(new PageRange(pages, null));
+			}
+		} catch (IOException | RuntimeException e) {
+			// 호출 스레드가 큐에서 무한 대기하지 않도록 실패도 결과로 전달한다.
+			queue.put(new PageRange(List.of(), e));
+		}
+	}
+
+	/** 파일 전체를 힙에 올리지 않도록 랜덤 액세스로 열고, 스트림 캐시는 임시 파일에 둔다. */
+	private static PDDocument openPdf(Path file) throws IOException {
+		return Loader.loadPDF(file.toFile(), IOUtils.createTempFileOnlyStreamCache());
+	}
+
 	private String getExtension(String filename) {
 		if (filename == null || !filename.contains(".")) {
 			throw new IllegalArgumentException("파일 확장자를 확인할 수 없습니다.");
 		}
 		return filename.substring(filename.lastIndexOf('.') + 1);
 	}
+
+	/** 페이지 범위 추출 결과. 실패한 경우 error만 채워진다. */
+	private record PageRange(List<String> pages, Exception error) {
+	}
+
+	/** 문서 하나에 대해 PDFTextStripper를 재사용하며 한 페이지씩 추출한다. */
+	private static class PageExtractor {
+
+		private final PDDocument document;
+		private final PDFTextStripper stripper;
+
+		PageExtractor(PDDocument document) throws IOException {
+			this.document = document;
+			this.stripper = new PDFTextStripper();
+		}
+
+		String extract(int page) throws IOException {
+			stripper.setStartPage(page);
+			stripper.setEndPage(page);
+			return stripper.getText(document);
+		}
+	}
 }
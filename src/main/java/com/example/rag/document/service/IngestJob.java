@@ -0,0 +1,85 @@
+package com.example.rag.document.service;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 문서 적재 작업의 진행 상태.
+ * 워커 스레드가 갱신하고 조회 API가 읽는다.
+ */
+public class IngestJob {
+
+	public enum Status {
+		QUEUED, RUNNING, COMPLETED, FAILED
+	}
+
+	private final UUID jobId = UUID.randomUUID();
+	private final UUID documentId;
+	private final String title;
+	private final Instant createdAt = Instant.now();
+	private final AtomicInteger chunksProcessed = new AtomicInteger();
+	private volatile Status status = Status.QUEUED;
+	private volatile String error;
+	private volatile Instant finishedAt;
+
+	public IngestJob(UUID documentId, String title) {
+		this.documentId = documentId;
+		this.title = title;
+	}
+
+	void start() {
+		status = Status.RUNNING;
+	}
+
+	void addChunks(int count) {
+		chunksProcessed.addAndGet(count);
+	}
+
+	void complete() {
+		finishedAt = Instant.now();
+		status = Status.COMPLETED;
+	}
+
+	void fail(String message) {
+		error = message;
+		finishedAt = Instant.now();
+		status = Status.FAILED;
+	}
+
+	boolean isFinishedBefore(Instant instant) {
+		return finishedAt != null && finishedAt.isBefore(instant);
+	}
+
+	public UUID getJobId() {
+		return jobId;
+	}
+
+	public UUID getDocumentId() {
+		return documentId;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public int getChunksProcessed() {
+		return chunksProcessed.get();
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+}
@@ -0,0 +1,207 @@
+package com.example.rag.document.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 비동기 문서 적재 작업 관리.
+ *
+ * 요청 스레드는 작업을 등록하고 바로 반환하며, 고정 크기 워커 풀이 큐에서 작업을 꺼내 처리한다.
+ * 큐가 가득 차면 {@link RejectedExecutionException}으로 거절하여
+ * 적재 폭주가 채팅 경로의 DB 커넥션과 LLM 호출량을 잠식하지 않도록 한다.
+ *
+ * 문서 수정도 같은 워커 풀에서 처리해 재임베딩이 요청 스레드를 잡거나 동시성 제한을 우회하지 않도록 한다.
+ *
+ * 작업 상태는 노드 메모리에 보관하며, 종료 후 jobRetention이 지나면 제거한다.
+ * 업로드 파일의 임시 사본은 작업이 끝나거나, 거절되거나, 종료 시 실행되지 못하고 버려질 때 삭제한다.
+ *
+ * 메트릭: rag.ingest.jobs.queued, rag.ingest.jobs.active
+ */
+@Slf4j
+@Service
+public class IngestJobService {
+
+	private final DocumentService documentService;
+	private final FileParserService fileParserService;
+	private final IngestProperties properties;
+	private final ThreadPoolExecutor executor;
+	private final Map<UUID, IngestJob> jobs = new ConcurrentHashMap<>();
+
+	public IngestJobService(DocumentService documentService, FileParserService fileParserService,
+			IngestProperties properties, MeterRegistry meterRegistry) {
+		this.documentService = documentService;
+		this.fileParserService = fileParserService;
+		this.properties = properties;
+		this.executor = new ThreadPoolExecutor(
+				properties.workers(), properties.workers(),
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(properties.queueCapacity()),
+				Thread.ofPlatform().name("ingest-worker-", 0).factory(),
+				new ThreadPoolExecutor.AbortPolicy());
+
+		Gauge.builder("rag.ingest.jobs.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+		Gauge.builder("rag.ingest.jobs.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+	}
+
+	/**
+	 * 텍스트 문서 적재 작업을 등록한다.
+	 *
+	 * @throws RejectedExecutionException 대기열이 가득 찬 경우
+	 */
+	public IngestJob submit(String title, String content, String category) {
+		return submit(UUID.randomUUID(), title, null, job -> documentService.ingest(
+				job.getDocumentId(), title, TextSource.of(content), category, job::addChunks));
+	}
+
+	/**
+	 * 문서 수정 작업을 등록한다. 작업 시작 시 문서가 없으면 작업이 실패한다.
+	 *
+	 * @throws RejectedExecutionException 대기열이 가득 찬 경우
+	 */
+	public IngestJob submitUpdate(UUID documentId, String title, String content, String category) {
+		return submit(documentId, title, null, job -> {
+			if (!documentService.update(documentId, title, content, category, job::addChunks)) {
+				throw new IllegalStateException("문서를 찾을 수 없습니다: " + documentId);
+			}
+		});
+	}
+
+	/**
+	 * 파일 문서 적재 작업을 등록한다.
+	 * 업로드 파일은 요청이 끝나면 사라지므로 임시 파일로 옮겨 두고, 작업이 끝나면 삭제한다.
+	 * 텍스트는 임시 파일에서 페이지 단위로 추출되어 바로 청킹된다.
+	 *
+	 * @throws RejectedExecutionException 대기열이 가득 찬 경우
+	 */
+	public IngestJob submit(MultipartFile file, String title, String category) throws IOException {
+		String filename = file.getOriginalFilename();
+		fileParserService.validate(filename);
+
+		// 원본 파일명은 길이 제한(NAME_MAX)을 넘을 수 있으므로 확장자만 붙인다
+		Path spooled = Files.createTempFile("rag-upload-", "." + extension(filename));
+		try {
+			file.transferTo(spooled);
+		} catch (IOException | RuntimeException e) {
+			deleteQuietly(spooled);
+			throw e;
+		}
+
+		return submit(UUID.randomUUID(), title, spooled, job -> {
+			TextSource source = sink -> fileParserService.extractText(spooled, filename, sink);
+			documentService.ingest(job.getDocumentId(), title, source, category, job::addChunks);
+		});
+	}
+
+	public Optional<IngestJob> find(UUID jobId) {
+		return Optional.ofNullable(jobs.get(jobId));
+	}
+
+	/**
+	 * @param spooled 작업이 끝나면 삭제할 업로드 임시 파일 (없으면 null)
+	 */
+	private IngestJob submit(UUID documentId, String title, Path spooled, JobBody body) {
+		evictFinishedJobs();
+
+		IngestJob job = new IngestJob(documentId, title);
+		jobs.put(job.getJobId(), job);
+		try {
+			executor.execute(new IngestTask(job, body, spooled));
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.getJobId());
+			deleteQuietly(spooled);
+			log.warn("적재 대기열 초과 — 작업 거절: {}", title);
+			throw e;
+		}
+		return job;
+	}
+
+	private void evictFinishedJobs() {
+		Instant threshold = Instant.now().minus(properties.jobRetention());
+		jobs.values().removeIf(job -> job.isFinishedBefore(threshold));
+	}
+
+	/** 대기 중이던 작업은 실패로 표시하고 임시 파일을 삭제한다. */
+	@PreDestroy
+	void shutdown() {
+		List<Runnable> dropped = executor.shutdownNow();
+		for (Runnable task : dropped) {
+			if (task instanceof IngestTask ingestTask) {
+				ingestTask.discard();
+			}
+		}
+	}
+
+	/** 파일명의 확장자 (validate를 통과한 파일명이므로 항상 있다). */
+	private static String extension(String filename) {
+		return filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("업로드 임시 파일 삭제 실패: {}", file, e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface JobBody {
+		void run(IngestJob job) throws Exception;
+	}
+
+	/** 워커 풀에 넣는 작업. 종료 시 실행되지 못한 작업의 임시 파일을 지울 수 있도록 파일 경로를 함께 갖는다. */
+	private static final class IngestTask implements Runnable {
+
+		private final IngestJob job;
+		private final JobBody body;
+		private final Path spooled;
+
+		private IngestTask(IngestJob job, JobBody body, Path spooled) {
+			this.job = job;
+			this.body = body;
+			this.spooled = spooled;
+		}
+
+		@Override
+		public void run() {
+			job.start();
+			try {
+				body.run(job);
+				job.complete();
+			} catch (Exception e) {
+				log.error("문서 적재 실패: jobId={}, title={}", job.getJobId(), job.getTitle(), e);
+				job.fail(e.getMessage());
+			} finally {
+				deleteQuietly(spooled);
+			}
+		}
+
+		void discard() {
+			job.fail("서버 종료로 작업이 취소되었습니다.");
+			deleteQuietly(spooled);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.example.rag.document.service;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 문서 적재 설정.
+ *
+ * 동시에 진행되는 임베딩 요청은 최대 workers × maxInFlightBatches개,
+ * 적재가 점유하는 DB 커넥션은 최대 workers개로 제한된다.
+ * 임베딩이 끝난 배치는 바로 대기 테이블에 기록하므로 문서 하나가 메모리에 두는 청크는
+ * 최대 maxInFlightBatches × batchSize개다.
+ *
+ * @param batchSize          임베딩 요청 1회에 담을 청크 수
+ * @param maxInFlightBatches 문서 하나에서 동시에 진행할 임베딩 요청 수 (초과 시 청킹이 대기)
+ * @param workers            비동기 적재 작업을 처리하는 워커 스레드 수
+ * @param queueCapacity      대기 가능한 적재 작업 수 (초과 시 요청 거절)
+ * @param jobRetention       완료/실패한 작업 상태를 조회할 수 있는 기간
+ * @param pdfWorkers         PDF 하나의 페이지 범위를 병렬로 추출하는 스레드 수
+ * @param pdfPagesPerRange   추출 스레드 하나가 한 번에 처리하는 페이지 수
+ * @param chunkMaxTokens     청크 하나의 최대 토큰 수 (overlap 제외)
+ * @param chunkOverlapTokens 다음 청크 앞에 붙일 이전 청크의 마지막 토큰 수
+ * @param maxDocumentSize    문서 하나의 원본 텍스트(UTF-8) 최대 크기 (초과 시 적재 실패)
+ */
+@ConfigurationProperties(prefix = "rag.ingest")
+public record IngestProperties(
+		@DefaultValue("64") int batchSize,
+		@DefaultValue("4") int maxInFlightBatches,
+		@DefaultValue("2") int workers,
+		@DefaultValue("20") int queueCapacity,
+		@DefaultValue("1h") Duration jobRetention,
+		@DefaultValue("4") int pdfWorkers,
+		@DefaultValue("8") int pdfPagesPerRange,
+		@DefaultValue("512") int chunkMaxTokens,
+		@DefaultValue("64") int chunkOverlapTokens,
+		@DefaultValue("50MB") DataSize maxDocumentSize) {
+}
@@ -0,0 +1,461 @@
+package com.example.rag.document.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.document.repository.DocumentRepository;
+import com.example.rag.document.repository.DocumentRepository.ChunkInsert;
+import com.example.rag.document.repository.DocumentRepository.ChunkState;
+import com.example.rag.document.repository.DocumentRepository.MetadataUpdate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 청킹 → 임베딩 → 기록을 겹쳐 실행하는 문서 적재 파이프라인.
+ *
+ * 1. {@link TextSource}가 전달하는 텍스트 조각(페이지 등)을 청커 세션에 흘려보내고,
+ *    청커가 청크를 만드는 즉시 batchSize 단위 배치로 묶는다.
+ * 2. 배치마다 임베딩 요청을 가상 스레드에서 실행한다. 진행 중인 배치가
+ *    maxInFlightBatches에 도달하면 가장 오래된 배치를 기록할 때까지 청킹이 대기한다. (backpressure)
+ * 3. 임베딩이 끝난 배치는 순서대로 적재 대기 테이블(vector_store_staging)에 바로 JDBC 배치 INSERT 하고 메모리에서 버린다.
+ *    배치마다 짧게 자동 커밋되므로 임베딩 API 호출 동안 DB 커넥션을 잡지 않고,
+ *    메모리에는 진행 중인 배치만 남아 문서 크기와 무관하게 maxInFlightBatches × batchSize개 청크로 제한된다.
+ * 4. {@link #store}가 대기 청크를 vector_store로 옮긴다. (DB 안에서 INSERT ... SELECT)
+ *    호출 스레드에서 실행되므로 호출자의 트랜잭션에 참여하며, 검색에는 트랜잭션이 커밋될 때 문서 전체가 한 번에 보인다.
+ *
+ * 호출자는 {@link #prepare}를 트랜잭션 밖에서 실행하고, 짧은 트랜잭션에서 {@link #store}만 실행한다.
+ * 저장하지 않기로 한 준비 결과는 {@link #discard}로 대기 청크를 지운다.
+ * 적재 도중 프로세스가 종료되어 남은 대기 청크는 시작할 때 하루가 지난 것부터 정리한다.
+ * 원본 텍스트가 maxDocumentSize를 넘으면 적재를 중단한다.
+ *
+ * 청크마다 metadata에 contentHash(SHA-256)와 chunkIndex를 기록한다.
+ * {@link #prepareReindex}는 새 청크의 해시를 기존 청크와 비교해 바뀐 청크만 임베딩하고,
+ * 그대로인 청크는 유지(위치나 제목이 바뀐 경우 metadata만 갱신), 남은 청크는 삭제 대상으로 둔다.
+ *
+ * 메트릭:
+ * - rag.ingest.stage.duration{stage=chunk|embed|insert|publish}: 문서별 단계 누적 시간
+ *   (insert는 대기 테이블 기록, publish는 {@link #store}의 vector_store 이동)
+ * - rag.ingest.chunks / rag.ingest.documents: 처리량 (rate로 chunks/sec, docs/sec 산출)
+ * - rag.ingest.reindex.chunks{result=kept|embedded|deleted}: 재색인 시 청크 처리 결과
+ */
+@Slf4j
+@Component
+public class IngestionPipeline {
+
+	/** 이보다 오래된 대기 청크는 중단된 적재의 잔여물로 보고 시작 시 삭제한다. */
+	private static final Duration STALE_STAGING_AGE = Duration.ofDays(1);
+
+	private final EmbeddingModel embeddingModel;
+	private final DocumentRepository documentRepository;
+	private final IngestProperties properties;
+	private final StructuredTextChunker chunker;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final Timer chunkTimer;
+	private final Timer embedTimer;
+	private final Timer insertTimer;
+	private final Timer publishTimer;
+	private final Counter chunkCounter;
+	private final Counter documentCounter;
+	private final Counter keptCounter;
+	private final Counter embeddedCounter;
+	private final Counter deletedCounter;
+
+	public IngestionPipeline(EmbeddingModel embeddingModel, DocumentRepository documentRepository,
+			IngestProperties properties, MeterRegistry meterRegistry) {
+		this.embeddingModel = embeddingModel;
+		this.documentRepository = documentRepository;
+		this.properties = properties;
+		this.chunker = new StructuredTextChunker(properties.chunkMaxTokens(), properties.chunkOverlapTokens());
+		this.chunkTimer = stageTimer("chunk", meterRegistry);
+		this.embedTimer = stageTimer("embed", meterRegistry);
+		this.insertTimer = stageTimer("insert", meterRegistry);
+		this.publishTimer = stageTimer("publish", meterRegistry);
+		this.chunkCounter = meterRegistry.counter("rag.ingest.chunks");
+		this.documentCounter = meterRegistry.counter("rag.ingest.documents");
+		this.keptCounter = meterRegistry.counter("rag.ingest.reindex.chunks", "result", "kept");
+		this.embeddedCounter = meterRegistry.counter("rag.ingest.reindex.chunks", "result", "embedded");
+		this.deletedCounter = meterRegistry.counter("rag.ingest.reindex.chunks", "result", "deleted");
+	}
+
+	/** 중단된 적재가 남긴 대기 청크를 정리한다. */
+	@PostConstruct
+	void purgeStaleStaging() {
+		int purged = documentRepository.deleteStagedChunksOlderThan(STALE_STAGING_AGE);
+		if (purged > 0) {
+			log.warn("중단된 적재의 대기 청크 {}개 삭제", purged);
+		}
+	}
+
+	/**
+	 * 문서를 청크 분할하여 임베딩하고 대기 테이블에 기록한다. 검색에 보이는 vector_store에는 쓰지 않는다.
+	 *
+	 * @param source   원본 텍스트를 조각 단위로 전달하는 소스
+	 * @param metadata 모든 청크에 공통으로 저장할 metadata
+	 * @param progress 배치 임베딩이 끝날 때마다 임베딩된 청크 수를 전달받는 콜백
+	 * @return {@link #store}로 저장하거나 {@link #discard}로 버릴 문서
+	 * @throws UncheckedIOException     소스 읽기에 실패한 경우
+	 * @throws IllegalArgumentException 원본 텍스트가 maxDocumentSize를 넘는 경우
+	 */
+	public PreparedDocument prepare(TextSource source, Map<String, Object> metadata, IntConsumer progress) {
+		return prepare(source, metadata, progress, chunker);
+	}
+
+	/**
+	 * 설정과 다른 청커로 문서를 준비한다. 청크 크기를 바꿔 가며 검색 품질을 비교할 때 사용한다.
+	 */
+	public PreparedDocument prepare(TextSource source, Map<String, Object> metadata, IntConsumer progress,
+			StructuredTextChunker chunker) {
+		Run run = new Run(metadata, progress, List.of());
+		process(run, source, chunker);
+		return new PreparedDocument(run.stagingId, run.stagedCount, List.copyOf(run.updates), List.of(), 0,
+				run.sourceBytes, false);
+	}
+
+	/**
+	 * 기존 청크를 재사용하며 문서를 다시 색인할 준비를 한다. 새로 임베딩한 청크만 대기 테이블에 기록한다.
+	 * 해시가 같은 청크는 임베딩하지 않으며, 새 청크와 짝지어지지 않은 기존 청크는 삭제 대상이 된다.
+	 * 같은 내용의 청크가 여러 개면 개수만큼만 재사용한다.
+	 *
+	 * @param existing 문서의 기존 청크 상태
+	 * @param progress 배치 임베딩이 끝날 때마다 새로 임베딩된 청크 수를 전달받는 콜백
+	 * @return {@link #store}로 저장할 문서
+	 */
+	public PreparedDocument prepareReindex(TextSource source, Map<String, Object> metadata,
+			List<ChunkState> existing, IntConsumer progress) {
+		Run run = new Run(metadata, progress, existing);
+		process(run, source, chunker);
+		return new PreparedDocument(run.stagingId, run.stagedCount, List.copyOf(run.updates), run.unmatched(),
+				run.keptCount, run.sourceBytes, true);
+	}
+
+	/**
+	 * 준비한 문서를 저장한다. 대기 청크를 vector_store로 옮기고, 유지한 청크의 metadata 갱신,
+	 * 남은 기존 청크 삭제만 실행하므로 호출자는 이 호출만 트랜잭션으로 감싸면 된다.
+	 * 트랜잭션이 롤백되면 대기 청크가 남으므로 호출자가 {@link #discard}를 호출한다.
+	 *
+	 * @return 저장 후 문서의 청크 수(유지 + 새로 임베딩)와 원본 크기
+	 */
+	public IngestResult store(PreparedDocument document) {
+		long start = System.nanoTime();
+		int inserted = document.inserted() > 0 ? documentRepository.publishStagedChunks(document.stagingId()) : 0;
+		if (inserted != document.inserted()) {
+			throw new IllegalStateException("적재 대기 청크가 " + document.inserted() + "개가 아니라 " + inserted
+					+ "개입니다: stagingId=" + document.stagingId());
+		}
+		if (!document.updates().isEmpty()) {
+			documentRepository.updateChunkMetadata(document.updates());
+		}
+		if (!document.deletes().isEmpty()) {
+			documentRepository.deleteChunks(document.deletes());
+		}
+		long publishNanos = System.nanoTime() - start;
+
+		publishTimer.record(publishNanos, TimeUnit.NANOSECONDS);
+		chunkCounter.increment(inserted);
+		documentCounter.increment();
+		if (document.reindex()) {
+			keptCounter.increment(document.kept());
+			embeddedCounter.increment(inserted);
+			deletedCounter.increment(document.deletes().size());
+			log.info("문서 재색인: 유지 {}개 (metadata 갱신 {}개), 임베딩 {}개, 삭제 {}개, 저장 {}ms",
+					document.kept(), document.updates().size(), inserted, document.deletes().size(),
+					publishNanos / 1_000_000);
+		} else {
+			log.info("문서 저장: {}개 청크, {}ms", inserted, publishNanos / 1_000_000);
+		}
+		return new IngestResult(document.chunks(), document.bytes());
+	}
+
+	/** 저장하지 않기로 한 문서의 대기 청크를 삭제한다. */
+	public void discard(PreparedDocument document) {
+		if (document.inserted() > 0) {
+			documentRepository.deleteStagedChunks(document.stagingId());
+		}
+	}
+
+	/** 청크 내용의 SHA-256 해시 (hex). */
+	static String contentHash(String chunk) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(chunk.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void process(Run run, TextSource source, StructuredTextChunker chunker) {
+		long maxBytes = properties.maxDocumentSize().toBytes();
+		try {
+			StructuredTextChunker.Session session = chunker.open(run::accept);
+			source.writeTo(piece -> {
+				run.sourceBytes += utf8Length(piece);
+				if (run.sourceBytes > maxBytes) {
+					throw new IllegalArgumentException("문서가 최대 크기(" + properties.maxDocumentSize() + ")를 넘습니다.");
+				}
+				session.append(piece);
+			});
+			session.finish();
+			run.complete();
+		} catch (IOException e) {
+			run.cancel();
+			throw new UncheckedIOException("문서 텍스트를 읽지 못했습니다.", e);
+		} catch (RuntimeException e) {
+			run.cancel();
+			throw e;
+		}
+	}
+
+	/** 문자열을 인코딩하지 않고 UTF-8 바이트 수를 센다. */
+	private static long utf8Length(String text) {
+		long bytes = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				bytes += 1;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			} else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @param chunks 문서의 청크 수
+	 * @param bytes  원본 텍스트의 UTF-8 크기
+	 */
+	public record IngestResult(int chunks, long bytes) {
+	}
+
+	/**
+	 * 임베딩까지 끝나 저장만 남은 문서.
+	 *
+	 * @param stagingId 새로 임베딩한 청크를 기록한 대기 테이블의 적재 ID
+	 * @param inserted  새로 임베딩한 청크 수
+	 * @param updates   metadata만 바뀐 기존 청크
+	 * @param deletes 새 청크와 짝지어지지 않아 삭제할 기존 청크
+	 * @param kept    유지한 기존 청크 수
+	 * @param bytes   원본 텍스트의 UTF-8 크기
+	 * @param reindex 재색인 여부 (재색인 메트릭 기록용)
+	 */
+	public record PreparedDocument(UUID stagingId, int inserted, List<MetadataUpdate> updates, List<UUID> deletes,
+			int kept, long bytes, boolean reindex) {
+
+		/** 저장 후 문서의 청크 수. */
+		public int chunks() {
+			return kept + inserted;
+		}
+	}
+
+	private static Timer stageTimer(String stage, MeterRegistry meterRegistry) {
+		return Timer.builder("rag.ingest.stage.duration")
+				.tag("stage", stage)
+				.register(meterRegistry);
+	}
+
+	/** 임베딩 대기 중인 청크. */
+	private record PendingChunk(int index, String content, String hash) {
+	}
+
+	/** 문서 하나의 적재 상태. 호출 스레드에서만 접근한다. (embedNanos 제외) */
+	private class Run {
+
+		private final UUID stagingId = UUID.randomUUID();
+		private final Map<String, Object> metadata;
+		private final IntConsumer progress;
+		/** 재사용 가능한 기존 청크 (해시별) */
+		private final Map<String, Deque<ChunkState>> reusable = new HashMap<>();
+		private final List<ChunkState> legacy = new ArrayList<>();
+		private final List<MetadataUpdate> updates = new ArrayList<>();
+		private final Deque<Future<List<ChunkInsert>>> inFlight = new ArrayDeque<>();
+		private final long startNanos = System.nanoTime();
+		private final AtomicLong embedNanos = new AtomicLong();
+		private List<PendingChunk> batch = new ArrayList<>();
+		private long waitNanos;
+		private long stageNanos;
+		private int stagedCount;
+		private int nextIndex;
+		private int keptCount;
+		private long sourceBytes;
+
+		private Run(Map<String, Object> metadata, IntConsumer progress, List<ChunkState> existing) {
+			this.metadata = metadata;
+			this.progress = progress;
+			for (ChunkState state : existing) {
+				if (state.contentHash() == null) {
+					legacy.add(state);
+				} else {
+					reusable.computeIfAbsent(state.contentHash(), hash -> new ArrayDeque<>()).add(state);
+				}
+			}
+		}
+
+		void accept(String chunk) {
+			int index = nextIndex++;
+			String hash = contentHash(chunk);
+
+			Deque<ChunkState> candidates = reusable.get(hash);
+			if (candidates != null && !candidates.isEmpty()) {
+				keep(candidates.poll(), index, hash);
+				return;
+			}
+
+			batch.add(new PendingChunk(index, chunk, hash));
+			if (batch.size() >= properties.batchSize()) {
+				submitBatch();
+			}
+		}
+
+		void complete() {
+			submitBatch();
+			while (!inFlight.isEmpty()) {
+				drainOldest();
+			}
+			recordMetrics();
+		}
+
+		/** 새 청크와 짝지어지지 않은 기존 청크 ID. */
+		List<UUID> unmatched() {
+			List<UUID> ids = new ArrayList<>();
+			legacy.forEach(state -> ids.add(state.id()));
+			reusable.values().forEach(states -> states.forEach(state -> ids.add(state.id())));
+			return ids;
+		}
+
+		/** 기존 청크를 유지한다. 위치·제목·카테고리가 그대로면 쓰기도 생략한다. */
+		private void keep(ChunkState state, int index, String hash) {
+			keptCount++;
+			if (Objects.equals(state.chunkIndex(), index)
+					&& Objects.equals(state.title(), metadata.get("title"))
+					&& Objects.equals(state.category(), metadata.get("category"))) {
+				return;
+			}
+			updates.add(new MetadataUpdate(state.id(), chunkMetadata(index, hash)));
+		}
+
+		private Map<String, Object> chunkMetadata(int index, String hash) {
+			Map<String, Object> chunkMetadata = new HashMap<>(metadata);
+			chunkMetadata.put("contentHash", hash);
+			chunkMetadata.put("chunkIndex", index);
+			return chunkMetadata;
+		}
+
+		/** 진행 중인 임베딩을 취소하고 이미 기록한 대기 청크를 지운다. (기록은 호출 스레드에서만 하므로 경합 없음) */
+		void cancel() {
+			inFlight.forEach(future -> future.cancel(true));
+			inFlight.clear();
+			if (stagedCount > 0) {
+				try {
+					documentRepository.deleteStagedChunks(stagingId);
+				} catch (RuntimeException e) {
+					log.warn("대기 청크 삭제 실패 (시작 시 정리): stagingId={}", stagingId, e);
+				}
+			}
+		}
+
+		private void submitBatch() {
+			if (batch.isEmpty()) {
+				return;
+			}
+			if (inFlight.size() >= properties.maxInFlightBatches()) {
+				drainOldest();
+			}
+			List<PendingChunk> chunks = batch;
+			batch = new ArrayList<>();
+			inFlight.add(executor.submit(() -> embed(chunks)));
+		}
+
+		private List<ChunkInsert> embed(List<PendingChunk> chunks) {
+			long start = System.nanoTime();
+			List<float[]> embeddings = embeddingModel.embed(chunks.stream().map(PendingChunk::content).toList());
+			embedNanos.addAndGet(System.nanoTime() - start);
+
+			List<ChunkInsert> rows = new ArrayList<>(chunks.size());
+			for (int i = 0; i < chunks.size(); i++) {
+				PendingChunk chunk = chunks.get(i);
+				rows.add(new ChunkInsert(UUID.randomUUID(), chunk.content(),
+						chunkMetadata(chunk.index(), chunk.hash()), embeddings.get(i)));
+			}
+			return rows;
+		}
+
+		private void drainOldest() {
+			long waitStart = System.nanoTime();
+			List<ChunkInsert> rows = await(inFlight.poll());
+			waitNanos += System.nanoTime() - waitStart;
+
+			long stageStart = System.nanoTime();
+			documentRepository.stageChunks(stagingId, rows);
+			stageNanos += System.nanoTime() - stageStart;
+			stagedCount += rows.size();
+			progress.accept(rows.size());
+		}
+
+		private List<ChunkInsert> await(Future<List<ChunkInsert>> future) {
+			try {
+				return future.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("청크 임베딩에 실패했습니다.", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("청크 임베딩 대기 중 인터럽트되었습니다.", e);
+			}
+		}
+
+		private void recordMetrics() {
+			long totalNanos = System.nanoTime() - startNanos;
+			long chunkNanos = totalNanos - waitNanos - stageNanos;
+
+			chunkTimer.record(chunkNanos, TimeUnit.NANOSECONDS);
+			embedTimer.record(embedNanos.get(), TimeUnit.NANOSECONDS);
+			insertTimer.record(stageNanos, TimeUnit.NANOSECONDS);
+
+			log.info("문서 임베딩 완료: {}개 청크, {}ms (청킹 {}ms, 임베딩 누적 {}ms, 기록 {}ms, {} chunks/s)",
+					stagedCount, millis(totalNanos), millis(chunkNanos), millis(embedNanos.get()), millis(stageNanos),
+					totalNanos > 0 ? stagedCount * 1_000_000_000L / totalNanos : 0);
+		}
+
+		private static long millis(long nanos) {
+			return nanos / 1_000_000;
+		}
+	}
+}
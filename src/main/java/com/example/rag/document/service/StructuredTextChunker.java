@@ -1,7 +1,11 @@
 package com.example.rag.document.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import com.knuddels.jtokkit.Encodings;
@@ -14,19 +18,58 @@ import com.knuddels.jtokkit.api.IntArrayList;
  * 마크다운 헤더/빈 줄 경계로 섹션을 분리한 뒤,
  * 작은 섹션은 병합하고 큰 섹션은 토큰 단위로 재분할한다.
  * 청크 간 overlap을 추가하여 문맥 끊김을 방지한다.
+ *
+ * {@link #open(Consumer)}로 세션을 열면 텍스트를 나눠서 전달받아
+ * 완성된 청크를 즉시 내보낸다. (적재 파이프라인이 청킹과 임베딩을 겹쳐 실행할 수 있도록)
+ *
+ * 섹션은 한 번만 인코딩한다. 토큰별 UTF-8 바이트 길이로 오프셋을 계산해
+ * 재분할과 overlap은 원문 바이트를 잘라 만들며, 다시 인코딩·디코딩하지 않는다.
+ * 잘라내는 위치는 다음 문자 경계로 맞추므로 한글이 토큰 중간에서 깨지지 않는다.
+ *
+ * 청크 크기(maxTokens)와 overlap 크기(overlapTokens)는 rag.ingest.chunk-max-tokens,
+ * rag.ingest.chunk-overlap-tokens로 설정한다.
  */
 public class StructuredTextChunker {
 
-	private static final int MAX_TOKENS = 512;
-	private static final int OVERLAP_TOKENS = 64;
+	private static final int DEFAULT_MAX_TOKENS = 512;
+	private static final int DEFAULT_OVERLAP_TOKENS = 64;
 
 	/** 마크다운 헤더 또는 연속 빈 줄로 섹션을 분리하는 패턴 */
 	private static final Pattern SECTION_SPLIT = Pattern.compile("(?=^#{1,6} )|(?<=\\n)\\n(?=\\S)", Pattern.MULTILINE);
 
-	private final Encoding encoding;
+	/** BPE 어휘 로딩 비용이 크므로 모든 인스턴스가 하나의 인코딩을 공유한다. (스레드 안전) */
+	private static final Encoding ENCODING =
+			Encodings.newDefaultEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+	/**
+	 * 토큰 ID별 UTF-8 바이트 길이 캐시. 0은 아직 계산하지 않은 토큰.
+	 * 같은 토큰에는 항상 같은 값을 쓰므로 동기화 없이 공유해도 안전하다.
+	 */
+	private static final int[] TOKEN_BYTES = new int[1 << 17];
+
+	private final int maxTokens;
+	private final int overlapTokens;
 
 	public StructuredTextChunker() {
-		this.encoding = Encodings.newDefaultEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+		this(DEFAULT_MAX_TOKENS, DEFAULT_OVERLAP_TOKENS);
+	}
+
+	/**
+	 * @param maxTokens     청크 하나의 최대 토큰 수 (overlap 제외)
+	 * @param overlapTokens 다음 청크 앞에 붙일 이전 청크의 마지막 토큰 수
+	 */
+	public StructuredTextChunker(int maxTokens, int overlapTokens) {
+		if (maxTokens <= 0 || overlapTokens < 0 || overlapTokens >= maxTokens) {
+			throw new IllegalArgumentException(
+					"청크 크기 설정이 올바르지 않습니다: maxTokens=" + maxTokens + ", overlapTokens=" + overlapTokens);
+		}
+		this.maxTokens = maxTokens;
+		this.overlapTokens = overlapTokens;
+	}
+
+	/** 청커와 같은 인코딩(cl100k_base)으로 센 토큰 수. */
+	public static int countTokens(String text) {
+		return text == null || text.isEmpty() ? 0 : ENCODING.countTokens(text);
 	}
 
 	/**
@@ -39,125 +82,201 @@ public class StructuredTextChunker {
 			return List.of();
 		}
 
-		// 1. 구조 경계로 섹션 분리
-		List<String> sections = splitIntoSections(text);
+		List<String> chunks = new ArrayList<>();
+		Session session = open(chunks::add);
+		session.append(text);
+		session.finish();
+		return chunks;
+	}
+
+	/**
+	 * 스트리밍 청킹 세션을 연다.
+	 * {@link Session#append(String)}로 전달한 텍스트는 섹션 경계로 분리되어 병합되고,
+	 * 완성된 청크는 overlap이 적용된 상태로 sink에 전달된다.
+	 */
+	public Session open(Consumer<String> sink) {
+		return new Session(sink, maxTokens, overlapTokens);
+	}
+
+	/**
+	 * 청킹 세션. 직전 청크의 overlap과 병합 중인 섹션만 유지하므로 입력 전체를 메모리에 올리지 않는다.
+	 */
+	public static class Session {
 
-		// 2. 섹션을 MAX_TOKENS 이내로 병합하거나 재분할
-		List<String> rawChunks = mergeSections(sections);
+		private final Consumer<String> sink;
+		private final int maxTokens;
+		private final int overlapTokens;
+		private final List<Section> buffer = new ArrayList<>();
+		private int bufferTokens = 0;
+		private String previousOverlap = "";
 
-		// 3. overlap 적용
-		if (rawChunks.size() <= 1) {
-			return rawChunks;
+		private Session(Consumer<String> sink, int maxTokens, int overlapTokens) {
+			this.sink = sink;
+			this.maxTokens = maxTokens;
+			this.overlapTokens = overlapTokens;
 		}
-		return applyOverlap(rawChunks);
-	}
 
-	private List<String> splitIntoSections(String text) {
-		String[] parts = SECTION_SPLIT.split(text);
-		List<String> sections = new ArrayList<>();
-		for (String part : parts) {
-			String trimmed = part.strip();
-			if (!trimmed.isEmpty()) {
-				sections.add(trimmed);
+		/** 텍스트 조각을 섹션 단위로 병합한다. 조각 경계는 섹션 경계로 취급한다. */
+		public void append(String text) {
+			if (text == null || text.isBlank()) {
+				return;
+			}
+			for (String part : SECTION_SPLIT.split(text)) {
+				String section = part.strip();
+				if (!section.isEmpty()) {
+					mergeSection(new Section(section, ENCODING.encode(section)));
+				}
 			}
 		}
-		return sections;
-	}
 
-	private List<String> mergeSections(List<String> sections) {
-		List<String> chunks = new ArrayList<>();
-		StringBuilder buffer = new StringBuilder();
-		int bufferTokens = 0;
-
-		for (String section : sections) {
-			int sectionTokens = countTokens(section);
-
-			// 단일 섹션이 MAX_TOKENS 초과 → 버퍼 플러시 후 토큰 단위 재분할
-			if (sectionTokens > MAX_TOKENS) {
-				if (bufferTokens > 0) {
-					chunks.add(buffer.toString().strip());
-					buffer.setLength(0);
-					bufferTokens = 0;
-				}
-				chunks.addAll(splitByTokens(section));
-				continue;
+		/** 병합 중인 버퍼를 마지막 청크로 내보낸다. */
+		public void finish() {
+			flushBuffer();
+		}
+
+		private void mergeSection(Section section) {
+			int sectionTokens = section.tokens().size();
+
+			// 단일 섹션이 maxTokens 초과 → 버퍼 플러시 후 토큰 단위 재분할
+			if (sectionTokens > maxTokens) {
+				flushBuffer();
+				splitByTokens(section);
+				return;
 			}
 
 			// 버퍼에 추가하면 초과 → 플러시
-			if (bufferTokens + sectionTokens > MAX_TOKENS && bufferTokens > 0) {
-				chunks.add(buffer.toString().strip());
-				buffer.setLength(0);
-				bufferTokens = 0;
+			if (bufferTokens + sectionTokens > maxTokens && bufferTokens > 0) {
+				flushBuffer();
 			}
 
-			if (buffer.length() > 0) {
-				buffer.append("\n\n");
-			}
-			buffer.append(section);
+			buffer.add(section);
 			bufferTokens += sectionTokens;
 		}
 
-		if (bufferTokens > 0) {
-			chunks.add(buffer.toString().strip());
-		}
+		private void flushBuffer() {
+			if (bufferTokens == 0) {
+				return;
+			}
 
-		return chunks;
-	}
+			StringBuilder chunk = new StringBuilder();
+			for (Section section : buffer) {
+				if (!chunk.isEmpty()) {
+					chunk.append("\n\n");
+				}
+				chunk.append(section.text());
+			}
+			emit(chunk.toString(), bufferTokens > overlapTokens ? bufferOverlap() : "");
 
-	/**
-	 * 큰 텍스트를 토큰 단위로 MAX_TOKENS 크기로 분할한다.
-	 */
-	private List<String> splitByTokens(String text) {
-		IntArrayList tokens = encoding.encode(text);
-		List<String> chunks = new ArrayList<>();
+			buffer.clear();
+			bufferTokens = 0;
+		}
 
-		for (int start = 0; start < tokens.size(); start += MAX_TOKENS) {
-			int end = Math.min(start + MAX_TOKENS, tokens.size());
-			IntArrayList slice = new IntArrayList();
-			for (int i = start; i < end; i++) {
-				slice.add(tokens.get(i));
-			}
-			String chunk = encoding.decode(slice).strip();
-			if (!chunk.isEmpty()) {
-				chunks.add(chunk);
+		/**
+		 * 큰 섹션을 maxTokens 크기로 분할한다.
+		 * 인코딩 결과의 바이트 오프셋으로 원문을 잘라내므로 토큰 슬라이스를 복사·디코딩하지 않는다.
+		 */
+		private void splitByTokens(Section section) {
+			byte[] utf8 = section.text().getBytes(StandardCharsets.UTF_8);
+			IntArrayList tokens = section.tokens();
+			int[] offsets = byteOffsets(tokens);
+
+			for (int start = 0; start < tokens.size(); start += maxTokens) {
+				int end = Math.min(start + maxTokens, tokens.size());
+				String chunk = slice(utf8, offsets[start], offsets[end]);
+				if (chunk.isEmpty()) {
+					continue;
+				}
+				String overlap = end - start > overlapTokens
+						? slice(utf8, offsets[end - overlapTokens], offsets[end])
+						: "";
+				emit(chunk, overlap);
 			}
 		}
 
-		return chunks;
-	}
+		/**
+		 * 병합된 청크의 마지막 overlapTokens 토큰에 해당하는 텍스트.
+		 * 뒤쪽 섹션부터 토큰을 채우며, 경계가 걸친 섹션만 바이트 단위로 잘라낸다.
+		 */
+		private String bufferOverlap() {
+			Deque<String> parts = new ArrayDeque<>();
+			int remaining = overlapTokens;
 
-	/**
-	 * 청크 간 overlap을 적용한다.
-	 * 이전 청크의 마지막 OVERLAP_TOKENS을 다음 청크 앞에 붙인다.
-	 */
-	private List<String> applyOverlap(List<String> chunks) {
-		List<String> result = new ArrayList<>();
-		result.add(chunks.getFirst());
-
-		for (int i = 1; i < chunks.size(); i++) {
-			String prev = chunks.get(i - 1);
-			IntArrayList prevTokens = encoding.encode(prev);
-
-			String overlap = "";
-			if (prevTokens.size() > OVERLAP_TOKENS) {
-				IntArrayList overlapTokens = new IntArrayList();
-				for (int j = prevTokens.size() - OVERLAP_TOKENS; j < prevTokens.size(); j++) {
-					overlapTokens.add(prevTokens.get(j));
+			for (int i = buffer.size() - 1; i >= 0 && remaining > 0; i--) {
+				Section section = buffer.get(i);
+				IntArrayList tokens = section.tokens();
+				if (tokens.size() <= remaining) {
+					parts.addFirst(section.text());
+					remaining -= tokens.size();
+					continue;
 				}
-				overlap = encoding.decode(overlapTokens).strip();
+
+				byte[] utf8 = section.text().getBytes(StandardCharsets.UTF_8);
+				int suffixBytes = 0;
+				for (int j = tokens.size() - remaining; j < tokens.size(); j++) {
+					suffixBytes += tokenBytes(tokens.get(j));
+				}
+				parts.addFirst(slice(utf8, utf8.length - suffixBytes, utf8.length));
+				remaining = 0;
 			}
+			return String.join("\n\n", parts).strip();
+		}
+
+		/**
+		 * 청크 간 overlap을 적용해 내보낸다.
+		 * 이전 청크의 마지막 overlapTokens을 다음 청크 앞에 붙인다.
+		 *
+		 * @param overlap 이 청크의 마지막 overlapTokens 텍스트 (다음 청크에 붙일 값)
+		 */
+		private void emit(String chunk, String overlap) {
+			String prefix = previousOverlap;
+			previousOverlap = overlap;
+			sink.accept(prefix.isEmpty() ? chunk : prefix + "\n\n" + chunk);
+		}
+	}
 
-			if (!overlap.isEmpty()) {
-				result.add(overlap + "\n\n" + chunks.get(i));
-			} else {
-				result.add(chunks.get(i));
+	/** 토큰 i가 시작하는 바이트 오프셋. (길이 tokens.size() + 1) */
+	private static int[] byteOffsets(IntArrayList tokens) {
+		int[] offsets = new int[tokens.size() + 1];
+		for (int i = 0; i < tokens.size(); i++) {
+			offsets[i + 1] = offsets[i] + tokenBytes(tokens.get(i));
+		}
+		return offsets;
+	}
+
+	private static int tokenBytes(int token) {
+		if (token >= 0 && token < TOKEN_BYTES.length) {
+			int cached = TOKEN_BYTES[token];
+			if (cached == 0) {
+				cached = decodeLength(token);
+				TOKEN_BYTES[token] = cached;
 			}
+			return cached;
 		}
+		return decodeLength(token);
+	}
+
+	private static int decodeLength(int token) {
+		IntArrayList single = new IntArrayList(1);
+		single.add(token);
+		return ENCODING.decodeBytes(single).length;
+	}
 
-		return result;
+	/** [from, to) 바이트 구간을 문자 경계에 맞춰 문자열로 만든다. */
+	private static String slice(byte[] utf8, int from, int to) {
+		int start = alignToCharStart(utf8, from);
+		int end = alignToCharStart(utf8, to);
+		return start < end ? new String(utf8, start, end - start, StandardCharsets.UTF_8).strip() : "";
+	}
+
+	/** UTF-8 연속 바이트(10xxxxxx)를 건너뛰어 다음 문자 시작 위치로 옮긴다. */
+	private static int alignToCharStart(byte[] utf8, int offset) {
+		while (offset < utf8.length && (utf8[offset] & 0xC0) == 0x80) {
+			offset++;
+		}
+		return offset;
 	}
 
-	private int countTokens(String text) {
-		return encoding.encode(text).size();
+	/** 인코딩 결과와 함께 보관하는 섹션. */
+	private record Section(String text, IntArrayList tokens) {
 	}
 }
@@ -0,0 +1,20 @@
+package com.example.rag.document.service;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * 적재할 텍스트를 조각 단위로 전달하는 소스.
+ * 전체 텍스트를 한 번에 메모리에 올리지 않고 페이지/문단 단위로 청커에 흘려보내기 위해 사용한다.
+ * 조각 경계는 청커에서 섹션 경계로 취급된다.
+ */
+@FunctionalInterface
+public interface TextSource {
+
+	/** 텍스트 조각을 순서대로 sink에 전달한다. */
+	void writeTo(Consumer<String> sink) throws IOException;
+
+	static TextSource of(String content) {
+		return sink -> sink.accept(content);
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.rag.eval;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.example.rag.chat.retrieval.RetrievalProperties;
+
+/**
+ * 검색 품질 평가 설정. (eval 프로파일에서만 사용)
+ *
+ * 목록으로 지정한 값의 모든 조합을 평가한다. 청크 설정 조합마다 코퍼스를 다시 적재하고,
+ * 나머지 검색 파라미터 조합은 같은 적재 결과에서 평가한다.
+ *
+ * @param dataset             평가 데이터셋 (JSON Lines: {"question": "...", "relevant": ["문서 제목", ...]})
+ * @param corpus              평가 코퍼스 디렉터리 (.md/.txt, 파일 이름이 문서 제목)
+ * @param category            평가 문서를 적재할 카테고리 (검색도 이 카테고리로 한정)
+ * @param output              결과 CSV 경로
+ * @param minRecall           추천 설정이 만족해야 할 recall@rerankTopN 하한
+ * @param modes               검색 실행 방식
+ * @param searchTopK          레그별 검색 후보 수
+ * @param similarityThreshold 벡터 검색 코사인 유사도 하한
+ * @param rrfK                RRF 상수
+ * @param rerankTopN          재순위화 후 컨텍스트에 넣을 문서 수
+ * @param rerankers           재순위화 전략 이름 (local, llm)
+ * @param chunkMaxTokens      청크 최대 토큰 수
+ * @param chunkOverlapTokens  청크 overlap 토큰 수
+ */
+@ConfigurationProperties(prefix = "rag.eval")
+public record EvalProperties(
+		String dataset,
+		String corpus,
+		@DefaultValue("eval") String category,
+		@DefaultValue("build/eval/results.csv") String output,
+		@DefaultValue("0.8") double minRecall,
+		@DefaultValue("single-query") List<RetrievalProperties.Mode> modes,
+		@DefaultValue("10") List<Integer> searchTopK,
+		@DefaultValue("0.3") List<Double> similarityThreshold,
+		@DefaultValue("60") List<Integer> rrfK,
+		@DefaultValue("5") List<Integer> rerankTopN,
+		@DefaultValue("local") List<String> rerankers,
+		@DefaultValue("512") List<Integer> chunkMaxTokens,
+		@DefaultValue("64") List<Integer> chunkOverlapTokens) {
+}
@@ -0,0 +1,231 @@
+package com.example.rag.eval;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.retrieval.RetrievalProperties.Mode;
+import com.example.rag.config.TsvectorInitializer;
+import com.example.rag.document.repository.DocumentRepository;
+import com.example.rag.document.service.IngestionPipeline;
+import com.example.rag.document.service.StructuredTextChunker;
+import com.example.rag.document.service.TextSource;
+import com.example.rag.eval.RetrievalEvaluator.EvalCase;
+import com.example.rag.eval.RetrievalEvaluator.Result;
+import com.example.rag.eval.RetrievalEvaluator.Setting;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 검색 파라미터 그리드 평가 실행기. (eval 프로파일)
+ *
+ * 1. 청크 설정(chunkMaxTokens × chunkOverlapTokens)마다 코퍼스를 평가 카테고리로 적재한다.
+ * 2. 나머지 파라미터 조합마다 {@link RetrievalEvaluator}로 데이터셋 전체를 평가한다.
+ * 3. 평가가 끝나면 적재한 문서를 삭제하고, 결과를 CSV로 저장한 뒤 애플리케이션을 종료한다.
+ *
+ * 평가 코퍼스가 운영 문서와 섞이지 않도록 eval 프로파일은 별도 DB(ragdb_eval)를 사용하며,
+ * 시작할 때 이전 실행이 남긴 평가 카테고리 청크를 삭제한다.
+ *
+ * recall@rerankTopN이 minRecall 이상인 조합 중 컨텍스트 토큰이 가장 적은(같으면 p95가 낮은) 조합을 추천한다.
+ */
+@Slf4j
+@Component
+@Profile("eval")
+public class EvalRunner implements ApplicationRunner {
+
+	private static final String CSV_HEADER = "chunk_max_tokens,chunk_overlap_tokens,chunks,mode,search_top_k,"
+			+ "similarity_threshold,rrf_k,rerank_top_n,reranker,candidate_recall,recall,mrr,context_tokens,"
+			+ "embed_ms,vector_ms,keyword_ms,hybrid_ms,rerank_ms,total_p95_ms";
+
+	private final EvalProperties properties;
+	private final RetrievalEvaluator evaluator;
+	private final IngestionPipeline ingestionPipeline;
+	private final DocumentRepository documentRepository;
+	private final TsvectorInitializer tsvectorInitializer;
+	private final ObjectMapper objectMapper;
+	private final ConfigurableApplicationContext context;
+
+	public EvalRunner(EvalProperties properties, RetrievalEvaluator evaluator, IngestionPipeline ingestionPipeline,
+			DocumentRepository documentRepository, TsvectorInitializer tsvectorInitializer, ObjectMapper objectMapper,
+			ConfigurableApplicationContext context) {
+		this.properties = properties;
+		this.evaluator = evaluator;
+		this.ingestionPipeline = ingestionPipeline;
+		this.documentRepository = documentRepository;
+		this.tsvectorInitializer = tsvectorInitializer;
+		this.objectMapper = objectMapper;
+		this.context = context;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		if (properties.dataset() == null || properties.corpus() == null) {
+			throw new IllegalStateException("rag.eval.dataset과 rag.eval.corpus를 지정해야 합니다.");
+		}
+		// 러너는 ApplicationReadyEvent 전에 실행되므로 키워드 검색용 트리거를 먼저 만든다
+		tsvectorInitializer.createTrigger();
+		// 이전 실행이 중단되어 남은 평가 청크가 있으면 검색 결과가 오염되므로 먼저 지운다
+		int leftover = documentRepository.deleteChunksByCategory(properties.category());
+		if (leftover > 0) {
+			log.warn("이전 평가에서 남은 청크 {}개를 삭제했습니다. (category={})", leftover, properties.category());
+		}
+
+		List<EvalCase> cases = loadCases(Path.of(properties.dataset()));
+		log.info("평가 질문 {}개, 코퍼스 {}", cases.size(), properties.corpus());
+
+		List<String> rows = new ArrayList<>();
+		List<Result> results = new ArrayList<>();
+		for (int maxTokens : properties.chunkMaxTokens()) {
+			for (int overlapTokens : properties.chunkOverlapTokens()) {
+				if (overlapTokens >= maxTokens) {
+					continue;
+				}
+				List<UUID> documentIds = new ArrayList<>();
+				try {
+					int chunks = ingestCorpus(new StructuredTextChunker(maxTokens, overlapTokens), documentIds);
+					log.info("코퍼스 적재: maxTokens={}, overlapTokens={}, 문서 {}개, 청크 {}개",
+							maxTokens, overlapTokens, documentIds.size(), chunks);
+					for (Setting setting : settings(maxTokens, overlapTokens)) {
+						Result result = evaluator.evaluate(cases, setting, properties.category());
+						results.add(result);
+						rows.add(csv(result, chunks));
+						log.info("{}", summary(result));
+					}
+				} finally {
+					deleteCorpus(documentIds);
+				}
+			}
+		}
+
+		Path output = Path.of(properties.output());
+		if (output.getParent() != null) {
+			Files.createDirectories(output.getParent());
+		}
+		Files.write(output, Stream.concat(Stream.of(CSV_HEADER), rows.stream()).toList());
+		log.info("평가 결과 {}개 조합 → {}", results.size(), output.toAbsolutePath());
+
+		recommend(results).ifPresentOrElse(
+				best -> log.info("추천 (recall ≥ {}): {}", properties.minRecall(), summary(best)),
+				() -> log.warn("recall ≥ {}를 만족하는 조합이 없습니다.", properties.minRecall()));
+
+		SpringApplication.exit(context);
+	}
+
+	private List<Setting> settings(int maxTokens, int overlapTokens) {
+		List<Setting> settings = new ArrayList<>();
+		for (Mode mode : properties.modes()) {
+			for (int topK : properties.searchTopK()) {
+				for (double threshold : properties.similarityThreshold()) {
+					for (int rrfK : properties.rrfK()) {
+						for (int topN : properties.rerankTopN()) {
+							if (topN > topK) {
+								continue;
+							}
+							for (String reranker : properties.rerankers()) {
+								settings.add(new Setting(maxTokens, overlapTokens, mode, topK, threshold, rrfK, topN,
+										reranker));
+							}
+						}
+					}
+				}
+			}
+		}
+		return settings;
+	}
+
+	/** recall 하한을 만족하는 조합 중 컨텍스트 토큰, p95 지연 순으로 가장 저렴한 조합. */
+	private Optional<Result> recommend(List<Result> results) {
+		return results.stream()
+				.filter(result -> result.recall() >= properties.minRecall())
+				.min(Comparator.comparingDouble(Result::contextTokens).thenComparingDouble(Result::totalP95Ms));
+	}
+
+	private List<EvalCase> loadCases(Path dataset) throws IOException {
+		try (Stream<String> lines = Files.lines(dataset)) {
+			List<EvalCase> cases = lines.map(String::strip)
+					.filter(line -> !line.isEmpty())
+					.map(line -> {
+						try {
+							return objectMapper.readValue(line, EvalCase.class);
+						} catch (IOException e) {
+							throw new UncheckedIOException("평가 데이터셋 줄을 읽지 못했습니다: " + line, e);
+						}
+					})
+					.toList();
+			if (cases.isEmpty()) {
+				throw new IllegalStateException("평가 데이터셋이 비어 있습니다: " + dataset);
+			}
+			return cases;
+		}
+	}
+
+	/** 코퍼스 파일을 주어진 청커로 적재한다. 문서 제목은 파일 이름이다. */
+	private int ingestCorpus(StructuredTextChunker chunker, List<UUID> documentIds) throws IOException {
+		List<Path> files;
+		try (Stream<Path> list = Files.list(Path.of(properties.corpus()))) {
+			files = list.filter(f -> f.toString().endsWith(".md") || f.toString().endsWith(".txt")).sorted().toList();
+		}
+
+		int chunks = 0;
+		for (Path file : files) {
+			UUID documentId = UUID.randomUUID();
+			documentIds.add(documentId);
+			Map<String, Object> metadata = Map.of(
+					"title", file.getFileName().toString(),
+					"category", properties.category(),
+					"documentId", documentId.toString());
+			chunks += ingestionPipeline.store(
+					ingestionPipeline.prepare(TextSource.of(Files.readString(file)), metadata, n -> {}, chunker))
+					.chunks();
+		}
+		return chunks;
+	}
+
+	private void deleteCorpus(List<UUID> documentIds) {
+		for (UUID documentId : documentIds) {
+			List<UUID> chunkIds = documentRepository.findChunkIdsByDocumentId(documentId).stream()
+					.map(UUID::fromString)
+					.toList();
+			if (!chunkIds.isEmpty()) {
+				documentRepository.deleteChunks(chunkIds);
+			}
+		}
+	}
+
+	private static String csv(Result r, int chunks) {
+		Setting s = r.setting();
+		return String.format(Locale.ROOT,
+				"%d,%d,%d,%s,%d,%.3f,%d,%d,%s,%.4f,%.4f,%.4f,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f",
+				s.chunkMaxTokens(), s.chunkOverlapTokens(), chunks, s.mode().name().toLowerCase(Locale.ROOT),
+				s.searchTopK(), s.similarityThreshold(), s.rrfK(), s.rerankTopN(), s.reranker(),
+				r.candidateRecall(), r.recall(), r.mrr(), r.contextTokens(),
+				r.embedMs(), r.vectorMs(), r.keywordMs(), r.hybridMs(), r.rerankMs(), r.totalP95Ms());
+	}
+
+	private static String summary(Result r) {
+		Setting s = r.setting();
+		return String.format(Locale.ROOT,
+				"chunk=%d/%d mode=%s topK=%d threshold=%.2f rrfK=%d topN=%d reranker=%s"
+						+ " | candidateRecall=%.3f recall=%.3f mrr=%.3f tokens=%.0f p95=%.1fms",
+				s.chunkMaxTokens(), s.chunkOverlapTokens(), s.mode().name().toLowerCase(Locale.ROOT), s.searchTopK(),
+				s.similarityThreshold(), s.rrfK(), s.rerankTopN(), s.reranker(),
+				r.candidateRecall(), r.recall(), r.mrr(), r.contextTokens(), r.totalP95Ms());
+	}
+}
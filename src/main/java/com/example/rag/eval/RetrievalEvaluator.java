@@ -0,0 +1,193 @@
+package com.example.rag.eval;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.example.rag.chat.advisor.RetrievalRerankAdvisor;
+import com.example.rag.chat.budget.LatencyBudgetController;
+import com.example.rag.chat.metrics.StageTags;
+import com.example.rag.chat.repository.HybridSearchRepository;
+import com.example.rag.chat.repository.KeywordSearchRepository;
+import com.example.rag.chat.rerank.Reranker;
+import com.example.rag.chat.retrieval.RetrievalProperties.Mode;
+import com.example.rag.document.service.StructuredTextChunker;
+
+/**
+ * 검색 파라미터 한 조합으로 평가 데이터셋의 모든 질문을 검색·재순위화하고 품질과 비용을 집계한다.
+ *
+ * 레그별 지연을 나눠 재기 위해 운영 경로(동시 실행, 타임아웃)를 거치지 않고 단계를 순서대로 직접 호출한다.
+ * 쿼리 리라이팅은 평가 대상이 아니므로 질문을 그대로 검색한다.
+ * 쿼리 임베딩은 임베딩 캐시를 거치므로 두 번째 조합부터는 캐시 적중 시간이 기록된다.
+ *
+ * 관련 문서 판정은 청크 metadata의 title과 데이터셋의 relevant 제목 비교로 한다.
+ */
+@Component
+@Profile("eval")
+public class RetrievalEvaluator {
+
+	private final EmbeddingModel embeddingModel;
+	private final HybridSearchRepository hybridSearchRepository;
+	private final VectorStore vectorStore;
+	private final KeywordSearchRepository keywordSearchRepository;
+	private final LatencyBudgetController budgetController;
+	private final Map<String, Reranker> rerankers;
+
+	public RetrievalEvaluator(EmbeddingModel embeddingModel, HybridSearchRepository hybridSearchRepository,
+			VectorStore vectorStore, KeywordSearchRepository keywordSearchRepository,
+			LatencyBudgetController budgetController, List<Reranker> rerankers) {
+		this.embeddingModel = embeddingModel;
+		this.hybridSearchRepository = hybridSearchRepository;
+		this.vectorStore = vectorStore;
+		this.keywordSearchRepository = keywordSearchRepository;
+		this.budgetController = budgetController;
+		this.rerankers = rerankers.stream().collect(Collectors.toMap(Reranker::name, Function.identity()));
+	}
+
+	/**
+	 * @param category 평가 문서 카테고리 (검색 범위)
+	 */
+	public Result evaluate(List<EvalCase> cases, Setting setting, String category) {
+		Reranker reranker = rerankers.get(setting.reranker());
+		if (reranker == null) {
+			throw new IllegalArgumentException("알 수 없는 재순위화 전략입니다: " + setting.reranker());
+		}
+
+		double candidateRecall = 0;
+		double recall = 0;
+		double reciprocalRank = 0;
+		long contextTokens = 0;
+		long embedNanos = 0;
+		long vectorNanos = 0;
+		long keywordNanos = 0;
+		long hybridNanos = 0;
+		long rerankNanos = 0;
+		long[] totals = new long[cases.size()];
+
+		for (int i = 0; i < cases.size(); i++) {
+			EvalCase evalCase = cases.get(i);
+			String question = evalCase.question();
+			long start = System.nanoTime();
+
+			Timed<float[]> embedding = timed(() -> embeddingModel.embed(question));
+			embedNanos += embedding.nanos();
+
+			List<Document> candidates;
+			if (setting.mode() == Mode.SINGLE_QUERY) {
+				Timed<List<Document>> hybrid = timed(() -> hybridSearchRepository.search(embedding.value(), question,
+						setting.searchTopK(), setting.similarityThreshold(), setting.rrfK(), category));
+				hybridNanos += hybrid.nanos();
+				candidates = hybrid.value();
+			} else {
+				Timed<List<Document>> vector = timed(() -> vectorStore.similaritySearch(SearchRequest.builder()
+						.query(question)
+						.topK(setting.searchTopK())
+						.similarityThreshold(setting.similarityThreshold())
+						.filterExpression("category == '" + category + "'")
+						.build()));
+				Timed<List<Document>> keyword = timed(
+						() -> keywordSearchRepository.search(question, setting.searchTopK(), category));
+				vectorNanos += vector.nanos();
+				keywordNanos += keyword.nanos();
+				candidates = RetrievalRerankAdvisor.mergeByRRF(vector.value(), keyword.value(), setting.rrfK(),
+						setting.searchTopK());
+			}
+
+			List<Document> selected = candidates;
+			if (candidates.size() > setting.rerankTopN()) {
+				Timed<List<Document>> reranked = timed(() -> reranker.rerank(question, candidates,
+						setting.rerankTopN(), StageTags.NONE, budgetController.rerankTimeoutNanos(null)));
+				rerankNanos += reranked.nanos();
+				selected = reranked.value();
+			}
+			totals[i] = System.nanoTime() - start;
+
+			Set<String> relevant = new HashSet<>(evalCase.relevant());
+			candidateRecall += recall(candidates, relevant);
+			recall += recall(selected, relevant);
+			reciprocalRank += reciprocalRank(selected, relevant);
+			contextTokens += StructuredTextChunker.countTokens(
+					selected.stream().map(Document::getText).collect(Collectors.joining("\n\n")));
+		}
+
+		int n = cases.size();
+		Arrays.sort(totals);
+		return new Result(setting, candidateRecall / n, recall / n, reciprocalRank / n, (double) contextTokens / n,
+				millis(embedNanos, n), millis(vectorNanos, n), millis(keywordNanos, n), millis(hybridNanos, n),
+				millis(rerankNanos, n), totals[Math.clamp((int) Math.ceil(0.95 * n) - 1, 0, n - 1)] / 1e6);
+	}
+
+	/** 관련 문서 중 결과에 포함된 문서의 비율. (같은 문서의 여러 청크는 한 번만 센다) */
+	private static double recall(List<Document> results, Set<String> relevant) {
+		if (relevant.isEmpty()) {
+			return 0;
+		}
+		long found = results.stream().map(RetrievalEvaluator::title).filter(relevant::contains).distinct().count();
+		return (double) found / relevant.size();
+	}
+
+	/** 첫 관련 문서 순위의 역수. 없으면 0. */
+	private static double reciprocalRank(List<Document> results, Set<String> relevant) {
+		for (int rank = 0; rank < results.size(); rank++) {
+			if (relevant.contains(title(results.get(rank)))) {
+				return 1.0 / (rank + 1);
+			}
+		}
+		return 0;
+	}
+
+	private static String title(Document document) {
+		Object title = document.getMetadata().get("title");
+		return title != null ? title.toString() : "";
+	}
+
+	private static double millis(long nanos, int count) {
+		return nanos / 1e6 / count;
+	}
+
+	private static <T> Timed<T> timed(Supplier<T> call) {
+		long start = System.nanoTime();
+		T value = call.get();
+		return new Timed<>(value, System.nanoTime() - start);
+	}
+
+	private record Timed<T>(T value, long nanos) {
+	}
+
+	/**
+	 * 평가 질문.
+	 *
+	 * @param relevant 정답 문서 제목 (코퍼스 파일 이름)
+	 */
+	public record EvalCase(String question, List<String> relevant) {
+	}
+
+	/** 검색 파라미터 한 조합. 청크 설정은 코퍼스 적재에 이미 반영되어 있으며 보고용으로만 담는다. */
+	public record Setting(int chunkMaxTokens, int chunkOverlapTokens, Mode mode, int searchTopK,
+			double similarityThreshold, int rrfK, int rerankTopN, String reranker) {
+	}
+
+	/**
+	 * 한 조합의 평가 결과. 지연은 질문당 평균(ms), totalP95는 검색 시작부터 재순위화 종료까지의 p95(ms).
+	 *
+	 * @param candidateRecall 재순위화 전 후보(searchTopK)의 recall
+	 * @param recall          재순위화 후 컨텍스트(rerankTopN)의 recall
+	 * @param mrr             재순위화 후 컨텍스트의 MRR
+	 * @param contextTokens   컨텍스트 문서의 평균 토큰 수
+	 */
+	public record Result(Setting setting, double candidateRecall, double recall, double mrr, double contextTokens,
+			double embedMs, double vectorMs, double keywordMs, double hybridMs, double rerankMs, double totalP95Ms) {
+	}
+}
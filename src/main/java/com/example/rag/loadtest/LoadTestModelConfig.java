@@ -0,0 +1,39 @@
+package com.example.rag.loadtest;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import com.example.rag.chat.cache.CachingEmbeddingModel;
+import com.example.rag.chat.cache.EmbeddingCacheProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 부하 테스트 프로파일(loadtest).
+ * OpenAI 모델 자동 구성을 끄고(application-loadtest.yaml) 로컬 모델로 대체한다.
+ * 그 외 구성(advisor 체인, 캐시, 스케줄러, pgvector)은 운영과 동일하므로
+ * 풀 크기·advisor·캐시 설정 변경의 처리량 영향을 API 비용과 네트워크 변동 없이 비교할 수 있다.
+ *
+ * 임베딩은 운영과 같이 {@link CachingEmbeddingModel}로 감싼다.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestModelConfig {
+
+	@Bean
+	ChatModel localChatModel(LoadTestProperties properties) {
+		return new LocalChatModel(properties);
+	}
+
+	@Bean
+	@Primary
+	EmbeddingModel cachingEmbeddingModel(LoadTestProperties properties, EmbeddingCacheProperties cacheProperties,
+			MeterRegistry meterRegistry) {
+		return new CachingEmbeddingModel(new LocalEmbeddingModel(properties), cacheProperties.maxMemory().toBytes(),
+				meterRegistry);
+	}
+}
@@ -0,0 +1,28 @@
+package com.example.rag.loadtest;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 부하 테스트용 로컬 모델 설정. (loadtest 프로파일에서만 사용)
+ *
+ * 지연 시간은 프롬프트 해시로 정해지는 ±jitter 비율만큼 흔들리며, 같은 프롬프트는 항상 같은 지연·응답을 낸다.
+ *
+ * @param callLatency       동기 호출(리라이팅, 재순위화, 요약, 동기 답변) 한 번의 지연
+ * @param firstTokenLatency 스트리밍 첫 토큰까지의 지연
+ * @param tokenInterval     스트리밍 토큰 사이 간격
+ * @param answerTokens      답변 토큰 수
+ * @param embeddingLatency  임베딩 호출 한 번의 지연 (배치 크기와 무관)
+ * @param jitter            지연 시간 변동 비율 (0이면 고정)
+ */
+@ConfigurationProperties(prefix = "rag.load-test")
+public record LoadTestProperties(
+		@DefaultValue("300ms") Duration callLatency,
+		@DefaultValue("200ms") Duration firstTokenLatency,
+		@DefaultValue("20ms") Duration tokenInterval,
+		@DefaultValue("60") int answerTokens,
+		@DefaultValue("20ms") Duration embeddingLatency,
+		@DefaultValue("0.2") double jitter) {
+}
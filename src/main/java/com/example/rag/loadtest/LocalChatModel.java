@@ -0,0 +1,115 @@
+package com.example.rag.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * 네트워크 호출 없이 설정된 지연 후 결정적인 응답을 내는 {@link ChatModel}.
+ *
+ * 응답은 프롬프트 해시를 시드로 단어를 조합해 만들므로 같은 프롬프트에는 항상 같은 응답을 낸다.
+ * 재순위화 프롬프트에는 번호 목록("1, 2, 3, ...")으로 답해 LLM 재순위화 경로도 정상 동작한다.
+ * 동기 호출은 호출 스레드를 블로킹하여(실제 HTTP 클라이언트와 같이) 지연을 흉내 내고,
+ * 스트리밍은 첫 토큰 지연 후 토큰 간격마다 한 토큰씩 내보낸다.
+ * 토큰 사용량은 문자 수 기준 근사값(4자당 1토큰)으로 마지막 응답에 담는다.
+ */
+public class LocalChatModel implements ChatModel {
+
+	private static final String MODEL = "local";
+
+	private static final String[] WORDS = {
+			"고객님", "문의하신", "내용은", "다음과", "같습니다.", "환불은", "결제일로부터", "7일", "이내에",
+			"가능하며,", "배송", "상태는", "마이페이지에서", "확인할", "수", "있습니다.", "추가로", "필요한",
+			"사항이", "있으면", "말씀해", "주세요.", "정책에", "따라", "처리됩니다.",
+	};
+
+	/** LlmReranker 프롬프트 식별 문구 */
+	private static final String RERANK_MARKER = "문서 번호";
+
+	private final LoadTestProperties properties;
+
+	public LocalChatModel(LoadTestProperties properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public ChatResponse call(Prompt prompt) {
+		String text = prompt.getContents();
+		sleep(jittered(properties.callLatency(), text));
+		String answer = String.join(" ", answerTokens(text));
+		return response(answer, usage(text, answer));
+	}
+
+	@Override
+	public Flux<ChatResponse> stream(Prompt prompt) {
+		String text = prompt.getContents();
+		List<String> tokens = answerTokens(text);
+		String answer = String.join(" ", tokens);
+		DefaultUsage usage = usage(text, answer);
+
+		List<ChatResponse> chunks = new ArrayList<>(tokens.size());
+		for (int i = 0; i < tokens.size(); i++) {
+			String token = i == 0 ? tokens.get(i) : " " + tokens.get(i);
+			chunks.add(response(token, i == tokens.size() - 1 ? usage : null));
+		}
+		Flux<ChatResponse> body = properties.tokenInterval().isZero()
+				? Flux.fromIterable(chunks)
+				: Flux.fromIterable(chunks).delayElements(properties.tokenInterval());
+		return body.delaySubscription(jittered(properties.firstTokenLatency(), text));
+	}
+
+	private List<String> answerTokens(String prompt) {
+		if (prompt.contains(RERANK_MARKER)) {
+			return List.of("1,", "2,", "3,", "4,", "5");
+		}
+		SplittableRandom random = new SplittableRandom(prompt.hashCode());
+		List<String> tokens = new ArrayList<>(properties.answerTokens());
+		for (int i = 0; i < properties.answerTokens(); i++) {
+			tokens.add(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return tokens;
+	}
+
+	private Duration jittered(Duration base, String prompt) {
+		if (properties.jitter() <= 0 || base.isZero()) {
+			return base;
+		}
+		double factor = 1 + properties.jitter() * (new SplittableRandom(prompt.hashCode()).nextDouble() * 2 - 1);
+		return Duration.ofNanos((long) (base.toNanos() * factor));
+	}
+
+	private static ChatResponse response(String text, DefaultUsage usage) {
+		ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder().model(MODEL);
+		if (usage != null) {
+			metadata.usage(usage);
+		}
+		return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata.build());
+	}
+
+	private static DefaultUsage usage(String prompt, String answer) {
+		return new DefaultUsage(prompt.length() / 4, answer.length() / 4);
+	}
+
+	static void sleep(Duration duration) {
+		if (duration.isZero()) {
+			return;
+		}
+		try {
+			Thread.sleep(duration);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("로컬 모델 호출이 중단되었습니다.", e);
+		}
+	}
+}
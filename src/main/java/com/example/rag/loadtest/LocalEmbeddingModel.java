@@ -0,0 +1,78 @@
+package com.example.rag.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * 네트워크 호출 없이 텍스트 해시로 1536차원 단위 벡터를 만드는 {@link EmbeddingModel}.
+ *
+ * 공백 단위 토큰마다 토큰 해시를 시드로 한 난수 벡터를 더해 정규화한다.
+ * 같은 텍스트는 항상 같은 벡터가 되고, 단어를 많이 공유하는 텍스트일수록 코사인 유사도가 높아
+ * 벡터 검색·유사 질문 캐시가 실제 임베딩과 비슷한 방식으로 동작한다.
+ */
+public class LocalEmbeddingModel implements EmbeddingModel {
+
+	/** text-embedding-3-small과 같은 차원 (vector_store 컬럼과 일치해야 한다) */
+	static final int DIMENSIONS = 1536;
+
+	private final LoadTestProperties properties;
+
+	public LocalEmbeddingModel(LoadTestProperties properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+		LocalChatModel.sleep(properties.embeddingLatency());
+		List<String> inputs = request.getInstructions();
+		List<Embedding> embeddings = new ArrayList<>(inputs.size());
+		for (int i = 0; i < inputs.size(); i++) {
+			embeddings.add(new Embedding(vector(inputs.get(i)), i));
+		}
+		return new EmbeddingResponse(embeddings);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+		return embed(document.getText());
+	}
+
+	@Override
+	public int dimensions() {
+		return DIMENSIONS;
+	}
+
+	static float[] vector(String text) {
+		float[] vector = new float[DIMENSIONS];
+		for (String token : text.strip().split("\\s+")) {
+			if (token.isEmpty()) {
+				continue;
+			}
+			SplittableRandom random = new SplittableRandom(token.hashCode());
+			for (int d = 0; d < DIMENSIONS; d++) {
+				vector[d] += (float) (random.nextDouble() * 2 - 1);
+			}
+		}
+
+		double norm = 0;
+		for (float v : vector) {
+			norm += v * v;
+		}
+		if (norm == 0) {
+			vector[0] = 1;
+			return vector;
+		}
+		float scale = (float) (1 / Math.sqrt(norm));
+		for (int d = 0; d < DIMENSIONS; d++) {
+			vector[d] *= scale;
+		}
+		return vector;
+	}
+}
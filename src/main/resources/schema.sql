@@ -3,8 +3,109 @@ CREATE INDEX IF NOT EXISTS idx_vector_store_document_id ON vector_store ((metada
 -- 키워드 검색용 tsvector 컬럼 추가
 ALTER TABLE vector_store ADD COLUMN IF NOT EXISTS content_tsv tsvector;
 
--- GIN 인덱스 생성
-CREATE INDEX IF NOT EXISTS idx_vector_store_content_tsv ON vector_store USING GIN (content_tsv);
+-- 카테고리 필터용 generated 컬럼 (metadata JSON 추출을 행마다 반복하지 않도록 저장)
+ALTER TABLE vector_store ADD COLUMN IF NOT EXISTS category text GENERATED ALWAYS AS (metadata->>'category') STORED;
+
+-- 카테고리 + tsvector 복합 GIN 인덱스 (text 컬럼을 GIN에 넣기 위해 btree_gin 필요)
+-- content_tsv만으로 검색하는 경우에도 이 인덱스를 사용하므로 단일 컬럼 인덱스는 제거한다.
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+DROP INDEX IF EXISTS idx_vector_store_content_tsv;
+CREATE INDEX IF NOT EXISTS idx_vector_store_category_tsv ON vector_store USING GIN (category, content_tsv);
 
 -- 기존 데이터 tsvector 갱신
 UPDATE vector_store SET content_tsv = to_tsvector('simple', content) WHERE content_tsv IS NULL;
+
+-- 적재 중인 청크. 임베딩 배치마다 기록하고, 문서 저장 트랜잭션에서 vector_store로 옮긴다 (검색에는 보이지 않음)
+CREATE TABLE IF NOT EXISTS vector_store_staging (
+    staging_id UUID NOT NULL,
+    id UUID NOT NULL,
+    content TEXT,
+    metadata JSON,
+    embedding vector,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS idx_vector_store_staging_staging_id ON vector_store_staging (staging_id);
+CREATE INDEX IF NOT EXISTS idx_vector_store_staging_created_at ON vector_store_staging (created_at);
+
+-- 대화 메모리 (Spring AI JDBC 스키마와 동일, 초기화 순서와 무관하게 존재하도록 보장)
+CREATE TABLE IF NOT EXISTS spring_ai_chat_memory (
+    conversation_id VARCHAR(36) NOT NULL,
+    content TEXT NOT NULL,
+    type VARCHAR(10) NOT NULL CHECK (type IN ('USER', 'ASSISTANT', 'SYSTEM', 'TOOL')),
+    "timestamp" TIMESTAMP NOT NULL
+);
+
+-- append-only 기록용 순번 컬럼. 기존 행은 timestamp 순으로 채운다.
+CREATE SEQUENCE IF NOT EXISTS spring_ai_chat_memory_seq;
+ALTER TABLE spring_ai_chat_memory ADD COLUMN IF NOT EXISTS seq BIGINT;
+UPDATE spring_ai_chat_memory m SET seq = o.seq
+FROM (SELECT ctid, nextval('spring_ai_chat_memory_seq') AS seq
+      FROM (SELECT ctid FROM spring_ai_chat_memory WHERE seq IS NULL ORDER BY "timestamp") t) o
+WHERE m.ctid = o.ctid;
+ALTER TABLE spring_ai_chat_memory ALTER COLUMN seq SET DEFAULT nextval('spring_ai_chat_memory_seq');
+
+-- 요약 행이 대체하는 마지막 메시지 순번 (요약 행에만 값이 있음)
+ALTER TABLE spring_ai_chat_memory ADD COLUMN IF NOT EXISTS covers_seq BIGINT;
+
+-- 메시지를 추가할 때 애플리케이션이 부여하는 ID. 기록 재시도 시 이미 기록된 메시지를 건너뛴다 (기존 행·요약 행은 null)
+ALTER TABLE spring_ai_chat_memory ADD COLUMN IF NOT EXISTS message_id UUID;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_chat_memory_message_id ON spring_ai_chat_memory (message_id);
+
+-- 최근 N개 창 조회 / 최신 요약 조회
+CREATE INDEX IF NOT EXISTS idx_chat_memory_conversation_seq ON spring_ai_chat_memory (conversation_id, seq);
+CREATE INDEX IF NOT EXISTS idx_chat_memory_summary ON spring_ai_chat_memory (conversation_id, seq) WHERE covers_seq IS NOT NULL;
+
+-- 세션 목록 (대화 메모리 기록 시 함께 갱신)
+CREATE TABLE IF NOT EXISTS chat_session (
+    conversation_id VARCHAR(36) PRIMARY KEY,
+    title TEXT,
+    created_at TIMESTAMP NOT NULL,
+    last_active_at TIMESTAMP NOT NULL,
+    message_count INT NOT NULL DEFAULT 0
+);
+
+-- 최근 활동 순 keyset 페이지 조회
+CREATE INDEX IF NOT EXISTS idx_chat_session_recency ON chat_session (last_active_at DESC, conversation_id DESC);
+
+-- 최초 1회 기존 대화 이력으로 채운다 (세션 테이블이 비어 있을 때만)
+INSERT INTO chat_session (conversation_id, title, created_at, last_active_at, message_count)
+SELECT m.conversation_id,
+       (SELECT left(u.content, 50) || CASE WHEN length(u.content) > 50 THEN '...' ELSE '' END
+        FROM spring_ai_chat_memory u
+        WHERE u.conversation_id = m.conversation_id AND u.type = 'USER'
+        ORDER BY u.seq
+        LIMIT 1),
+       MIN(m."timestamp"), MAX(m."timestamp"), COUNT(*) FILTER (WHERE m.covers_seq IS NULL)
+FROM spring_ai_chat_memory m
+WHERE NOT EXISTS (SELECT 1 FROM chat_session)
+GROUP BY m.conversation_id
+ON CONFLICT (conversation_id) DO NOTHING;
+
+-- 문서 카탈로그 (적재/수정/삭제 트랜잭션에서 함께 갱신, 목록 조회는 vector_store를 읽지 않는다)
+CREATE TABLE IF NOT EXISTS document_catalog (
+    document_id UUID PRIMARY KEY,
+    title TEXT NOT NULL,
+    category TEXT NOT NULL DEFAULT '',
+    chunk_count INT NOT NULL,
+    byte_size BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- 제목 순 페이지 조회 / 카테고리 필터
+CREATE INDEX IF NOT EXISTS idx_document_catalog_title ON document_catalog (title, document_id);
+CREATE INDEX IF NOT EXISTS idx_document_catalog_category_title ON document_catalog (category, title, document_id);
+
+-- 제목 부분 일치 검색 (title ILIKE '%q%'는 앞이 고정되지 않아 btree 인덱스를 쓸 수 없으므로 trigram GIN 사용)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_document_catalog_title_trgm ON document_catalog USING GIN (title gin_trgm_ops);
+
+-- 최초 1회 기존 청크로 채운다 (카탈로그가 비어 있을 때만, byte_size는 overlap이 포함된 근사값)
+INSERT INTO document_catalog (document_id, title, category, chunk_count, byte_size, created_at, updated_at)
+SELECT (metadata->>'documentId')::uuid, MIN(metadata->>'title'), COALESCE(MIN(category), ''),
+       COUNT(*), SUM(octet_length(content)), now(), now()
+FROM vector_store
+WHERE metadata->>'documentId' IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM document_catalog)
+GROUP BY metadata->>'documentId'
+ON CONFLICT (document_id) DO NOTHING;
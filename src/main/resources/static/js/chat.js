@@ -23,24 +23,39 @@ const sendBtn = document.getElementById('send-btn');
 let conversationId = sessionStorage.getItem('conversationId') || crypto.randomUUID();
 sessionStorage.setItem('conversationId', conversationId);
 
-/* 세션 목록 로드 */
-async function loadSessions() {
+/* 세션 목록 로드 (최근 활동 순, 페이지 단위) */
+let sessionCursor = null;
+
+async function loadSessions(append = false) {
     try {
-        const res = await fetch('/api/chat/sessions');
+        const url = append && sessionCursor
+            ? `/api/chat/sessions?cursor=${encodeURIComponent(sessionCursor)}`
+            : '/api/chat/sessions';
+        const res = await fetch(url);
         if (!res.ok) return;
-        const sessions = await res.json();
+        const page = await res.json();
+        const sessions = page.sessions;
+        sessionCursor = page.nextCursor;
         const list = document.getElementById('session-list');
-        if (sessions.length === 0) {
+        if (!append && sessions.length === 0) {
             list.innerHTML = '<div style="text-align:center;color:rgba(255,255,255,0.4);padding:20px;font-size:13px;">대화가 없습니다</div>';
             return;
         }
-        list.innerHTML = sessions.map(s => `
+        const items = sessions.map(s => `
             <div class="session-item ${s.conversationId === conversationId ? 'active' : ''}"
                  onclick="loadSession('${s.conversationId}')">
                 <span class="title">${esc(s.title)}</span>
                 <button class="delete-btn" onclick="event.stopPropagation();deleteSession('${s.conversationId}')" title="삭제">&times;</button>
             </div>
         `).join('');
+        const more = sessionCursor
+            ? '<div class="session-item more" onclick="this.remove();loadSessions(true)"><span class="title">더 보기</span></div>'
+            : '';
+        if (append) {
+            list.insertAdjacentHTML('beforeend', items + more);
+        } else {
+            list.innerHTML = items + more;
+        }
     } catch (e) { /* 무시 */ }
 }
 
@@ -135,6 +150,8 @@ async function send() {
                         if (eventType === 'conversationId') {
                             conversationId = data;
                             sessionStorage.setItem('conversationId', data);
+                        } else if (eventType === 'error') {
+                            botMsg.textContent = data;
                         } else {
                             botMsg.textContent += data;
                             chatArea.scrollTop = chatArea.scrollHeight;
@@ -1,16 +1,26 @@
 /* ── 문서 관리 ── */
 let editingDocId = null;
+let docPage = 0;
+const DOC_PAGE_SIZE = 20;
 
-async function loadDocs() {
-    const res = await fetch('/api/documents');
-    const docs = await res.json();
+async function loadDocs(page = docPage) {
+    const res = await fetch(`/api/documents?page=${page}&size=${DOC_PAGE_SIZE}`);
+    const data = await res.json();
+    const docs = data.documents;
     const container = document.getElementById('doc-list');
 
+    // 마지막 페이지의 문서를 모두 지운 경우 이전 페이지로 이동
+    if (docs.length === 0 && page > 0) {
+        return loadDocs(page - 1);
+    }
+    docPage = page;
+
     if (docs.length === 0) {
         container.innerHTML = '<div class="empty-state">등록된 문서가 없습니다.</div>';
         return;
     }
 
+    const lastPage = Math.max(Math.ceil(data.total / data.size) - 1, 0);
     container.innerHTML = `<table>
         <thead><tr><th>제목</th><th>카테고리</th><th>청크</th><th></th></tr></thead>
         <tbody>${docs.map(d => `<tr>
@@ -22,7 +32,12 @@ async function loadDocs() {
                 <button class="btn btn-sm btn-danger" onclick="deleteDoc('${d.documentId}')">삭제</button>
             </td>
         </tr>`).join('')}</tbody>
-    </table>`;
+    </table>
+    ${lastPage > 0 ? `<div class="actions">
+        <button class="btn btn-sm btn-secondary" onclick="loadDocs(${page - 1})" ${page === 0 ? 'disabled' : ''}>이전</button>
+        <span>${page + 1} / ${lastPage + 1}</span>
+        <button class="btn btn-sm btn-secondary" onclick="loadDocs(${page + 1})" ${page >= lastPage ? 'disabled' : ''}>다음</button>
+    </div>` : ''}`;
 }
 
 /* 입력 모드 전환 (텍스트/파일) */
@@ -71,11 +86,12 @@ async function submitDoc() {
         // 수정 모드: 기존 텍스트 방식
         const content = document.getElementById('doc-content').value.trim();
         if (!content) { alert('내용을 입력해 주세요.'); return; }
-        await fetch(`/api/documents/${editingDocId}`, {
+        const res = await fetch(`/api/documents/${editingDocId}`, {
             method: 'PUT',
             headers: { 'Content-Type': 'application/json' },
             body: JSON.stringify({ title, content, category: category || null })
         });
+        if (!await trackIngestJob(res)) return;
     } else if (mode === 'file') {
         // 파일 업로드 모드
         const fileInput = document.getElementById('doc-file');
@@ -84,22 +100,44 @@ async function submitDoc() {
         formData.append('file', fileInput.files[0]);
         formData.append('title', title);
         if (category) formData.append('category', category);
-        await fetch('/api/documents/upload', { method: 'POST', body: formData });
+        const res = await fetch('/api/documents/upload', { method: 'POST', body: formData });
+        if (!await trackIngestJob(res)) return;
     } else {
         // 텍스트 입력 모드
         const content = document.getElementById('doc-content').value.trim();
         if (!content) { alert('내용을 입력해 주세요.'); return; }
-        await fetch('/api/documents', {
+        const res = await fetch('/api/documents', {
             method: 'POST',
             headers: { 'Content-Type': 'application/json' },
             body: JSON.stringify({ title, content, category: category || null })
         });
+        if (!await trackIngestJob(res)) return;
     }
 
     closeModal();
     loadDocs();
 }
 
+// 적재 작업 응답을 확인하고, 작업이 끝나면 목록을 다시 불러온다
+async function trackIngestJob(res) {
+    if (res.status === 429) { alert('등록 대기열이 가득 찼습니다. 잠시 후 다시 시도해 주세요.'); return false; }
+    if (!res.ok) { alert('문서 등록에 실패했습니다.'); return false; }
+    const job = await res.json();
+    pollIngestJob(job.jobId);
+    return true;
+}
+
+async function pollIngestJob(jobId) {
+    while (true) {
+        await new Promise(resolve => setTimeout(resolve, 1000));
+        const res = await fetch(`/api/documents/jobs/${jobId}`);
+        if (!res.ok) return;
+        const job = await res.json();
+        if (job.status === 'COMPLETED') { loadDocs(); return; }
+        if (job.status === 'FAILED') { alert(`문서 등록 실패: ${job.error || ''}`); return; }
+    }
+}
+
 async function editDoc(id) {
     const res = await fetch(`/api/documents/${id}`);
     if (!res.ok) { alert('문서를 불러올 수 없습니다.'); return; }
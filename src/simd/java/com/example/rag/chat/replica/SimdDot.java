@@ -0,0 +1,31 @@
+package com.example.rag.chat.replica;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API 내적. 플랫폼 선호 폭(AVX2면 8, AVX-512면 16 lanes)으로 FMA 누적 후 마지막에 한 번 합산한다.
+ * jdk.incubator.vector 모듈이 필요하다. ({@link VectorMath}가 모듈 존재를 확인한 뒤에만 호출)
+ */
+final class SimdDot {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private SimdDot() {
+	}
+
+	static float dot(float[] a, float[] b) {
+		FloatVector acc = FloatVector.zero(SPECIES);
+		int i = 0;
+		int bound = SPECIES.loopBound(a.length);
+		for (; i < bound; i += SPECIES.length()) {
+			acc = FloatVector.fromArray(SPECIES, a, i).fma(FloatVector.fromArray(SPECIES, b, i), acc);
+		}
+		float sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.rag.chat.replica;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HnswIndexTest {
+
+	private static final int DIMENSIONS = 48;
+	private static final int SIZE = 2000;
+	private static final int K = 10;
+	private static final int QUERIES = 50;
+
+	@ParameterizedTest(name = "simd={0}")
+	@ValueSource(booleans = {false, true})
+	void topKMatchesExactScan(boolean simd) {
+		assumeTrue(!simd || VectorMath.simdAvailable(), "jdk.incubator.vector 모듈 없음");
+		float[][] corpus = corpus(new Random(7));
+		HnswIndex index = build(corpus, simd);
+
+		double recall = recall(index, corpus, new Random(11), node -> true);
+
+		assertThat(recall).isGreaterThanOrEqualTo(0.95);
+	}
+
+	@Test
+	void deletedNodesAreNeverReturned() {
+		float[][] corpus = corpus(new Random(7));
+		HnswIndex index = build(corpus, false);
+		for (int node = 0; node < SIZE; node += 5) {
+			index.delete(node);
+		}
+		index.delete(0);
+
+		assertThat(index.deletedRatio()).isCloseTo(0.2, within(1e-9));
+		Random random = new Random(13);
+		for (int q = 0; q < QUERIES; q++) {
+			// 삭제된 노드 자신으로 검색해도 결과에 나오지 않아야 한다
+			List<HnswIndex.Hit> hits = index.search(corpus[5 * random.nextInt(SIZE / 5)], K, 64);
+			assertThat(hits).hasSize(K).allSatisfy(hit -> assertThat(hit.node() % 5).isNotZero());
+		}
+		assertThat(recall(index, corpus, new Random(11), node -> node % 5 != 0)).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void scoresAreCosineSimilarityInDescendingOrder() {
+		float[][] corpus = corpus(new Random(7));
+		HnswIndex index = build(corpus, false);
+		float[] query = corpus[42].clone();
+		for (int i = 0; i < DIMENSIONS; i++) {
+			query[i] *= 3;
+		}
+
+		List<HnswIndex.Hit> hits = index.search(query, K, 64);
+
+		assertThat(hits.getFirst().node()).isEqualTo(42);
+		assertThat(hits.getFirst().score()).isCloseTo(1f, within(1e-5f));
+		assertThat(hits).isSortedAccordingTo(Comparator.comparingDouble(HnswIndex.Hit::score).reversed());
+		for (HnswIndex.Hit hit : hits) {
+			assertThat(hit.score()).isCloseTo(cosine(query, corpus[hit.node()]), within(1e-4f));
+		}
+	}
+
+	@Test
+	void emptyIndexReturnsNothing() {
+		HnswIndex index = new HnswIndex(DIMENSIONS, 0, 16, 100, false);
+
+		assertThat(index.search(new float[DIMENSIONS], K, 64)).isEmpty();
+		assertThat(index.deletedRatio()).isZero();
+	}
+
+	@Test
+	void simdDotMatchesScalarDot() {
+		assumeTrue(VectorMath.simdAvailable(), "jdk.incubator.vector 모듈 없음");
+		Random random = new Random(3);
+		for (int length : new int[] {1, 7, 16, 1536, 1537}) {
+			float[] a = vector(random, length);
+			float[] b = vector(random, length);
+			assertThat(VectorMath.dot(a, b, true)).isCloseTo(VectorMath.scalarDot(a, b), within(1e-3f));
+		}
+	}
+
+	/** 전수 비교로 구한 정답 top-K 중 인덱스가 찾은 비율의 평균. */
+	private static double recall(HnswIndex index, float[][] corpus, Random random, IntPredicate alive) {
+		int found = 0;
+		for (int q = 0; q < QUERIES; q++) {
+			float[] query = vector(random, DIMENSIONS);
+			Set<Integer> exact = IntStream.range(0, corpus.length)
+					.filter(alive)
+					.boxed()
+					.sorted(Comparator.comparingDouble((Integer node) -> cosine(query, corpus[node])).reversed())
+					.limit(K)
+					.collect(Collectors.toSet());
+			Set<Integer> approximate = new HashSet<>();
+			index.search(query, K, 64).forEach(hit -> approximate.add(hit.node()));
+			approximate.retainAll(exact);
+			found += approximate.size();
+		}
+		return (double) found / (QUERIES * K);
+	}
+
+	private static HnswIndex build(float[][] corpus, boolean simd) {
+		HnswIndex index = new HnswIndex(DIMENSIONS, 16, 16, 100, simd);
+		for (float[] vector : corpus) {
+			index.insert(vector);
+		}
+		return index;
+	}
+
+	private static float[][] corpus(Random random) {
+		float[][] corpus = new float[SIZE][];
+		for (int i = 0; i < SIZE; i++) {
+			corpus[i] = vector(random, DIMENSIONS);
+		}
+		return corpus;
+	}
+
+	private static float[] vector(Random random, int dimensions) {
+		float[] vector = new float[dimensions];
+		for (int i = 0; i < dimensions; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+	private static float cosine(float[] a, float[] b) {
+		return VectorMath.scalarDot(VectorMath.normalize(a), VectorMath.normalize(b));
+	}
+}
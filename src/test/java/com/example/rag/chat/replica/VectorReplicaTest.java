@@ -0,0 +1,179 @@
+package com.example.rag.chat.replica;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import com.example.rag.chat.repository.HybridSearchRepository;
+import com.example.rag.chat.repository.VectorReplicaRepository;
+import com.example.rag.chat.repository.VectorReplicaRepository.ChunkVersion;
+import com.example.rag.chat.repository.VectorReplicaRepository.ReplicaRow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VectorReplicaTest {
+
+	private static final int DIMENSIONS = 16;
+
+	private final VectorReplicaRepository repository = mock(VectorReplicaRepository.class);
+	private final Random random = new Random(5);
+	private VectorReplica replica;
+
+	@AfterEach
+	void tearDown() {
+		if (replica != null) {
+			replica.shutdown();
+		}
+	}
+
+	@Test
+	void searchReturnsChunksWithCosineScoreAndDistance() {
+		ReplicaRow target = row("c1", "d1", "faq", "환불 규정", "v1");
+		when(repository.findByCategory("faq")).thenReturn(List.of(target, row("c2", "d1", "faq", "배송 안내", "v1")));
+		replica = replica(0.3);
+
+		replica.rebuild("faq");
+
+		assertThat(replica.covers("faq")).isTrue();
+		assertThat(replica.covers("hr")).isFalse();
+		List<Document> results = replica.search("faq", target.embedding(), 1, 0.0).orElseThrow();
+		assertThat(results).singleElement().satisfies(document -> {
+			assertThat(document.getId()).isEqualTo("c1");
+			assertThat(document.getText()).isEqualTo("환불 규정");
+			assertThat(document.getScore()).isCloseTo(1.0, within(1e-5));
+			assertThat(((Number) document.getMetadata().get(HybridSearchRepository.DISTANCE)).doubleValue())
+					.isCloseTo(0.0, within(1e-5));
+		});
+		assertThat(replica.search("hr", target.embedding(), 1, 0.0)).isEmpty();
+	}
+
+	@Test
+	void refreshUpdatesMetadataInPlaceWithoutTombstones() {
+		ReplicaRow original = row("c1", "d1", "faq", "환불 규정", "v1");
+		when(repository.findByCategory("faq")).thenReturn(List.of(original));
+		// 삭제 표시가 하나라도 생기면 다시 적재하도록 설정
+		replica = replica(0.0);
+		replica.rebuild("faq");
+
+		ReplicaRow retitled = new ReplicaRow("c1", "환불 규정", Map.of("documentId", "d1", "title", "새 제목"), "faq",
+				"v2", original.embedding());
+		when(repository.findByDocumentId("d1")).thenReturn(List.of(retitled));
+		replica.refresh("d1");
+
+		verify(repository, times(1)).findByCategory("faq");
+		Document document = replica.search("faq", original.embedding(), 1, 0.0).orElseThrow().getFirst();
+		assertThat(document.getMetadata()).containsEntry("title", "새 제목");
+	}
+
+	@Test
+	void refreshRemovesDeletedChunksAndAddsNewOnes() {
+		ReplicaRow kept = row("c1", "d1", "faq", "환불 규정", "v1");
+		ReplicaRow removed = row("c2", "d1", "faq", "배송 안내", "v1");
+		when(repository.findByCategory("faq")).thenReturn(List.of(kept, removed, row("c3", "d2", "faq", "회원 가입", "v1")));
+		replica = replica(0.9);
+		replica.rebuild("faq");
+
+		ReplicaRow added = row("c4", "d1", "faq", "교환 규정", "v1");
+		when(repository.findByDocumentId("d1")).thenReturn(List.of(kept, added));
+		replica.refresh("d1");
+
+		assertThat(ids(replica.search("faq", removed.embedding(), 10, 0.0).orElseThrow()))
+				.containsExactlyInAnyOrder("c1", "c3", "c4");
+		assertThat(ids(replica.search("faq", added.embedding(), 1, 0.0).orElseThrow())).containsExactly("c4");
+	}
+
+	@Test
+	void rebuildsCategoryWhenDeletedRatioExceedsLimit() {
+		List<ReplicaRow> rows = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			rows.add(row("c" + i, i < 4 ? "d1" : "d2", "faq", "청크 " + i, "v1"));
+		}
+		when(repository.findByCategory("faq")).thenReturn(rows);
+		replica = replica(0.3);
+		replica.rebuild("faq");
+
+		// d1의 청크 4개 중 1개 삭제 → 비율 0.1, 다시 적재하지 않음
+		when(repository.findByDocumentId("d1")).thenReturn(rows.subList(1, 4));
+		replica.refresh("d1");
+		verify(repository, times(1)).findByCategory("faq");
+
+		// 나머지 3개 삭제 → 비율 0.4 > 0.3, 카테고리를 다시 적재
+		when(repository.findByCategory("faq")).thenReturn(rows.subList(4, 10));
+		when(repository.findByDocumentId("d1")).thenReturn(List.of());
+		replica.refresh("d1");
+
+		verify(repository, times(2)).findByCategory("faq");
+		assertThat(ids(replica.search("faq", rows.get(0).embedding(), 10, 0.0).orElseThrow()))
+				.containsExactlyInAnyOrder("c4", "c5", "c6", "c7", "c8", "c9");
+	}
+
+	@Test
+	void synchronizeAppliesChangesMadeOutsideThisNode() {
+		ReplicaRow kept = row("c1", "d1", "faq", "환불 규정", "v1");
+		ReplicaRow deletedElsewhere = row("c2", "d2", "faq", "배송 안내", "v1");
+		when(repository.findByCategory("faq")).thenReturn(List.of(kept, deletedElsewhere));
+		replica = replica(0.9);
+		replica.rebuild("faq");
+
+		// 다른 노드에서 d2가 삭제되고 d3이 추가됨
+		ReplicaRow addedElsewhere = row("c3", "d3", "faq", "회원 가입", "v1");
+		when(repository.findVersionsByCategory("faq")).thenReturn(List.of(
+				new ChunkVersion("c1", "d1", "v1"), new ChunkVersion("c3", "d3", "v1")));
+		when(repository.findByDocumentId("d2")).thenReturn(List.of());
+		when(repository.findByDocumentId("d3")).thenReturn(List.of(addedElsewhere));
+		replica.synchronize();
+
+		assertThat(ids(replica.search("faq", deletedElsewhere.embedding(), 10, 0.0).orElseThrow()))
+				.containsExactlyInAnyOrder("c1", "c3");
+		verify(repository, times(0)).findByDocumentId("d1");
+	}
+
+	@Test
+	void refreshFailureEvictsOnlyTheAffectedCategory() {
+		when(repository.findByCategory("faq"))
+				.thenReturn(List.of(row("c1", "d1", "faq", "환불 규정", "v1")))
+				.thenThrow(new IllegalStateException("DB 연결 실패"));
+		when(repository.findByCategory("hr")).thenReturn(List.of(row("c2", "d2", "hr", "연차 규정", "v1")));
+		replica = replica(0.3);
+		replica.rebuild("faq");
+		replica.rebuild("hr");
+
+		when(repository.findByDocumentId("d1")).thenThrow(new IllegalStateException("DB 연결 실패"));
+		replica.refresh("d1");
+
+		assertThat(replica.covers("faq")).isFalse();
+		assertThat(replica.covers("hr")).isTrue();
+	}
+
+	private VectorReplica replica(double maxDeletedRatio) {
+		VectorReplicaProperties properties = new VectorReplicaProperties(true, List.of("faq", "hr"), 16, 100, 64,
+				false, maxDeletedRatio, Duration.ofSeconds(30));
+		return new VectorReplica(properties, repository, new SimpleMeterRegistry());
+	}
+
+	private ReplicaRow row(String id, String documentId, String category, String content, String version) {
+		float[] embedding = new float[DIMENSIONS];
+		for (int i = 0; i < DIMENSIONS; i++) {
+			embedding[i] = (float) random.nextGaussian();
+		}
+		return new ReplicaRow(id, content, Map.of("documentId", documentId, "category", category), category, version,
+				embedding);
+	}
+
+	private static List<String> ids(List<Document> documents) {
+		return documents.stream().map(Document::getId).toList();
+	}
+}
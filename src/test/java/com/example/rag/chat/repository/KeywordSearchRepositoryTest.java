@@ -0,0 +1,23 @@
+package com.example.rag.chat.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class KeywordSearchRepositoryTest {
+
+	@ParameterizedTest(name = "{0}")
+	@CsvSource(delimiter = ';', value = {
+			"환불 규정;환불 | 규정",
+			"안녕하세요!;안녕하세요",
+			"what's new;what | s | new",
+			"a&b;a | b",
+			"(x) | !y:*;x | y",
+			"a <-> b;a | b",
+			"  !!! ;''",
+	})
+	void tsQueryContainsOnlyWordsJoinedByOr(String query, String expected) {
+		assertThat(KeywordSearchRepository.buildTsQuery(query)).isEqualTo(expected);
+	}
+}